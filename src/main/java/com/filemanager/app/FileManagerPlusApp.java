@@ -13,7 +13,9 @@ import com.filemanager.app.base.IAppController;
 import com.filemanager.app.base.IAppStrategy;
 import com.filemanager.app.base.IAutoReloadAble;
 import com.filemanager.app.components.FileScanner;
+import com.filemanager.app.components.FolderWatcher;
 import com.filemanager.app.components.PipelineManager;
+import com.filemanager.app.components.UiUpdateBus;
 import com.filemanager.app.tools.ConfigFileManager;
 import com.filemanager.app.tools.MultiThreadTaskEstimator;
 import com.filemanager.app.tools.display.ProgressBarDisplay;
@@ -26,8 +28,13 @@ import com.filemanager.app.ui.GlobalSettingsView;
 import com.filemanager.app.ui.LogView;
 import com.filemanager.app.ui.PreviewView;
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.RunStatistics;
+import com.filemanager.model.ScannedEntry;
 import com.filemanager.strategy.AppStrategyFactory;
+import com.filemanager.tool.StorageDeviceRegistry;
+import com.filemanager.tool.TaskCostModel;
 import com.filemanager.tool.ThreadPoolManager;
+import com.filemanager.tool.log.ExecutionLogPolicy;
 import com.filemanager.tool.log.LogInfo;
 import com.filemanager.tool.log.LogType;
 import com.filemanager.type.TaskStatus;
@@ -61,6 +68,7 @@ import lombok.Getter;
 
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -69,7 +77,9 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * FileManager Plus v21.0 (Modularized)
@@ -104,6 +114,16 @@ public class FileManagerPlusApp extends Application implements IAppController {
         return rootPathThreadConfig;
     }
 
+    @Override
+    public StorageDeviceRegistry getStorageDeviceRegistry() {
+        return threadPoolManager.getDeviceRegistry();
+    }
+
+    @Override
+    public TaskCostModel getTaskCostModel() {
+        return threadPoolManager.getCostModel();
+    }
+
     private long taskStartTimStamp = System.currentTimeMillis();
 
     @Override
@@ -122,7 +142,7 @@ public class FileManagerPlusApp extends Application implements IAppController {
     public JFXCheckBox getAutoRun() {
         return autoRun;
     }
-    private JFXButton btnGo, btnExecute, btnStop;
+    private JFXButton btnGo, btnWatch, btnExecute, btnStop;
     private Stage primaryStage;
 
     @Override
@@ -133,6 +153,10 @@ public class FileManagerPlusApp extends Application implements IAppController {
     private ConfigFileManager configManager;
     @Getter
     private List<ChangeRecord> fullChangeList = new ArrayList<>();
+    // 变更列表的运行统计，随变更列表一起替换
+    private volatile RunStatistics runStatistics = RunStatistics.empty();
+    // 界面更新总线，各视图和任务的界面刷新统一按固定频率执行
+    private final UiUpdateBus uiUpdateBus = new UiUpdateBus();
 
     @Override
     public List<ChangeRecord> getFullChangeList() {
@@ -187,6 +211,7 @@ public class FileManagerPlusApp extends Application implements IAppController {
         });
         // 初始化样式工厂
         StyleFactory.initStyleFactory(currentTheme);
+        uiUpdateBus.start();
         this.configManager = new ConfigFileManager(this);
         this.strategyPrototypes = AppStrategyFactory.getAppStrategies();
         this.threadPoolManager = new ThreadPoolManager();
@@ -274,6 +299,7 @@ public class FileManagerPlusApp extends Application implements IAppController {
         autoRun = new JFXCheckBox("预览成功立即运行");
         autoRun.setSelected(false);
         btnGo = StyleFactory.createActionButton("预览", null, this::runPipelineAnalysis);
+        btnWatch = StyleFactory.createActionButton("监控", "#8e44ad", this::runWatchMode);
         btnExecute = StyleFactory.createActionButton("执行", "#27ae60", this::runPipelineExecution);
         btnStop = StyleFactory.createActionButton("停止", "#e74c3c", this::forceStop);
         btnStop.setDisable(true);
@@ -291,7 +317,7 @@ public class FileManagerPlusApp extends Application implements IAppController {
         logo.setTextFill(Color.web(currentTheme.getTextPrimaryColor()));
         logo.setStyle("-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 3, 0, 0, 1);");
 
-        header.getChildren().addAll(logo, new Region(), menuBar, autoRun, btnGo, btnExecute, btnStop);
+        header.getChildren().addAll(logo, new Region(), menuBar, autoRun, btnGo, btnWatch, btnExecute, btnStop);
         HBox.setHgrow(header.getChildren().get(1), Priority.ALWAYS);
         VBox top = new VBox(header, new Separator());
         root.setTop(top);
@@ -427,6 +453,11 @@ public class FileManagerPlusApp extends Application implements IAppController {
         pipelineManager.runPipelineExecution();
     }
 
+    @Override
+    public void runWatchMode() {
+        pipelineManager.runWatchMode();
+    }
+
     // --- Shared Methods & Utils ---
 
     @Override
@@ -492,6 +523,19 @@ public class FileManagerPlusApp extends Application implements IAppController {
     @Override
     public void setFullChangeList(List<ChangeRecord> changeList) {
         this.fullChangeList = changeList;
+        RunStatistics stats = new RunStatistics(sourceRoots);
+        stats.addAll(changeList);
+        this.runStatistics = stats;
+    }
+
+    @Override
+    public RunStatistics getRunStatistics() {
+        return runStatistics;
+    }
+
+    @Override
+    public UiUpdateBus getUiUpdateBus() {
+        return uiUpdateBus;
     }
 
     @Override
@@ -502,6 +546,7 @@ public class FileManagerPlusApp extends Application implements IAppController {
     @Override
     public void changePreviewButton(boolean enabled) {
         btnGo.setDisable(!enabled);
+        btnWatch.setDisable(!enabled);
     }
 
     @Override
@@ -544,6 +589,22 @@ public class FileManagerPlusApp extends Application implements IAppController {
         return fileScanner.scanFilesRobust(root, minDepth, maxDepth, globalLimit, dirLimit, msg);
     }
 
+    @Override
+    public List<ScannedEntry> scanEntriesRobust(File root, int minDepth, int maxDepth, AtomicInteger globalLimit, AtomicInteger dirLimit, Consumer<String> msg) {
+        return fileScanner.scanEntriesRobust(root, minDepth, maxDepth, globalLimit, dirLimit, msg);
+    }
+
+    @Override
+    public Map<File, List<ScannedEntry>> scanRootsConcurrently(List<File> roots, int minDepth, int maxDepth, AtomicInteger globalLimit,
+                                                              Function<File, Integer> rootLimit, BiConsumer<File, String> msg) {
+        return fileScanner.scanRootsConcurrently(roots, minDepth, maxDepth, globalLimit, rootLimit, msg);
+    }
+
+    @Override
+    public FolderWatcher newFolderWatcher(List<File> roots, int minDepth, int maxDepth) throws IOException {
+        return fileScanner.newFolderWatcher(roots, minDepth, maxDepth);
+    }
+
     @Override
     public boolean setThreadPoolMode(String newVal) {
         if (taskRunningStatus.get()) {
@@ -560,6 +621,11 @@ public class FileManagerPlusApp extends Application implements IAppController {
         return pipelineManager.getRootPathEstimator(rootPath);
     }
 
+    @Override
+    public String getRootPathTuningStatus(String rootPath) {
+        return pipelineManager.getRootPathTuningStatus(rootPath);
+    }
+
     @Override
     public void forceStop() {
         pipelineManager.forceStop();
@@ -620,7 +686,8 @@ public class FileManagerPlusApp extends Application implements IAppController {
     public void invalidatePreview(String r) {
         if (!fullChangeList.isEmpty()) {
             fullChangeList.clear();
-            previewView.getPreviewTable().setRoot(null);
+            runStatistics = new RunStatistics(sourceRoots);
+            previewView.clearPreview();
             log(r);
         }
         btnExecute.setDisable(true);
@@ -637,6 +704,11 @@ public class FileManagerPlusApp extends Application implements IAppController {
         logView.appendLog(new LogInfo(LogType.ERROR, s));
     }
 
+    @Override
+    public ExecutionLogPolicy getExecutionLogPolicy() {
+        return logView.getExecutionLogPolicy();
+    }
+
     @Override
     public Node getGlobalSettingsView() {
         return globalSettingsView.getViewNode();
@@ -10,8 +10,10 @@
 package com.filemanager.app.base;
 
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.ChangeRecordRepository;
 import com.filemanager.model.RuleCondition;
 import com.filemanager.model.RuleConditionGroup;
+import com.filemanager.tool.CancellationToken;
 import com.filemanager.type.ScanTarget;
 import javafx.scene.Node;
 import lombok.Getter;
@@ -59,8 +61,15 @@ public abstract class IAppStrategy implements IAutoReloadAble{
 
     public abstract Node getConfigNode(); // 策略特有的配置UI
 
-    // 核心分析逻辑
+    /**
+     * 列表形式的分析入口，每次调用都会为列表建立索引；批量分析时应先建立仓库再调用仓库形式的入口
+     */
     public List<ChangeRecord> analyzeWithPreCheck(ChangeRecord currentRecord, List<ChangeRecord> inputRecords, List<File> rootDirs) {
+        return analyzeWithPreCheck(currentRecord, ChangeRecordRepository.of(inputRecords, rootDirs), rootDirs);
+    }
+
+    // 核心分析逻辑
+    public List<ChangeRecord> analyzeWithPreCheck(ChangeRecord currentRecord, ChangeRecordRepository inputRecords, List<File> rootDirs) {
         // 已经变更的文件不支持二次变更
         if (currentRecord.isChanged()) {
             return Collections.emptyList();
@@ -70,36 +79,51 @@ public abstract class IAppStrategy implements IAutoReloadAble{
             return Collections.emptyList();
         }
         // 类型检查
-        if (ScanTarget.FILES_ONLY == getTargetType() && currentRecord.getFileHandle().isDirectory()) {
+        if (ScanTarget.FILES_ONLY == getTargetType() && currentRecord.isDirectory()) {
             return Collections.emptyList();
         }
-        if (ScanTarget.FOLDERS_ONLY == getTargetType() && currentRecord.getFileHandle().isFile()) {
+        if (ScanTarget.FOLDERS_ONLY == getTargetType() && currentRecord.isFile()) {
             return Collections.emptyList();
         }
         return analyze(currentRecord, inputRecords, rootDirs);
     }
 
     // 核心分析逻辑
-    public abstract List<ChangeRecord> analyze(ChangeRecord currentRecord, List<ChangeRecord> inputRecords, List<File> rootDirs);
+    public abstract List<ChangeRecord> analyze(ChangeRecord currentRecord, ChangeRecordRepository inputRecords, List<File> rootDirs);
+
+    /**
+     * 列表形式的分析，每次调用都会为列表建立索引
+     */
+    public List<ChangeRecord> analyze(ChangeRecord currentRecord, List<ChangeRecord> inputRecords, List<File> rootDirs) {
+        return analyze(currentRecord, ChangeRecordRepository.of(inputRecords, rootDirs), rootDirs);
+    }
 
     // 核心执行逻辑
     public abstract void execute(ChangeRecord rec) throws Exception;
 
+    /**
+     * 可取消的执行：调用外部程序或长时间读写的策略覆盖该方法，
+     * 把进程和流登记到令牌上，停止时立即结束并清理未完成的输出
+     */
+    public void execute(ChangeRecord rec, CancellationToken token) throws Exception {
+        token.throwIfCancelled();
+        execute(rec);
+    }
+
     // [修改] 校验逻辑：组间为 OR，只要有一个组满足即可
     protected boolean checkConditions(ChangeRecord rec) {
-        File f = rec.getFileHandle();
         // 无条件则通过
         if (conditionGroups.isEmpty() && globalConditions.isEmpty()) {
             return true;
         }
         // 只要有一组满足 (组内是AND)，则通过
         for (RuleConditionGroup group : conditionGroups) {
-            if (group.test(f)) {
+            if (group.test(rec)) {
                 return true;
             }
         }
         for (RuleCondition c : globalConditions) {
-            if (!c.test(f)) {
+            if (!c.test(rec)) {
                 return false;
             }
         }
@@ -109,16 +133,37 @@ public abstract class IAppStrategy implements IAutoReloadAble{
 
     public abstract ScanTarget getTargetType();
 
+    /**
+     * 分析时是否依赖其他记录或同目录的其他文件，依赖时不能边分析边执行
+     */
+    public boolean isCrossRecordAnalysis() {
+        return false;
+    }
+
     public void captureParams() {
     }
 
     public abstract String getDescription();
 
+    protected ChangeRecord getTargetFile(File file, ChangeRecordRepository changeRecords) {
+        return changeRecords.findByPath(file);
+    }
+
+    protected List<ChangeRecord> getFilesUnderDir(File file, ChangeRecordRepository changeRecords) {
+        return changeRecords.findUnderDir(file);
+    }
+
+    /**
+     * 逐条遍历查找，记录较多时使用仓库形式
+     */
     protected ChangeRecord getTargetFile(File file, Collection<ChangeRecord> changeRecords) {
         return changeRecords.stream().filter(changeRecord -> changeRecord.getFileHandle().equals(file) &&
                 file.getName().equals(changeRecord.getFileHandle().getName())).findFirst().orElse(null);
     }
 
+    /**
+     * 逐条遍历查找，记录较多时使用仓库形式
+     */
     protected List<ChangeRecord> getFilesUnderDir(File file, Collection<ChangeRecord> changeRecords) {
         return changeRecords.stream().filter(changeRecord -> changeRecord.getFileHandle().getParentFile().equals(file) &&
                 file.getName().equals(changeRecord.getFileHandle().getParentFile().getName())).collect(Collectors.toList());
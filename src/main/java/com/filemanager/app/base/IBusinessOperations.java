@@ -9,7 +9,11 @@
  */
 package com.filemanager.app.base;
 
+import com.filemanager.app.components.FolderWatcher;
+import com.filemanager.model.ScannedEntry;
+
 import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
@@ -56,6 +60,11 @@ public interface IBusinessOperations {
      */
     void runPipelineExecution();
 
+    /**
+     * 启动监控模式：源目录中新增的文件写入完成后自动分析并执行
+     */
+    void runWatchMode();
+
     /**
      * 强制停止任务
      */
@@ -93,4 +102,36 @@ public interface IBusinessOperations {
      * @return 文件列表
      */
     java.util.List<File> scanFilesRobust(File root, int minDepth, int maxDepth, AtomicInteger globalLimit, AtomicInteger dirLimit, Consumer<String> msg);
-}
\ No newline at end of file
+
+    /**
+     * 扫描文件，返回带属性快照的条目
+     * @param root 根目录
+     * @param minDepth 最小深度
+     * @param maxDepth 最大深度
+     * @param msg 消息消费者
+     * @return 条目列表
+     */
+    java.util.List<ScannedEntry> scanEntriesRobust(File root, int minDepth, int maxDepth, AtomicInteger globalLimit, AtomicInteger dirLimit, Consumer<String> msg);
+
+    /**
+     * 并发扫描多个根路径，按存储设备分配扫描线程
+     * @param roots 根目录列表
+     * @param minDepth 最小深度
+     * @param maxDepth 最大深度
+     * @param globalLimit 所有根路径共用的数量限制
+     * @param rootLimit 根路径的数量限制
+     * @param msg 进度消息消费者（根路径，消息）
+     * @return 每个根路径的条目列表，顺序与 roots 一致
+     */
+    java.util.Map<File, java.util.List<ScannedEntry>> scanRootsConcurrently(java.util.List<File> roots, int minDepth, int maxDepth, AtomicInteger globalLimit,
+                                                                           java.util.function.Function<File, Integer> rootLimit, java.util.function.BiConsumer<File, String> msg);
+
+    /**
+     * 创建源目录监控，使用与扫描相同的深度和过滤条件
+     * @param roots 根目录列表
+     * @param minDepth 最小深度
+     * @param maxDepth 最大深度
+     * @return 未启动的目录监控
+     */
+    FolderWatcher newFolderWatcher(java.util.List<File> roots, int minDepth, int maxDepth) throws IOException;
+}
@@ -9,6 +9,9 @@
  */
 package com.filemanager.app.base;
 
+import com.filemanager.tool.StorageDeviceRegistry;
+import com.filemanager.tool.TaskCostModel;
+
 import java.util.Map;
 
 /**
@@ -38,4 +41,16 @@ public interface IConfigManager {
      * @return 根路径线程配置映射
      */
     Map<String, Integer> getRootPathThreadConfig();
+
+    /**
+     * 获取存储设备识别器
+     * @return 存储设备识别器
+     */
+    StorageDeviceRegistry getStorageDeviceRegistry();
+
+    /**
+     * 获取任务耗时估算模型
+     * @return 任务耗时估算模型
+     */
+    TaskCostModel getTaskCostModel();
 }
\ No newline at end of file
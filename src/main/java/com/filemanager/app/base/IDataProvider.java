@@ -9,9 +9,11 @@
  */
 package com.filemanager.app.base;
 
+import com.filemanager.app.components.UiUpdateBus;
 import com.filemanager.app.tools.display.ThemeConfig;
 import com.filemanager.app.ui.PreviewView;
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.RunStatistics;
 
 import javafx.collections.ObservableList;
 import java.io.File;
@@ -83,4 +85,16 @@ public interface IDataProvider {
      * @param changeList 变更列表
      */
     void setFullChangeList(List<ChangeRecord> changeList);
+
+    /**
+     * 获取当前变更列表的运行统计，设置变更列表时重建
+     * @return 运行统计
+     */
+    RunStatistics getRunStatistics();
+
+    /**
+     * 获取界面更新总线，工作线程通过它合并提交界面更新
+     * @return 界面更新总线
+     */
+    UiUpdateBus getUiUpdateBus();
 }
\ No newline at end of file
@@ -9,6 +9,8 @@
  */
 package com.filemanager.app.base;
 
+import com.filemanager.tool.log.ExecutionLogPolicy;
+
 /**
  * 日志提供者接口
  * 定义日志与反馈相关的方法
@@ -25,4 +27,10 @@ public interface ILoggingProvider {
      * @param s 错误日志内容
      */
     void logError(String s);
+
+    /**
+     * 获取当前的执行日志配置
+     * @return 执行日志级别和抽样参数
+     */
+    ExecutionLogPolicy getExecutionLogPolicy();
 }
\ No newline at end of file
@@ -76,4 +76,11 @@ public interface ITaskManager {
      * @return 任务估算器
      */
     MultiThreadTaskEstimator getRootPathEstimator(String rootPath);
+
+    /**
+     * 获取根路径的线程数自动调优状态
+     * @param rootPath 根路径
+     * @return 调优状态描述，未开启调优时返回 null
+     */
+    String getRootPathTuningStatus(String rootPath);
 }
\ No newline at end of file
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.components;
+
+import com.filemanager.app.tools.MultiThreadTaskEstimator;
+import com.filemanager.tool.RetryableThreadPool;
+import com.filemanager.tool.StorageDeviceRegistry;
+import com.filemanager.tool.ThreadPoolManager;
+import com.filemanager.util.file.FileSizeFormatUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 执行线程数自动调优（爬山法）
+ * <p>
+ * 周期性地从各根路径的任务估算器统计每个线程池的吞吐（个/秒、字节/秒），
+ * 吞吐提升则继续沿当前方向调整线程数，下降则回退并反向，结束时把最佳线程数按设备记录下来供下次使用。
+ * <p>
+ * 每个线程池只用一种吞吐单位比较：完成的任务有数据量后改用字节/秒，之前按个/秒得到的记录作废；
+ * 没有完成任务的窗口、按字节比较时没有数据量的窗口（只有空文件或目录任务）不算样本，不会被当成吞吐下降。
+ */
+public class AdaptiveConcurrencyController {
+
+    // 采样周期（毫秒）
+    private static final long SAMPLE_INTERVAL_MS = 2000;
+    // 每个采样窗口至少完成的任务数，不足时继续累积（如长时间的转码任务）
+    private static final int MIN_SAMPLE_TASKS = 3;
+    // 单个窗口最长累积时间（毫秒）
+    private static final long MAX_SAMPLE_MS = 15000;
+    // 吞吐变化超过该比例才认为有效
+    private static final double SIGNIFICANT_CHANGE = 0.05;
+    private static final int MIN_THREADS = 1;
+    private static final int MAX_THREADS = 32;
+
+    private final ThreadPoolManager threadPoolManager;
+    private final Function<String, MultiThreadTaskEstimator> estimatorProvider;
+    private final Consumer<String> logger;
+    private final Map<String, LaneTuner> tuners = new LinkedHashMap<>();
+    // 各根路径当前的调优状态，用于界面展示
+    private final Map<String, String> rootStatus = new ConcurrentHashMap<>();
+    private ScheduledExecutorService timer;
+    private Runnable onResize;
+
+    public AdaptiveConcurrencyController(ThreadPoolManager threadPoolManager,
+                                         Function<String, MultiThreadTaskEstimator> estimatorProvider,
+                                         Consumer<String> logger) {
+        this.threadPoolManager = threadPoolManager;
+        this.estimatorProvider = estimatorProvider;
+        this.logger = logger;
+    }
+
+    /**
+     * 开始调优
+     *
+     * @param rootPaths 本轮执行涉及的根路径
+     * @param onResize  线程数调整后的回调（通知调度器补充工作者）
+     */
+    public synchronized void start(List<String> rootPaths, Runnable onResize) {
+        this.onResize = onResize;
+        StorageDeviceRegistry registry = threadPoolManager.getDeviceRegistry();
+        for (String rootPath : rootPaths) {
+            String laneKey = threadPoolManager.getExecutionLaneKey(rootPath);
+            LaneTuner tuner = tuners.computeIfAbsent(laneKey, k -> new LaneTuner(laneKey, threadPoolManager.getExecutionThreadPool(rootPath)));
+            tuner.rootPaths.add(rootPath);
+            tuner.deviceIds.add(registry.getDeviceId(rootPath));
+        }
+        for (LaneTuner tuner : tuners.values()) {
+            // 同一通道的根路径都在同一设备上时，沿用该设备上次学到的线程数
+            int learned = tuner.deviceIds.stream().distinct().count() == 1
+                    ? registry.getLearnedThreads(tuner.deviceIds.get(0)) : 0;
+            if (learned > 0) {
+                applySize(tuner, learned);
+                logger.accept("⚙ 自动调优 [" + tuner.laneKey + "] 沿用设备上次的最佳线程数: " + learned);
+            }
+            tuner.bestSize = tuner.pool.getMaximumPoolSize();
+            tuner.reset(snapshotTasks(tuner), snapshotBytes(tuner));
+            updateStatus(tuner, "初始线程数 " + tuner.bestSize);
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "adaptive-concurrency");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(this::sample, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止调优，把每个通道的最佳线程数按设备保存
+     */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        StorageDeviceRegistry registry = threadPoolManager.getDeviceRegistry();
+        for (LaneTuner tuner : tuners.values()) {
+            if (tuner.bestMetric <= 0) {
+                continue;
+            }
+            for (String deviceId : tuner.deviceIds) {
+                registry.setLearnedThreads(deviceId, tuner.bestSize);
+            }
+            logger.accept("⚙ 自动调优 [" + tuner.laneKey + "] 结束，最佳线程数: " + tuner.bestSize
+                    + "，吞吐: " + formatMetric(tuner.bestTasksPerSec, tuner.bestBytesPerSec));
+        }
+        tuners.clear();
+    }
+
+    /**
+     * 获取根路径的调优状态描述
+     */
+    public String getRootStatus(String rootPath) {
+        return rootStatus.get(rootPath);
+    }
+
+    private synchronized void sample() {
+        boolean resized = false;
+        for (LaneTuner tuner : tuners.values()) {
+            try {
+                resized |= tune(tuner);
+            } catch (Exception e) {
+                logger.accept("❌ 自动调优失败 [" + tuner.laneKey + "]: " + e.getMessage());
+            }
+        }
+        if (resized && onResize != null) {
+            onResize.run();
+        }
+    }
+
+    /**
+     * 爬山法：吞吐明显提升则沿当前方向继续，明显下降则回到最佳值并反向，持平时保持不动
+     */
+    private boolean tune(LaneTuner tuner) {
+        long now = System.currentTimeMillis();
+        long tasks = snapshotTasks(tuner);
+        long bytes = snapshotBytes(tuner);
+        long doneTasks = tasks - tuner.lastTasks;
+        long doneBytes = bytes - tuner.lastBytes;
+        long elapsed = now - tuner.lastTime;
+        if (doneTasks < MIN_SAMPLE_TASKS && elapsed < MAX_SAMPLE_MS) {
+            return false;
+        }
+        tuner.reset(tasks, bytes);
+        int current = tuner.pool.getMaximumPoolSize();
+        if (doneTasks <= 0) {
+            updateStatus(tuner, current + " 线程，本周期无任务完成");
+            return false;
+        }
+        if (doneBytes > 0 && !tuner.byBytes) {
+            // 改用字节吞吐，按任务吞吐得到的记录不能与之比较
+            tuner.byBytes = true;
+            tuner.lastMetric = -1;
+            tuner.bestMetric = 0;
+            tuner.bestSize = current;
+        }
+        double tasksPerSec = doneTasks * 1000.0 / elapsed;
+        double bytesPerSec = doneBytes * 1000.0 / elapsed;
+        if (tuner.byBytes && doneBytes <= 0) {
+            updateStatus(tuner, current + " 线程，" + formatMetric(tasksPerSec, bytesPerSec));
+            return false;
+        }
+        double metric = tuner.byBytes ? bytesPerSec : tasksPerSec;
+
+        if (metric > tuner.bestMetric) {
+            tuner.bestMetric = metric;
+            tuner.bestSize = current;
+            tuner.bestTasksPerSec = tasksPerSec;
+            tuner.bestBytesPerSec = bytesPerSec;
+        }
+
+        int next = current;
+        if (tuner.lastMetric < 0 || metric > tuner.lastMetric * (1 + SIGNIFICANT_CHANGE)) {
+            next = current + tuner.direction;
+        } else if (metric < tuner.lastMetric * (1 - SIGNIFICANT_CHANGE)) {
+            tuner.direction = -tuner.direction;
+            next = tuner.bestSize != current ? tuner.bestSize : current + tuner.direction;
+        }
+        tuner.lastMetric = metric;
+        next = Math.max(MIN_THREADS, Math.min(MAX_THREADS, next));
+        if (next == current) {
+            // 撞到边界时反向，下一轮从另一侧探索
+            if (current + tuner.direction < MIN_THREADS || current + tuner.direction > MAX_THREADS) {
+                tuner.direction = -tuner.direction;
+            }
+            updateStatus(tuner, current + " 线程，" + formatMetric(tasksPerSec, bytesPerSec));
+            return false;
+        }
+        applySize(tuner, next);
+        logger.accept("⚙ 自动调优 [" + tuner.laneKey + "]: " + current + " -> " + next + " 线程，当前吞吐 "
+                + formatMetric(tasksPerSec, bytesPerSec));
+        updateStatus(tuner, next + " 线程，" + formatMetric(tasksPerSec, bytesPerSec));
+        return true;
+    }
+
+    private void applySize(LaneTuner tuner, int size) {
+        tuner.pool.setCorePoolSize(1);
+        tuner.pool.setMaximumPoolSize(size);
+    }
+
+    private void updateStatus(LaneTuner tuner, String status) {
+        for (String rootPath : tuner.rootPaths) {
+            rootStatus.put(rootPath, "自动调优: " + status);
+        }
+    }
+
+    private long snapshotTasks(LaneTuner tuner) {
+        long total = 0;
+        for (String rootPath : tuner.rootPaths) {
+            MultiThreadTaskEstimator estimator = estimatorProvider.apply(rootPath);
+            if (estimator != null) {
+                total += estimator.getCompletedTasks();
+            }
+        }
+        return total;
+    }
+
+    private long snapshotBytes(LaneTuner tuner) {
+        long total = 0;
+        for (String rootPath : tuner.rootPaths) {
+            MultiThreadTaskEstimator estimator = estimatorProvider.apply(rootPath);
+            if (estimator != null) {
+                total += estimator.getCompletedBytes();
+            }
+        }
+        return total;
+    }
+
+    private static String formatMetric(double tasksPerSec, double bytesPerSec) {
+        return String.format("%.2f 个/秒，%s/秒", tasksPerSec, FileSizeFormatUtil.formatFileSize((long) bytesPerSec));
+    }
+
+    /**
+     * 单个线程池的调优状态
+     */
+    private static class LaneTuner {
+        private final String laneKey;
+        private final RetryableThreadPool pool;
+        private final List<String> rootPaths = new ArrayList<>();
+        private final List<String> deviceIds = new ArrayList<>();
+        private int direction = 1;
+        // 吞吐单位：true 为字节/秒，false 为个/秒
+        private boolean byBytes = false;
+        private double lastMetric = -1;
+        private double bestMetric = 0;
+        private double bestTasksPerSec = 0;
+        private double bestBytesPerSec = 0;
+        private int bestSize;
+        private long lastTasks;
+        private long lastBytes;
+        private long lastTime;
+
+        private LaneTuner(String laneKey, RetryableThreadPool pool) {
+            this.laneKey = laneKey;
+            this.pool = pool;
+        }
+
+        private void reset(long tasks, long bytes) {
+            this.lastTasks = tasks;
+            this.lastBytes = bytes;
+            this.lastTime = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.components;
+
+import com.filemanager.app.base.ILoggingProvider;
+import com.filemanager.model.ChangeRecord;
+import com.filemanager.tool.log.ExecutionLogPolicy;
+import com.filemanager.tool.log.LogType;
+import com.filemanager.type.ExecLogLevel;
+import com.filemanager.type.OperationType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一轮执行的任务日志
+ * <p>
+ * 每个任务产生开始（DEBUG）、成功（INFO）、停止（WARN）、失败（ERROR）事件，按操作类型的级别决定是否输出：
+ * <ul>
+ *     <li>全部：输出所有事件；只记结果：不输出开始事件；只记失败：只输出停止和失败事件</li>
+ *     <li>抽样：成功事件只输出每种操作的前 N 条，之后每隔 K 条输出一条</li>
+ * </ul>
+ * 停止和失败事件总是输出。日志内容在确定输出后才拼接，不输出的事件只累加计数；
+ * 执行结束时按操作类型输出汇总。线程安全，所有执行线程共用一个实例。
+ */
+public class ExecutionLogger {
+
+    private final ILoggingProvider log;
+    private final ExecutionLogPolicy policy;
+    private final Map<OperationType, Counter> counters = new EnumMap<>(OperationType.class);
+    private final long startTime = System.currentTimeMillis();
+
+    public ExecutionLogger(ILoggingProvider log, ExecutionLogPolicy policy) {
+        this.log = log;
+        this.policy = policy;
+        // 预先放入所有操作类型，执行期间只读，不需要同步
+        for (OperationType opType : OperationType.values()) {
+            counters.put(opType, new Counter(policy.levelOf(opType)));
+        }
+    }
+
+    public void started(ChangeRecord rec) {
+        Counter counter = counters.get(rec.getOpType());
+        if (enabled(counter.level, LogType.DEBUG)) {
+            log.log("▶ 开始处理: " + rec.getFileHandle().getAbsolutePath() + "，操作类型：" + rec.getOpType().getName() + ",目标路径：" + rec.getNewName());
+        }
+    }
+
+    /**
+     * @param millis 执行耗时
+     */
+    public void succeeded(ChangeRecord rec, long millis) {
+        Counter counter = counters.get(rec.getOpType());
+        long seq = counter.succeeded.incrementAndGet();
+        counter.millis.add(millis);
+        if (enabled(counter.level, LogType.INFO) && (counter.level != ExecLogLevel.SAMPLED || policy.sampled(seq))) {
+            log.log("✅️ 成功处理: " + rec.getFileHandle().getAbsolutePath() + "，操作类型：" + rec.getOpType().getName() + ",目标路径：" + rec.getNewName()
+                    + "，耗时：" + millis + "ms");
+        } else {
+            counter.suppressed.increment();
+        }
+    }
+
+    public void stopped(ChangeRecord rec) {
+        counters.get(rec.getOpType()).stopped.increment();
+        log.log("🛑 已停止: " + rec.getFileHandle().getAbsolutePath() + "，操作类型：" + rec.getOpType().getName());
+    }
+
+    public void failed(ChangeRecord rec, Exception e) {
+        counters.get(rec.getOpType()).failed.increment();
+        log.logError("❌ 失败处理: " + rec.getFileHandle().getAbsolutePath() + "，操作类型：" + rec.getOpType().getName() + ",目标路径：" + rec.getNewName() + ",原因" + e.getMessage());
+        log.logError("❌ 失败详细原因:" + e.getMessage());
+    }
+
+    /**
+     * 未执行而跳过的任务（超出执行数量限制、没有对应的执行节点），只计数
+     */
+    public void skipped(ChangeRecord rec) {
+        counters.get(rec.getOpType()).skipped.increment();
+    }
+
+    /**
+     * 输出本轮执行的汇总，执行结束时调用一次
+     */
+    public void summary() {
+        long suppressed = 0;
+        long total = 0;
+        for (Map.Entry<OperationType, Counter> entry : counters.entrySet()) {
+            Counter c = entry.getValue();
+            long succeeded = c.succeeded.get();
+            long failed = c.failed.sum();
+            long stopped = c.stopped.sum();
+            long skipped = c.skipped.sum();
+            long count = succeeded + failed + stopped + skipped;
+            if (count == 0) {
+                continue;
+            }
+            total += count;
+            suppressed += c.suppressed.sum();
+            log.log("▶ ▶ ▶ 执行汇总 [" + entry.getKey().getName() + "] 成功: " + succeeded + "，失败: " + failed
+                    + "，停止: " + stopped + "，跳过: " + skipped
+                    + (succeeded > 0 ? "，平均耗时: " + c.millis.sum() / succeeded + "ms" : "")
+                    + "，日志级别: " + c.level);
+        }
+        log.log("▶ ▶ ▶ 执行汇总：共处理任务 " + total + " 个，总耗时 " + (System.currentTimeMillis() - startTime) / 1000 + " 秒"
+                + (suppressed > 0 ? "，按日志级别省略成功日志 " + suppressed + " 条" : ""));
+    }
+
+    // 事件级别在操作类型的日志级别下是否输出
+    private static boolean enabled(ExecLogLevel level, LogType type) {
+        switch (type) {
+            case DEBUG:
+                return level == ExecLogLevel.FULL;
+            case INFO:
+                return level != ExecLogLevel.FAILURE;
+            default:
+                return true;
+        }
+    }
+
+    private static class Counter {
+        private final ExecLogLevel level;
+        // 成功数同时作为抽样的序号
+        private final AtomicLong succeeded = new AtomicLong();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder stopped = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder suppressed = new LongAdder();
+        private final LongAdder millis = new LongAdder();
+
+        private Counter(ExecLogLevel level) {
+            this.level = level;
+        }
+    }
+}
@@ -0,0 +1,512 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.components;
+
+import com.filemanager.model.ChangeRecord;
+import com.filemanager.tool.RetryableThreadPool;
+import com.filemanager.tool.ThreadPoolManager;
+import com.filemanager.type.ExecStatus;
+import com.filemanager.type.SchedulingPolicy;
+import com.filemanager.util.file.FileLockManagerUtil;
+import com.filemanager.util.file.PathLockManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * 事件驱动的执行调度器
+ * <p>
+ * 按 TaskGraph 的拓扑顺序调度：入度为 0 的任务直接进入所属线程池的就绪队列，
+ * 任务完成后由依赖图释放后继任务，互不依赖的分支并行执行，不再轮询整个任务列表。
+ * 任务执行前还会通过层级路径锁加锁作为兜底：修改源文件的任务对源文件加排他锁，只读任务加共享锁，
+ * 输出路径加排他锁；目录上的锁与目录内文件的锁互相冲突。锁被占用时登记到 PathLockManager 的等待队列，
+ * 冲突的锁释放后自动重试并唤醒；等待超过 LOCK_WAIT_TIMEOUT_MINUTES 的任务标记为失败，记录锁诊断信息后按已结束处理。
+ * 每个线程池对应一个通道，通道内由不超过线程池大小的工作者依次取任务执行。
+ * 开启虚拟线程时，I/O 密集型任务进入所在设备的虚拟线程通道，并发由设备信号量限制，不占用全局并发额度；
+ * CPU 密集型任务（转换、切分等）仍在平台线程池中执行。
+ * 通道内就绪任务的出队顺序由调度策略决定，按耗时排序的策略使用 TaskCostModel 的估算值。
+ */
+public class ExecutionScheduler {
+
+    // 等待文件锁的最长时间，超时说明持有者可能卡住（如网络存储上的解压）
+    private static final long LOCK_WAIT_TIMEOUT_MINUTES = 30;
+
+    private final ThreadPoolManager threadPoolManager;
+    // 全局并发上限
+    private final IntSupplier globalLimit;
+    private final TaskRunner runner;
+    // 执行器没有处理的异常、线程池拒绝等错误的日志
+    private final Consumer<String> errorLog;
+    private final SchedulingPolicy policy;
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private TaskGraph graph;
+    private Function<ChangeRecord, String> rootResolver;
+    // 已提交但未结束的任务数
+    private int remaining = 0;
+    // 当前所有平台线程通道内活跃的工作者数
+    private int totalActive = 0;
+    private volatile boolean cancelled = false;
+    // 流式执行时还有任务会继续追加
+    private boolean streaming = false;
+
+    public ExecutionScheduler(ThreadPoolManager threadPoolManager, IntSupplier globalLimit, SchedulingPolicy policy,
+                              TaskRunner runner, Consumer<String> errorLog) {
+        this.threadPoolManager = threadPoolManager;
+        this.globalLimit = globalLimit;
+        this.policy = policy;
+        this.runner = runner;
+        this.errorLog = errorLog;
+    }
+
+    /**
+     * 按依赖图调度全部任务
+     *
+     * @param graph        任务依赖图
+     * @param rootResolver 任务所属根路径
+     */
+    public void start(TaskGraph graph, Function<ChangeRecord, String> rootResolver) {
+        this.graph = graph;
+        this.rootResolver = rootResolver;
+        synchronized (this) {
+            remaining += graph.size();
+        }
+        for (TaskGraph.Node node : graph.reset()) {
+            arm(node);
+        }
+    }
+
+    /**
+     * 流式调度：先启动调度器，分析出的任务通过 append 陆续追加，追加完毕后调用 finishStreaming
+     *
+     * @param graph        空的依赖图，随追加增长
+     * @param rootResolver 任务所属根路径
+     */
+    public void startStreaming(TaskGraph graph, Function<ChangeRecord, String> rootResolver) {
+        this.graph = graph;
+        this.rootResolver = rootResolver;
+        synchronized (this) {
+            streaming = true;
+        }
+    }
+
+    /**
+     * 追加分析完成的记录，没有未完成前置任务的立即调度
+     *
+     * @return 实际追加的任务数
+     */
+    public int append(List<ChangeRecord> records) {
+        List<TaskGraph.Node> ready = new ArrayList<>();
+        int added = graph.append(records, ready);
+        synchronized (this) {
+            remaining += added;
+        }
+        for (TaskGraph.Node node : ready) {
+            arm(node);
+        }
+        return added;
+    }
+
+    /**
+     * 所有记录都已追加，剩余任务执行完毕后调度结束
+     */
+    public synchronized void finishStreaming() {
+        streaming = false;
+        notifyAll();
+    }
+
+    /**
+     * 等待未完成的任务数降到限制以下，用于流式追加时的背压
+     *
+     * @return 已降到限制以下（或已取消）返回 true，超时返回 false
+     */
+    public synchronized boolean awaitPendingBelow(int limit, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!cancelled && remaining >= limit) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+        }
+        return true;
+    }
+
+    /**
+     * 就绪任务加锁后入队，拿不到锁时等待冲突的锁释放
+     */
+    private void arm(TaskGraph.Node node) {
+        Entry entry = new Entry(node, rootResolver.apply(node.getRecord()));
+        if (policy.isCostBased()) {
+            entry.cost = threadPoolManager.getCostModel().estimateMillis(entry.rec, entry.rec.length());
+        }
+        if (FileLockManagerUtil.getPathLockManager().acquireOrWait(entry, lockRequests(entry.rec),
+                LOCK_WAIT_TIMEOUT_MINUTES, TimeUnit.MINUTES, () -> onReady(entry), dump -> onLockTimeout(entry, dump))) {
+            onReady(entry);
+        }
+    }
+
+    /**
+     * 等待文件锁超时：任务标记为失败并交给执行回调收尾，之后与执行结束的任务一样释放后继任务
+     */
+    private void onLockTimeout(Entry entry, String dump) {
+        errorLog.accept("❌ 等待文件锁超时（" + LOCK_WAIT_TIMEOUT_MINUTES + " 分钟），任务标记为失败: " + entry + "\n" + dump);
+        synchronized (entry.rec) {
+            if (entry.rec.getStatus() == ExecStatus.PENDING) {
+                entry.rec.setFailReason("等待文件锁超时");
+                entry.rec.setStatus(ExecStatus.FAILED);
+            }
+        }
+        try {
+            runner.run(entry.rec, entry.rootPath);
+        } catch (Exception e) {
+            errorLog.accept("❌ 任务执行异常: " + entry + "，原因: " + e);
+        } finally {
+            complete(entry);
+        }
+    }
+
+    /**
+     * 任务需要加锁的路径：源文件（只读任务共享锁，其他排他锁）、输出路径，
+     * 文件夹合并还要锁住合并到的父目录
+     */
+    private static List<PathLockManager.LockRequest> lockRequests(ChangeRecord rec) {
+        List<PathLockManager.LockRequest> requests = new ArrayList<>(3);
+        File source = rec.getFileHandle();
+        requests.add(TaskGraph.isSourceReader(rec)
+                ? PathLockManager.LockRequest.shared(source) : PathLockManager.LockRequest.exclusive(source));
+        if (rec.getNewPath() != null && !rec.getNewPath().isEmpty()) {
+            requests.add(PathLockManager.LockRequest.exclusive(new File(rec.getNewPath())));
+        }
+        // 没有附加参数的记录不取参数表，避免为每条记录创建空表
+        if (rec.hasExtraParams()) {
+            Map<String, String> params = rec.getExtraParams();
+            if ("merge_folder".equals(params.get("operation")) && params.get("parentDir") != null) {
+                requests.add(PathLockManager.LockRequest.exclusive(new File(params.get("parentDir"))));
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * 等待全部任务结束
+     *
+     * @return 全部结束返回 true，超时返回 false
+     */
+    public synchronized boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isDone()) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+        }
+        return true;
+    }
+
+    /**
+     * 取消调度：丢弃所有未开始的任务，正在执行的任务执行完毕后不再取新任务
+     */
+    public void cancel() {
+        List<Entry> dropped = new ArrayList<>();
+        synchronized (this) {
+            cancelled = true;
+            for (Lane lane : lanes.values()) {
+                dropped.addAll(lane.queue);
+                remaining -= lane.queue.size();
+                lane.queue.clear();
+            }
+            notifyAll();
+        }
+        for (Entry entry : dropped) {
+            release(entry);
+        }
+    }
+
+    /**
+     * 线程池大小调整后调用，为有积压的通道补充工作者
+     */
+    public void kick() {
+        spawnWorkers();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public TaskGraph getGraph() {
+        return graph;
+    }
+
+    private boolean isDone() {
+        return cancelled || (remaining <= 0 && !streaming);
+    }
+
+    /**
+     * 任务已持有锁，进入所属通道的就绪队列
+     */
+    private void onReady(Entry entry) {
+        Lane lane;
+        synchronized (this) {
+            if (cancelled) {
+                remaining--;
+                notifyAll();
+                lane = null;
+            } else {
+                if (threadPoolManager.useVirtualThreads() && entry.rec.getOpType().isIoBound()) {
+                    lane = lanes.computeIfAbsent(threadPoolManager.getVirtualLaneKey(entry.rootPath),
+                            k -> newLane(threadPoolManager.getVirtualExecutionPool(entry.rootPath), entry.rootPath));
+                } else {
+                    lane = lanes.computeIfAbsent(threadPoolManager.getExecutionLaneKey(entry.rootPath),
+                            k -> newLane(threadPoolManager.getExecutionThreadPool(entry.rootPath), entry.rootPath));
+                }
+                lane.queue.add(entry);
+            }
+        }
+        if (lane == null) {
+            release(entry);
+            return;
+        }
+        spawnWorkers();
+    }
+
+    /**
+     * 按调度策略创建通道：自动策略下机械硬盘按目录顺序，虚拟线程通道快速优先，其他耗时长的优先
+     */
+    private Lane newLane(RetryableThreadPool pool, String rootPath) {
+        Comparator<Entry> order;
+        switch (policy) {
+            case FIFO:
+                order = Lane.INDEX_ORDER;
+                break;
+            case LOCALITY:
+                order = Lane.PATH_ORDER;
+                break;
+            case LONGEST_FIRST:
+                order = Lane.LONGEST_FIRST;
+                break;
+            case QUICK_FIRST:
+                order = Lane.QUICK_FIRST;
+                break;
+            default:
+                if (threadPoolManager.isSequentialLane(rootPath)) {
+                    order = Lane.PATH_ORDER;
+                } else {
+                    order = pool.isVirtual() ? Lane.QUICK_FIRST : Lane.LONGEST_FIRST;
+                }
+        }
+        return new Lane(pool, order);
+    }
+
+    /**
+     * 为所有有积压且未满的通道补充工作者
+     * 线程池提交可能阻塞，因此在锁外提交
+     */
+    private void spawnWorkers() {
+        List<Lane> toSpawn = new ArrayList<>();
+        synchronized (this) {
+            // 优先照顾没有工作者的通道，再轮流分配，避免某个通道独占全局并发额度
+            for (Lane lane : lanes.values()) {
+                if (!cancelled && lane.active == 0 && !lane.queue.isEmpty() && hasGlobalQuota(lane)) {
+                    acquireWorker(lane);
+                    toSpawn.add(lane);
+                }
+            }
+            boolean progress = true;
+            while (progress && !cancelled) {
+                progress = false;
+                for (Lane lane : lanes.values()) {
+                    if (lane.queue.size() > lane.active
+                            && lane.active < lane.pool.getMaximumPoolSize()
+                            && hasGlobalQuota(lane)) {
+                        acquireWorker(lane);
+                        toSpawn.add(lane);
+                        progress = true;
+                    }
+                }
+            }
+        }
+        for (Lane lane : toSpawn) {
+            try {
+                lane.pool.execute(() -> drain(lane));
+            } catch (RejectedExecutionException e) {
+                // 线程池已关闭或提交被中断：归还占用的工作者额度，任务留在通道中
+                releaseWorker(lane);
+                if (!cancelled) {
+                    errorLog.accept("❌ 执行线程池拒绝了任务，通道内剩余 " + lane.queue.size() + " 个任务暂不执行: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 工作者循环：依次取通道内的就绪任务执行，通道空闲或超出并发额度时退出
+     */
+    private void drain(Lane lane) {
+        while (true) {
+            Entry entry;
+            synchronized (this) {
+                boolean overLimit = lane.active > lane.pool.getMaximumPoolSize()
+                        || (!lane.virtual && (totalActive > globalLimit.getAsInt()
+                        || (totalActive >= globalLimit.getAsInt() && hasStarvedLane(lane))));
+                entry = (cancelled || overLimit) ? null : lane.queue.poll();
+                if (entry == null) {
+                    releaseWorker(lane);
+                }
+            }
+            if (entry == null) {
+                // 释放出的并发额度交给其他通道
+                spawnWorkers();
+                return;
+            }
+            Error fatal = null;
+            try {
+                runner.run(entry.rec, entry.rootPath);
+            } catch (Throwable e) {
+                // 执行器只处理 Exception，漏出的异常在这里记录，并把仍处于执行中的记录标记为失败
+                errorLog.accept("❌ 任务执行异常: " + entry + "，原因: " + e);
+                synchronized (entry.rec) {
+                    if (entry.rec.getStatus() == ExecStatus.RUNNING) {
+                        entry.rec.setFailReason(String.valueOf(e));
+                        entry.rec.setStatus(ExecStatus.FAILED);
+                    }
+                }
+                if (e instanceof Error) {
+                    fatal = (Error) e;
+                }
+            } finally {
+                complete(entry);
+            }
+            if (fatal != null) {
+                // Error 不吞掉：归还额度、补充工作者后抛出，由线程池结束该线程
+                releaseWorker(lane);
+                spawnWorkers();
+                throw fatal;
+            }
+        }
+    }
+
+    /**
+     * 任务结束：计数、释放锁，并释放依赖该任务的后继任务
+     */
+    private void complete(Entry entry) {
+        synchronized (this) {
+            remaining--;
+            // 唤醒等待结束或等待背压解除的线程
+            notifyAll();
+        }
+        release(entry);
+        if (!cancelled) {
+            for (TaskGraph.Node next : graph.complete(entry.node)) {
+                arm(next);
+            }
+        }
+    }
+
+    private void release(Entry entry) {
+        FileLockManagerUtil.getPathLockManager().release(entry);
+    }
+
+    /**
+     * 虚拟线程通道只受设备信号量限制，不占用全局并发额度
+     */
+    private boolean hasGlobalQuota(Lane lane) {
+        return lane.virtual || totalActive < globalLimit.getAsInt();
+    }
+
+    private void acquireWorker(Lane lane) {
+        lane.active++;
+        if (!lane.virtual) {
+            totalActive++;
+        }
+    }
+
+    private synchronized void releaseWorker(Lane lane) {
+        lane.active--;
+        if (!lane.virtual) {
+            totalActive--;
+        }
+    }
+
+    private boolean hasStarvedLane(Lane self) {
+        for (Lane lane : lanes.values()) {
+            if (lane != self && !lane.virtual && lane.active == 0 && !lane.queue.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 任务执行回调
+     * 调度器放弃的任务（如等待文件锁超时）标记为失败后也会交给回调，回调需跳过非待执行状态的记录，只做收尾
+     */
+    public interface TaskRunner {
+        void run(ChangeRecord rec, String rootPath);
+    }
+
+    private static class Entry {
+        private final TaskGraph.Node node;
+        private final ChangeRecord rec;
+        private final String rootPath;
+        // 估算耗时（毫秒），不按耗时排序时为 0
+        private double cost;
+
+        private Entry(TaskGraph.Node node, String rootPath) {
+            this.node = node;
+            this.rec = node.getRecord();
+            this.rootPath = rootPath;
+        }
+
+        @Override
+        public String toString() {
+            return rec.getOpType().getName() + " " + rec.getFileHandle().getAbsolutePath();
+        }
+    }
+
+    /**
+     * 调度通道，与执行线程池一一对应，就绪任务按调度策略的顺序出队
+     */
+    private static class Lane {
+        private static final Comparator<Entry> INDEX_ORDER = Comparator.comparingInt(e -> e.node.getIndex());
+        // 同一目录的文件连续处理
+        private static final Comparator<Entry> PATH_ORDER = Comparator
+                .comparing((Entry e) -> e.node.getSourceKey())
+                .thenComparing(INDEX_ORDER);
+        private static final Comparator<Entry> LONGEST_FIRST = Comparator
+                .comparingDouble((Entry e) -> -e.cost)
+                .thenComparing(INDEX_ORDER);
+        private static final Comparator<Entry> QUICK_FIRST = Comparator
+                .comparingDouble((Entry e) -> e.cost)
+                .thenComparing(INDEX_ORDER);
+
+        private final RetryableThreadPool pool;
+        private final boolean virtual;
+        private final Queue<Entry> queue;
+        private int active = 0;
+
+        private Lane(RetryableThreadPool pool, Comparator<Entry> order) {
+            this.pool = pool;
+            this.virtual = pool.isVirtual();
+            this.queue = new PriorityQueue<>(order);
+        }
+    }
+}
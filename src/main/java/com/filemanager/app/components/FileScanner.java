@@ -12,16 +12,31 @@ package com.filemanager.app.components;
 import com.filemanager.app.ui.GlobalSettingsView;
 import com.filemanager.app.base.IAppController;
 import com.filemanager.app.tools.ParallelStreamWalker;
+import com.filemanager.app.tools.ScanFilter;
+import com.filemanager.app.tools.ScanIndex;
+import com.filemanager.model.ScannedEntry;
+import com.filemanager.tool.StorageDeviceRegistry;
+import com.filemanager.type.StorageDeviceType;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 import java.io.File;
-import java.nio.file.Path;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.Collections;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -38,50 +53,168 @@ public class FileScanner {
     }
     
     public List<File> scanFilesRobust(File root, int minDepth, int maxDepth, AtomicInteger globalLimit, AtomicInteger dirLimit, Consumer<String> msg) {
-        AtomicInteger countScan = new AtomicInteger(0);
-        AtomicInteger countIgnore = new AtomicInteger(0);
-        List<File> list = new ArrayList<>();
-        if (!root.exists()) return list;
-        int threads = app.getSpPreviewThreads().getValue();
-        try (Stream<Path> s = ParallelStreamWalker.walk(root.toPath(), minDepth, maxDepth, globalLimit, dirLimit, threads, isTaskRunning)) {
-            list = s.filter(p -> {
+        return scanEntriesRobust(root, minDepth, maxDepth, globalLimit, dirLimit, msg).stream()
+                .map(ScannedEntry::getFile).collect(Collectors.toList());
+    }
+
+    /**
+     * 扫描文件，返回带属性快照的条目，后续分析直接使用扫描时读取的属性
+     */
+    public List<ScannedEntry> scanEntriesRobust(File root, int minDepth, int maxDepth, AtomicInteger globalLimit, AtomicInteger dirLimit, Consumer<String> msg) {
+        return scanEntriesRobust(root, minDepth, maxDepth, globalLimit, dirLimit, null, null, msg);
+    }
+
+    /**
+     * 创建源目录监控，监控范围与扫描一致：使用相同的递归深度和扫描过滤条件
+     */
+    public FolderWatcher newFolderWatcher(List<File> roots, int minDepth, int maxDepth) throws IOException {
+        return new FolderWatcher(roots, minDepth, maxDepth, globalSettingsView::compileScanFilter, app::log);
+    }
+
+    /**
+     * 并发扫描多个根路径：不同存储设备上的根路径同时扫描，同一设备上的根路径共用一个扫描线程池，
+     * 线程数按设备类型确定（机械硬盘低并发避免寻道，固态硬盘高并发），未识别的设备使用预览线程数
+     * <p>
+     * 全局数量限制由所有根路径共同扣减，每个根路径的数量限制单独计算
+     *
+     * @param rootLimit 根路径的预览数量限制
+     * @param msg       进度消息（根路径，消息）
+     * @return 每个根路径的扫描结果，顺序与 roots 一致
+     */
+    public Map<File, List<ScannedEntry>> scanRootsConcurrently(List<File> roots, int minDepth, int maxDepth, AtomicInteger globalLimit, Function<File, Integer> rootLimit, BiConsumer<File, String> msg) {
+        int previewThreads = app.getSpPreviewThreads().getValue();
+        StorageDeviceRegistry registry = app.getStorageDeviceRegistry();
+        Map<String, ForkJoinPool> devicePools = new LinkedHashMap<>();
+        Map<File, ForkJoinPool> poolOfRoot = new LinkedHashMap<>();
+        for (File root : roots) {
+            String rootPath = root.getAbsolutePath();
+            poolOfRoot.put(root, devicePools.computeIfAbsent(registry.getDeviceId(rootPath), deviceId -> {
+                StorageDeviceType type = registry.getDeviceType(rootPath);
+                int threads = type.getDefaultThreads() > 0 ? type.getDefaultThreads() : previewThreads;
+                app.log("▶ ▶ ▶ 扫描设备: " + deviceId + "，类型: " + type + "，扫描线程: " + threads);
+                return newScanPool(deviceId, threads);
+            }));
+        }
+        // 扫描结果按批并行校验，所有根路径共用
+        ForkJoinPool collectPool = newScanPool("collect", Runtime.getRuntime().availableProcessors());
+        // 每个根路径一个线程消费扫描结果，各设备的扫描同时进行
+        AtomicInteger threadCount = new AtomicInteger(1);
+        ExecutorService consumers = Executors.newFixedThreadPool(Math.max(1, roots.size()), r -> {
+            Thread thread = new Thread(r, "scan-root-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<File, Future<List<ScannedEntry>>> futures = new LinkedHashMap<>();
+            for (File root : roots) {
+                AtomicInteger dirLimit = new AtomicInteger(rootLimit.apply(root));
+                futures.put(root, consumers.submit(() -> scanEntriesRobust(root, minDepth, maxDepth, globalLimit, dirLimit,
+                        poolOfRoot.get(root), collectPool, m -> msg.accept(root, m))));
+            }
+            Map<File, List<ScannedEntry>> results = new LinkedHashMap<>();
+            for (Map.Entry<File, Future<List<ScannedEntry>>> entry : futures.entrySet()) {
                 try {
-                    if (globalSettingsView.isFileIncluded(p.toFile())) {
-                        return true;
-                    }
-                    countIgnore.incrementAndGet();
-                    return false;
-                } finally {
-                    countScan.incrementAndGet();
-                    if (countScan.incrementAndGet() % 1000 == 0) {
-                        String msgStr = "目录下：" + root.getAbsolutePath()
-                                + "，已扫描" + countScan.get() + "个文件"
-                                + "，已忽略" + countIgnore.get() + "个文件"
-                                + "，已收纳" + (countScan.get() - countIgnore.get()) + "个文件";
-                        msg.accept(msgStr);
-                        app.log(msgStr);
-                    }
+                    results.put(entry.getKey(), entry.getValue().get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    app.logError("扫描文件失败：" + entry.getKey().getAbsolutePath() + "，原因：" + ExceptionUtils.getStackTrace(e.getCause()));
+                    results.put(entry.getKey(), new ArrayList<>());
+                }
+            }
+            return results;
+        } finally {
+            consumers.shutdownNow();
+            collectPool.shutdownNow();
+            devicePools.values().forEach(ForkJoinPool::shutdownNow);
+        }
+    }
+
+    private static ForkJoinPool newScanPool(String deviceId, int parallelism) {
+        AtomicInteger count = new AtomicInteger(1);
+        return new ForkJoinPool(Math.max(1, parallelism), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Scan-" + deviceId + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * 扫描单个根路径
+     *
+     * @param pool        扫描线程池，为 null 时按预览线程数新建
+     * @param collectPool 并行处理扫描结果的线程池，为 null 时在当前线程逐条处理
+     */
+    private List<ScannedEntry> scanEntriesRobust(File root, int minDepth, int maxDepth, AtomicInteger globalLimit, AtomicInteger dirLimit,
+                                                 ForkJoinPool pool, ForkJoinPool collectPool, Consumer<String> msg) {
+        AtomicInteger countAccepted = new AtomicInteger(0);
+        List<ScannedEntry> list = new ArrayList<>();
+        if (!root.exists()) return list;
+        // 增量扫描：未变化的目录直接使用索引中记录的内容
+        ScanIndex index = globalSettingsView.isIncrementalScan() ? ScanIndex.load(root.toPath()) : null;
+        // 过滤条件在遍历线程中执行：排除的目录不再遍历，不符合条件的条目不进入队列
+        ScanFilter filter = globalSettingsView.compileScanFilter(root.toPath());
+        boolean scanned = false;
+        try (Stream<ScannedEntry> s = pool != null
+                ? ParallelStreamWalker.walkEntries(root.toPath(), minDepth, maxDepth, globalLimit, dirLimit, pool, isTaskRunning, index, filter)
+                : ParallelStreamWalker.walkEntries(root.toPath(), minDepth, maxDepth, globalLimit, dirLimit, app.getSpPreviewThreads().getValue(), isTaskRunning, index, filter)) {
+            Stream<ScannedEntry> checked = (collectPool != null ? s.parallel() : s).filter(entry -> {
+                if (countAccepted.incrementAndGet() % 1000 == 0) {
+                    String msgStr = scanMessage("目录下：", root, countAccepted.get(), filter);
+                    msg.accept(msgStr);
+                    app.log(msgStr);
                 }
-            }).filter(path -> {
                 try {
-                    path.toFile();
+                    entry.getFile();
                 } catch (Exception e) {
-                    app.logError(path + " 文件扫描异常: " + e.getMessage());
+                    app.logError(entry.getPath() + " 文件扫描异常: " + e.getMessage());
                     return false;
                 }
                 return true;
-            }).map(Path::toFile).collect(Collectors.toList());
+            });
+            // 在专用线程池中执行并行流，按批拆分，不占用公共线程池
+            list = collectPool != null
+                    ? collectPool.submit(() -> checked.collect(Collectors.toList())).get()
+                    : checked.collect(Collectors.toList());
+            scanned = true;
         } catch (Exception e) {
             app.logError("扫描文件失败：" + ExceptionUtils.getStackTrace(e));
         }
-        String msgStr = "目录下(总共)：" + root.getAbsolutePath()
-                + "，已扫描" + countScan.get() + "个文件"
-                + "，已忽略" + countIgnore.get() + "个文件"
-                + "，已收纳" + (countScan.get() - countIgnore.get()) + "个文件";
+        if (index != null && scanned) {
+            saveScanIndex(root, index, isTaskRunning.get() && maxDepth == Integer.MAX_VALUE
+                    && globalLimit.get() >= 0 && dirLimit.get() >= 0);
+        }
+        String msgStr = scanMessage("目录下(总共)：", root, countAccepted.get(), filter)
+                + (filter.getPrunedDirs().get() > 0 ? "，排除目录" + filter.getPrunedDirs().get() + "个" : "");
         msg.accept(msgStr);
         app.log(msgStr);
         // 反转列表，便于由下而上处理文件，保证处理成功
         Collections.reverse(list);
         return list;
     }
+
+    private static String scanMessage(String prefix, File root, int accepted, ScanFilter filter) {
+        int ignored = filter.getRejected().get();
+        return prefix + root.getAbsolutePath()
+                + "，已扫描" + (accepted + ignored) + "个文件"
+                + "，已忽略" + ignored + "个文件"
+                + "，已收纳" + accepted + "个文件";
+    }
+
+    /**
+     * 保存扫描索引
+     *
+     * @param complete 是否遍历了根路径下的所有目录（未中途停止、未受层级和数量限制）
+     */
+    private void saveScanIndex(File root, ScanIndex index, boolean complete) {
+        app.log("增量扫描：" + root.getAbsolutePath() + "，复用目录记录 " + index.getReused().get()
+                + " 个，重新读取目录 " + index.getRelisted().get() + " 个");
+        try {
+            index.save(complete);
+        } catch (Exception e) {
+            app.logError("保存扫描索引失败：" + root.getAbsolutePath() + "，原因：" + e.getMessage());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,466 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.components;
+
+import com.filemanager.app.tools.ScanFilter;
+import com.filemanager.model.ScannedEntry;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 目录监控：源目录下新增或修改的文件写入完成后交给回调处理
+ * <ul>
+ *     <li>通过 WatchService 接收文件系统事件，新建的子目录自动加入监控</li>
+ *     <li>定期对账：比较目录修改时间找出新增文件，覆盖不支持文件事件的文件系统（如网络共享）和事件溢出</li>
+ *     <li>去抖：文件最后一次变化后 DEBOUNCE_MILLIS 内大小和修改时间都不再变化才视为写入完成，复制中的文件不会被提前处理</li>
+ * </ul>
+ * 启动时已存在的文件只记录不处理；监控范围与扫描一致：遵循递归深度和扫描过滤条件，只处理文件。
+ * 事件线程只登记变化，稳定检查、对账和回调都在同一个定时线程中串行进行，回调按批收到文件。
+ */
+public class FolderWatcher implements Closeable {
+
+    // 文件不再变化多久后视为写入完成
+    private static final long DEBOUNCE_MILLIS = 3000;
+    // 去抖后再次读取属性的间隔，两次读取一致视为写入完成
+    private static final long RECHECK_MILLIS = 1000;
+    // 稳定检查间隔
+    private static final long TICK_MILLIS = 500;
+    // 对账间隔
+    private static final long RECONCILE_MILLIS = 60_000;
+
+    private final List<Path> roots = new ArrayList<>();
+    private final Map<Path, ScanFilter> filters = new ConcurrentHashMap<>();
+    private final int minDepth;
+    private final int maxDepth;
+    private final Consumer<String> log;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final WatchService watchService;
+    private final Map<WatchKey, WatchedDir> watchKeys = new ConcurrentHashMap<>();
+    private final Set<Path> registered = ConcurrentHashMap.newKeySet();
+    // 已遍历的目录及其上次遍历时的状态，对账时修改时间未变的目录不再重新读取
+    private final Map<Path, DirState> dirs = new ConcurrentHashMap<>();
+    // 已知文件的大小和修改时间，按所在目录存放，相同的文件不再重复处理；
+    // 目录重新读取时去掉已不存在的文件，目录删除时整体去掉，长时间监控不会只增不减
+    private final Map<Path, Map<Path, Stamp>> known = new ConcurrentHashMap<>();
+    // 等待写入完成的文件
+    private final Map<Path, Pending> pending = new ConcurrentHashMap<>();
+    // 本程序执行任务时将要写出的文件，出现时不当作新文件；任务结束时由 finished 移除
+    private final Set<Path> expected = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reconcileRequested = new AtomicBoolean(false);
+    private volatile boolean watchFailed = false;
+    private ScheduledExecutorService timer;
+    private Thread eventThread;
+    private long lastReconcile;
+    @Getter
+    private final AtomicInteger delivered = new AtomicInteger(0);
+
+    /**
+     * @param roots    监控的根路径
+     * @param minDepth 最小深度，与扫描一致
+     * @param maxDepth 最大深度，与扫描一致
+     * @param filters  根路径对应的扫描过滤条件
+     * @param log      日志输出
+     */
+    public FolderWatcher(List<File> roots, int minDepth, int maxDepth, Function<Path, ScanFilter> filters,
+                         Consumer<String> log) throws IOException {
+        for (File root : roots) {
+            Path path = root.toPath().toAbsolutePath().normalize();
+            this.roots.add(path);
+            this.filters.put(path, filters.apply(path));
+        }
+        this.minDepth = minDepth;
+        this.maxDepth = maxDepth;
+        this.log = log;
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * 记录已有文件并开始监控
+     *
+     * @param onReady 写入完成的文件，在定时线程中按批回调
+     */
+    public void start(Consumer<List<ScannedEntry>> onReady) {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        for (Path root : roots) {
+            walk(root, root, 0, false);
+        }
+        lastReconcile = System.currentTimeMillis();
+        log.accept("▶ ▶ ▶ 监控已启动：目录 " + dirs.size() + " 个（事件监控 " + watchKeys.size() + " 个），已有文件 "
+                + known.values().stream().mapToInt(Map::size).sum() + " 个不处理，新文件 " + DEBOUNCE_MILLIS / 1000 + " 秒内不再变化后处理，每 "
+                + RECONCILE_MILLIS / 1000 + " 秒对账一次");
+
+        eventThread = new Thread(this::pollEvents, "folder-watch-events");
+        eventThread.setDaemon(true);
+        eventThread.start();
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "folder-watch-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                tick(onReady);
+            } catch (Exception e) {
+                log.accept("❌ 监控处理失败: " + e.getMessage());
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 登记执行任务将要写出的文件：写入完成后只记录，不再作为新文件处理，避免处理结果被反复处理
+     */
+    public void expect(File output) {
+        expected.add(output.toPath().toAbsolutePath().normalize());
+    }
+
+    /**
+     * 登记过输出的任务已结束：成功时按当前属性记为已知文件，之后出现的事件不会把它当作新文件；
+     * 失败或跳过时不会再有输出，直接移除登记
+     */
+    public void finished(File output, boolean succeeded) {
+        Path path = output.toPath().toAbsolutePath().normalize();
+        if (!expected.remove(path) || !succeeded) {
+            return;
+        }
+        ScannedEntry entry = ScannedEntry.read(path);
+        if (entry.exists() && !entry.isDirectory()) {
+            putKnown(path, new Stamp(entry.length(), entry.lastModified()));
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    @Override
+    public void close() {
+        if (!running.compareAndSet(true, false)) {
+            return;
+        }
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // 忽略关闭异常
+        }
+        if (eventThread != null) {
+            eventThread.interrupt();
+        }
+        log.accept("🛑 监控已停止，共处理新文件 " + delivered.get() + " 个");
+    }
+
+    /**
+     * 事件线程：只登记变化，不读取文件内容
+     */
+    private void pollEvents() {
+        while (running.get()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            WatchedDir watched = watchKeys.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // 事件丢失，下次检查时对账
+                    reconcileRequested.set(true);
+                    continue;
+                }
+                if (watched == null) {
+                    continue;
+                }
+                Path path = watched.dir.resolve((Path) event.context());
+                ScannedEntry entry = ScannedEntry.read(path);
+                if (entry.isDirectory()) {
+                    // 新目录：加入监控，目录内已有的文件（注册前写入的）一并登记
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && watched.depth + 1 < maxDepth
+                            && !filters.get(watched.root).isPruned(entry)) {
+                        walk(watched.root, path, watched.depth + 1, true);
+                    }
+                } else if (watched.depth >= minDepth) {
+                    touch(path);
+                }
+            }
+            if (!key.reset()) {
+                // 目录已删除或不可访问
+                watchKeys.remove(key);
+                if (watched != null) {
+                    forget(watched.dir);
+                }
+            }
+        }
+    }
+
+    private void touch(Path path) {
+        pending.compute(path, (p, old) -> {
+            Pending next = old != null ? old : new Pending();
+            next.lastEvent = System.currentTimeMillis();
+            next.observed = null;
+            return next;
+        });
+    }
+
+    /**
+     * 定时检查：按需对账，取出写入完成的文件交给回调
+     */
+    private void tick(Consumer<List<ScannedEntry>> onReady) {
+        long now = System.currentTimeMillis();
+        if (reconcileRequested.getAndSet(false) || now - lastReconcile >= RECONCILE_MILLIS) {
+            reconcile();
+            lastReconcile = System.currentTimeMillis();
+            now = lastReconcile;
+        }
+        List<ScannedEntry> ready = new ArrayList<>();
+        Iterator<Map.Entry<Path, Pending>> it = pending.entrySet().iterator();
+        while (it.hasNext() && running.get()) {
+            Map.Entry<Path, Pending> item = it.next();
+            Pending state = item.getValue();
+            if (now - state.lastEvent < (state.observed == null ? DEBOUNCE_MILLIS : RECHECK_MILLIS)) {
+                continue;
+            }
+            Path path = item.getKey();
+            ScannedEntry entry = ScannedEntry.read(path);
+            if (!entry.exists() || entry.isDirectory()) {
+                it.remove();
+                continue;
+            }
+            Stamp stamp = new Stamp(entry.length(), entry.lastModified());
+            if (!stamp.equals(state.observed)) {
+                // 仍在变化（或第一次检查），稍后再次读取
+                state.observed = stamp;
+                state.lastEvent = now;
+                continue;
+            }
+            it.remove();
+            Stamp previous = putKnown(path, stamp);
+            if (expected.remove(path) || stamp.equals(previous)) {
+                continue;
+            }
+            Path root = rootOf(path);
+            if (root != null && filters.get(root).accept(entry)) {
+                ready.add(entry);
+            }
+        }
+        if (!ready.isEmpty() && running.get()) {
+            delivered.addAndGet(ready.size());
+            onReady.accept(ready);
+        }
+    }
+
+    /**
+     * 对账：修改时间变化的目录重新读取，新增或大小、修改时间变化的文件登记等待处理
+     */
+    private void reconcile() {
+        for (Path root : roots) {
+            if (!running.get()) {
+                return;
+            }
+            walk(root, root, 0, true);
+        }
+    }
+
+    /**
+     * 遍历目录并加入监控
+     *
+     * @param report 是否登记新增的文件；启动时只记录已有文件
+     */
+    private void walk(Path root, Path dir, int depth, boolean report) {
+        if (!running.get()) {
+            return;
+        }
+        ScannedEntry dirEntry = ScannedEntry.read(dir);
+        if (!dirEntry.isDirectory()) {
+            forget(dir);
+            return;
+        }
+        register(root, dir, depth);
+        DirState state = dirs.get(dir);
+        long modified = dirEntry.lastModified();
+        List<Path> subDirs;
+        if (state != null && state.modified == modified && !state.racy()) {
+            // 目录内容未变，只检查子目录
+            subDirs = state.subDirs;
+        } else {
+            long listedAt = System.currentTimeMillis();
+            List<ScannedEntry> entries = ScannedEntry.list(dir.toFile());
+            if (entries == null) {
+                return;
+            }
+            subDirs = new ArrayList<>();
+            Set<Path> files = new HashSet<>();
+            Map<Path, Stamp> knownFiles = known.computeIfAbsent(dir, k -> new ConcurrentHashMap<>());
+            ScanFilter filter = filters.get(root);
+            for (ScannedEntry entry : entries) {
+                if (entry.isDirectory()) {
+                    if (depth + 1 < maxDepth && !filter.isPruned(entry)) {
+                        subDirs.add(entry.getPath());
+                    }
+                } else if (depth >= minDepth && entry.exists()) {
+                    files.add(entry.getPath());
+                    Stamp stamp = new Stamp(entry.length(), entry.lastModified());
+                    if (!report) {
+                        knownFiles.put(entry.getPath(), stamp);
+                    } else if (!stamp.equals(knownFiles.get(entry.getPath())) && !pending.containsKey(entry.getPath())) {
+                        touch(entry.getPath());
+                    }
+                }
+            }
+            // 已删除的文件和子目录不再记录
+            knownFiles.keySet().retainAll(files);
+            if (state != null) {
+                Set<Path> current = new HashSet<>(subDirs);
+                for (Path oldSubDir : state.subDirs) {
+                    if (!current.contains(oldSubDir)) {
+                        forget(oldSubDir);
+                    }
+                }
+            }
+            dirs.put(dir, new DirState(modified, listedAt, Collections.unmodifiableList(subDirs)));
+        }
+        for (Path subDir : subDirs) {
+            walk(root, subDir, depth + 1, report);
+        }
+    }
+
+    /**
+     * 目录已删除或不再监控：去掉它和所有子目录的遍历状态、已知文件
+     */
+    private void forget(Path dir) {
+        registered.remove(dir);
+        known.remove(dir);
+        DirState state = dirs.remove(dir);
+        if (state != null) {
+            for (Path subDir : state.subDirs) {
+                forget(subDir);
+            }
+        }
+    }
+
+    private Stamp putKnown(Path path, Stamp stamp) {
+        return known.computeIfAbsent(path.getParent(), k -> new ConcurrentHashMap<>()).put(path, stamp);
+    }
+
+    private void register(Path root, Path dir, int depth) {
+        if (watchFailed || !registered.add(dir)) {
+            return;
+        }
+        try {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchKeys.put(key, new WatchedDir(root, dir, depth));
+        } catch (IOException e) {
+            // 监控数量达到系统上限等情况，之后只依靠定期对账
+            registered.remove(dir);
+            watchFailed = true;
+            log.accept("⚠ 无法监控目录 " + dir + "（" + e.getMessage() + "），改为每 " + RECONCILE_MILLIS / 1000 + " 秒对账发现新文件");
+        } catch (ClosedWatchServiceException e) {
+            // 已停止
+        }
+    }
+
+    private Path rootOf(Path path) {
+        for (Path root : roots) {
+            if (path.startsWith(root)) {
+                return root;
+            }
+        }
+        return null;
+    }
+
+    private static class WatchedDir {
+        private final Path root;
+        private final Path dir;
+        private final int depth;
+
+        private WatchedDir(Path root, Path dir, int depth) {
+            this.root = root;
+            this.dir = dir;
+            this.depth = depth;
+        }
+    }
+
+    private static class DirState {
+        // 读取时（本机时钟）距目录修改时间（存储端时钟）不足 RACY_WINDOW_MILLIS 的记录不可信：同一时间刻度内的后续修改不会改变修改时间。
+        // 判断方式与增量扫描索引相同，但窗口只覆盖粗粒度时间戳（FAT 为 2 秒），不覆盖时钟偏差：记录只保存在内存中，
+        // 本地文件系统的变化还有文件事件兜底。存储端时钟落后超过 2 秒的网络共享上，同一时间刻度内的后续修改要等目录再次变化才会被对账发现
+        private static final long RACY_WINDOW_MILLIS = 2000;
+        private final long modified;
+        private final long listedAt;
+        private final List<Path> subDirs;
+
+        private DirState(long modified, long listedAt, List<Path> subDirs) {
+            this.modified = modified;
+            this.listedAt = listedAt;
+            this.subDirs = subDirs;
+        }
+
+        private boolean racy() {
+            return listedAt - modified <= RACY_WINDOW_MILLIS;
+        }
+    }
+
+    private static class Pending {
+        private volatile long lastEvent;
+        private volatile Stamp observed;
+    }
+
+    private static class Stamp {
+        private final long size;
+        private final long modified;
+
+        private Stamp(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Stamp)) {
+                return false;
+            }
+            Stamp other = (Stamp) o;
+            return size == other.size && modified == other.modified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Long.hashCode(modified);
+        }
+    }
+}
@@ -12,15 +12,19 @@ package com.filemanager.app.components;
 import com.filemanager.app.base.IAppController;
 import com.filemanager.app.base.IAppStrategy;
 import com.filemanager.app.tools.MultiThreadTaskEstimator;
+import com.filemanager.app.tools.SpillableChangeList;
 import com.filemanager.app.tools.display.FXDialogUtils;
 import com.filemanager.app.tools.display.ProgressBarDisplay;
 import com.filemanager.app.ui.PreviewView;
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.ChangeRecordRepository;
+import com.filemanager.model.ScannedEntry;
 import com.filemanager.strategy.AppStrategyFactory;
-import com.filemanager.tool.RetryableThreadPool;
+import com.filemanager.tool.CancellationToken;
 import com.filemanager.tool.ThreadPoolManager;
 import com.filemanager.type.ExecStatus;
 import com.filemanager.type.OperationType;
+import com.filemanager.type.SchedulingPolicy;
 import com.filemanager.type.TaskStatus;
 import com.filemanager.util.file.FileLockManagerUtil;
 import javafx.application.Platform;
@@ -28,24 +32,55 @@ import javafx.concurrent.Task;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class PipelineManager {
+    // 执行卡住多久后输出锁诊断信息（毫秒）
+    private static final long STALL_DUMP_INTERVAL_MS = 60000;
+    // 流式执行：分析结果交接队列容量、每批追加的最大条数、允许未完成的最大任务数
+    private static final int STREAM_QUEUE_CAPACITY = 1024;
+    private static final int STREAM_BATCH_SIZE = 256;
+    private static final int STREAM_MAX_IN_FLIGHT = 2000;
+    // 交接队列满时每次等待的时间，超时后检查是否已取消、投递线程是否还在
+    private static final long STREAM_OFFER_WAIT_MS = 200;
+    // 分析结束标记
+    private static final List<ChangeRecord> STREAM_END = new ArrayList<>(0);
+    // 结果超过此数量时，未变更的记录换出到磁盘
+    private static final int SPILL_THRESHOLD = 200_000;
     private final IAppController app;
     private final ThreadPoolManager threadPoolManager;
     private final AtomicLong lastRefresh;
     private final AtomicBoolean isTaskRunning;
-    private final Map<String, MultiThreadTaskEstimator> localEstimatorMap = new HashMap<>();
+    private final Map<String, MultiThreadTaskEstimator> localEstimatorMap = new ConcurrentHashMap<>();
     private List<ChangeRecord> fullChangeList;
     private Task<?> currentTask;
-    private MultiThreadTaskEstimator threadTaskEstimator;
+    private volatile ExecutionScheduler currentScheduler;
+    // 当前执行的取消令牌，停止时结束外部进程并清理未完成的输出
+    private volatile CancellationToken currentCancellation;
+    // 当前执行的线程数自动调优器，未开启时为 null
+    private volatile AdaptiveConcurrencyController currentTuner;
+    // 分析阶段构建的任务依赖图，与 fullChangeList 对应
+    private TaskGraph taskGraph;
 
     public PipelineManager(IAppController app, ThreadPoolManager threadPoolManager) {
         this.app = app;
@@ -77,18 +112,20 @@ public class PipelineManager {
         }
         isTaskRunning.set(true);
         fullChangeList.clear();
+        app.setFullChangeList(fullChangeList);
+        taskGraph = null;
         app.switchView(app.getPreviewView().getViewNode());
 
         // 捕获所有策略参数
         for (IAppStrategy s : app.getPipelineStrategies()) {
             s.captureParams();
         }
+        // 自动执行时边分析边执行
+        final boolean streamToExecution = app.getAutoRun().isSelected() && canStreamExecution();
 
         // 从GlobalSettingsView获取参数
-        int minDepth = "当前目录".equals(app.getCbRecursionMode().getValue()) ? 0 :
-                ("全部文件".equals(app.getCbRecursionMode().getValue()) ? 0 : app.getSpRecursionDepth().getValue());
-        int maxDepth = "当前目录".equals(app.getCbRecursionMode().getValue()) ? 1 :
-                ("全部文件".equals(app.getCbRecursionMode().getValue()) ? Integer.MAX_VALUE : app.getSpRecursionDepth().getValue());
+        int minDepth = scanMinDepth();
+        int maxDepth = scanMaxDepth();
         // 应用预览数量限制
         PreviewView previewView = app.getPreviewView();
         int limit = previewView.getGlobalPreviewLimit();
@@ -99,36 +136,76 @@ public class PipelineManager {
                 // 同步根路径线程配置
                 syncRootPathThreadConfig();
                 updateMessage("▶ ▶ ▶ 扫描源文件...");
-                List<File> initialFiles = new ArrayList<>();
-                for (File r : app.getSourceRoots()) {
-                    if (isCancelled()) break;
-                    int rootLimit = previewView.getRootPathPreviewLimit(r.getAbsolutePath());
-                    AtomicInteger dirLimitRemaining = new AtomicInteger(rootLimit);
-                    initialFiles.addAll(app.scanFilesRobust(r, minDepth, maxDepth, globalLimitRemaining, dirLimitRemaining, msg -> app.setRunningUI("▶ ▶ ▶ " + msg)));
+                List<ChangeRecord> currentRecords = new ArrayList<>();
+                Map<String, List<ChangeRecord>> recordsByRoot = new LinkedHashMap<>();
+                // 所有根路径并发扫描，结果按根路径顺序合并
+                List<File> roots = new ArrayList<>(app.getSourceRoots());
+                // 每个根路径的进度显示在各自的进度行，运行状态汇总所有根路径的最新进度
+                Map<File, String> scanProgress = new ConcurrentHashMap<>();
+                Map<File, List<ScannedEntry>> scanned = app.scanRootsConcurrently(roots, minDepth, maxDepth, globalLimitRemaining,
+                        r -> previewView.getRootPathPreviewLimit(r.getAbsolutePath()),
+                        (r, msg) -> {
+                            scanProgress.put(r, msg);
+                            previewView.updateRootPathScanProgress(r.getAbsolutePath(), msg, false);
+                            app.setRunningUI("▶ ▶ ▶ " + roots.stream().map(scanProgress::get)
+                                    .filter(Objects::nonNull).collect(Collectors.joining("；")));
+                        });
+                scanProgress.forEach((r, msg) -> previewView.updateRootPathScanProgress(r.getAbsolutePath(), msg, true));
+                for (Map.Entry<File, List<ScannedEntry>> entry : scanned.entrySet()) {
+                    List<ChangeRecord> rootRecords = entry.getValue().stream()
+                            .map(ChangeRecord::of)
+                            .collect(Collectors.toList());
+                    currentRecords.addAll(rootRecords);
+                    recordsByRoot.computeIfAbsent(entry.getKey().getAbsolutePath(), k -> new ArrayList<>()).addAll(rootRecords);
+                    // 扫描结果已转换为记录，不再保留列表
+                    entry.getValue().clear();
                 }
+                scanned.clear();
                 if (isCancelled()) return null;
-                app.setRunningUI("▶ ▶ ▶ 扫描完成，共 " + initialFiles.size() + " 个文件。");
-                List<ChangeRecord> currentRecords = initialFiles.stream()
-                        .map(f -> new ChangeRecord(f.getName(), f.getName(), f, false, f.getAbsolutePath(), OperationType.NONE))
-                        .collect(Collectors.toList());
+                app.setRunningUI("▶ ▶ ▶ 扫描完成，共 " + currentRecords.size() + " 个文件。");
+                // 建立路径索引，分析时按路径、目录查找其他记录不再遍历全部记录
+                ChangeRecordRepository repository = ChangeRecordRepository.of(currentRecords, roots);
 
                 int total = currentRecords.size();
                 AtomicInteger processed = new AtomicInteger(0);
-                threadTaskEstimator = new MultiThreadTaskEstimator(total, Math.max(Math.min(50, total / 20), 1));
-                threadTaskEstimator.start();
+                MultiThreadTaskEstimator analysisEstimator = new MultiThreadTaskEstimator(total, Math.max(Math.min(50, total / 20), 1));
+                analysisEstimator.start();
                 ConcurrentLinkedDeque<ChangeRecord> newRecords = new ConcurrentLinkedDeque<>();
 
-                currentRecords.parallelStream().forEach(rec -> {
+                // 流式执行：分析结果经有界队列交给执行调度器
+                ExecutionSession session = null;
+                BlockingQueue<List<ChangeRecord>> handOff = null;
+                Thread feeder = null;
+                if (streamToExecution) {
+                    threadPoolManager.setVirtualThreadsEnabled(previewView.isVirtualThreadsEnabled());
+                    Map<String, Long> rootTaskCounts = new LinkedHashMap<>();
+                    recordsByRoot.keySet().forEach(rootPath -> rootTaskCounts.put(rootPath, 0L));
+                    session = new ExecutionSession(rootTaskCounts, 0);
+                    session.scheduler.startStreaming(new TaskGraph(), session::rootOf);
+                    handOff = new ArrayBlockingQueue<>(STREAM_QUEUE_CAPACITY);
+                    feeder = startStreamFeeder(handOff, session, this::isCancelled, this::cancel);
+                }
+                final BlockingQueue<List<ChangeRecord>> analyzed = handOff;
+                final Thread feederThread = feeder;
+
+                Consumer<ChangeRecord> analyzer = rec -> {
                     try {
-                        int curr = processed.incrementAndGet();
-                        Platform.runLater(() -> updateProgress(curr, total));
+                        processed.incrementAndGet();
                         if (isCancelled()) {
                             return;
                         }
+                        List<ChangeRecord> produced = new ArrayList<>();
                         for (int i = 0; i < app.getPipelineStrategies().size(); i++) {
                             IAppStrategy strategy = app.getPipelineStrategies().get(i);
-                            List<ChangeRecord> newRecordAfter = strategy.analyzeWithPreCheck(rec, currentRecords, app.getSourceRoots());
+                            List<ChangeRecord> newRecordAfter = strategy.analyzeWithPreCheck(rec, repository, app.getSourceRoots());
                             newRecords.addAll(newRecordAfter);
+                            produced.addAll(newRecordAfter);
+                        }
+                        if (analyzed != null) {
+                            produced.add(rec);
+                            // 队列满时等待，由执行速度反压分析速度；不使用 ManagedBlocker，
+                            // 否则分析线程池会为每个等待的线程补充新线程，队列就限制不住分析的并发
+                            handOff(analyzed, produced, feederThread, this::isCancelled);
                         }
                     } catch (Exception e) {
                         rec.setStatus(ExecStatus.ANALYZE_FAILED);
@@ -136,28 +213,80 @@ public class PipelineManager {
                         app.logError("❌ 分析失败: " + rec.getFileHandle().getAbsolutePath() + ",原因" + e.getMessage());
                         app.logError("❌ 失败详细原因:" + e.getMessage());
                     } finally {
-                        threadTaskEstimator.oneCompleted();
-                        if (System.currentTimeMillis() - lastRefresh.get() > 1000) {
-                            app.setRunningUI("▶ ▶ ▶ 预览任务进度: " + threadTaskEstimator.getDisplayInfo());
-                            lastRefresh.set(System.currentTimeMillis());
-                        }
+                        analysisEstimator.oneCompleted();
                     }
-                });
+                };
+                // 工作线程只累加计数，由界面更新总线按固定频率显示进度
+                Runnable progressPoller = () -> {
+                    updateProgress(processed.get(), total);
+                    app.setRunningUI("▶ ▶ ▶ 预览任务进度: " + analysisEstimator.getDisplayInfo());
+                };
+                app.getUiUpdateBus().addPoller(progressPoller);
+                // 每个根路径在所属的分析线程池中并行分析，不占用公共线程池
+                List<ForkJoinTask<?>> analyses = new ArrayList<>();
+                try {
+                    for (Map.Entry<String, List<ChangeRecord>> group : recordsByRoot.entrySet()) {
+                        ForkJoinPool pool = threadPoolManager.getAnalysisPool(group.getKey());
+                        app.log("▶ ▶ ▶ 分析根路径 " + group.getKey() + "，文件数: " + group.getValue().size() + "，分析并行度: " + pool.getParallelism());
+                        analyses.add(pool.submit(() -> group.getValue().parallelStream().forEach(analyzer)));
+                    }
+                    for (ForkJoinTask<?> analysis : analyses) {
+                        analysis.join();
+                    }
+                } finally {
+                    app.getUiUpdateBus().removePoller(progressPoller);
+                    updateProgress(processed.get(), total);
+                    // 下次分析按最新的预览线程数重新创建
+                    threadPoolManager.shutdownAnalysisPools();
+                    if (analyzed != null) {
+                        // 取消后投递线程仍会取走结果，结束标记只在投递线程已退出时放弃
+                        handOff(analyzed, STREAM_END, feederThread, () -> false);
+                    }
+                }
 
-                if (!newRecords.isEmpty()) {
-                    List<ChangeRecord> union = new ArrayList<>(newRecords);
-                    union.addAll(currentRecords);
-                    return union;
+                // 合并前释放分析用的索引和分组，合并换出的记录才能被回收
+                repository.release();
+                recordsByRoot.clear();
+                List<ChangeRecord> result = mergeResult(newRecords, currentRecords);
+                if (session == null) {
+                    // 构建执行依赖图
+                    TaskGraph graph = TaskGraph.build(result);
+                    app.log("▶ ▶ ▶ 任务依赖图构建完成，任务数：" + graph.size() + "，依赖数：" + graph.getEdgeCount());
+                    logBrokenEdges(graph);
+                    taskGraph = graph;
+                    return result;
                 }
-                return currentRecords;
+
+                // 分析已结束，先展示预览结果，再等待剩余任务执行完毕
+                List<ChangeRecord> preview = result;
+                Platform.runLater(() -> {
+                    fullChangeList = preview;
+                    app.setFullChangeList(fullChangeList);
+                    app.refreshPreviewTableFilter();
+                });
+                app.setRunningUI("▶ ▶ ▶ 分析完成，等待剩余任务执行...");
+                try {
+                    feeder.join();
+                    session.awaitCompletion(this::isCancelled);
+                } finally {
+                    session.close(isCancelled());
+                }
+                taskGraph = session.scheduler.getGraph();
+                app.log("▶ ▶ ▶ 流式执行结束，任务数：" + taskGraph.size() + "，依赖数：" + taskGraph.getEdgeCount());
+                return result;
             }
         };
 
-        setStartTaskUI("▶ ▶ ▶ 预览中...", task);
+        setStartTaskUI(streamToExecution ? "▶ ▶ ▶ 预览并执行中..." : "▶ ▶ ▶ 预览中...", task);
 
         task.setOnSucceeded(e -> {
             fullChangeList = task.getValue();
             app.setFullChangeList(fullChangeList);
+            if (streamToExecution) {
+                app.changeExecuteButton(false);
+                setFinishTaskUI("➡ ➡ ➡ 执行成功 ⬅ ⬅ ⬅", TaskStatus.SUCCESS);
+                return;
+            }
             setFinishTaskUI("➡ ➡ ➡ 预览完成 ⬅ ⬅ ⬅", TaskStatus.SUCCESS);
             boolean hasChanges = fullChangeList.stream().anyMatch(ChangeRecord::isChanged);
             app.changeExecuteButton(hasChanges);
@@ -170,6 +299,301 @@ public class PipelineManager {
         new Thread(task).start();
     }
 
+    /**
+     * 合并新生成的记录与扫描记录，新记录在前
+     * <p>
+     * 数量很大时写入可换出的列表，未变更的记录只保留在磁盘上，减少预览结果在之后浏览、执行期间占用的内存。
+     * 分析需要全部记录和索引同时在内存中，换出发生在分析之后，不降低分析期间的内存峰值。
+     * 合并时边写入边释放输入列表中的引用，已换出的记录在合并过程中即可被回收，合并本身不使内存翻倍。
+     */
+    private List<ChangeRecord> mergeResult(Collection<ChangeRecord> newRecords, List<ChangeRecord> currentRecords) {
+        int total = newRecords.size() + currentRecords.size();
+        if (total <= SPILL_THRESHOLD) {
+            if (newRecords.isEmpty()) {
+                return currentRecords;
+            }
+            List<ChangeRecord> result = new ArrayList<>(total);
+            result.addAll(newRecords);
+            result.addAll(currentRecords);
+            return result;
+        }
+        SpillableChangeList result = new SpillableChangeList();
+        result.addAll(newRecords);
+        newRecords.clear();
+        for (int i = 0; i < currentRecords.size(); i++) {
+            result.add(currentRecords.set(i, null));
+        }
+        currentRecords.clear();
+        app.log("▶ ▶ ▶ 记录数 " + total + " 超过 " + SPILL_THRESHOLD + "，" + result.getSpilledCount() + " 条未变更记录已换出到磁盘");
+        return result;
+    }
+
+    private int scanMinDepth() {
+        return "当前目录".equals(app.getCbRecursionMode().getValue()) ? 0 :
+                ("全部文件".equals(app.getCbRecursionMode().getValue()) ? 0 : app.getSpRecursionDepth().getValue());
+    }
+
+    private int scanMaxDepth() {
+        return "当前目录".equals(app.getCbRecursionMode().getValue()) ? 1 :
+                ("全部文件".equals(app.getCbRecursionMode().getValue()) ? Integer.MAX_VALUE : app.getSpRecursionDepth().getValue());
+    }
+
+    /**
+     * 监控模式：源目录中新增或修改的文件写入完成后，按当前流水线分析并立即执行，直到停止
+     * <p>
+     * 与边分析边执行共用执行会话；依赖全部分析结果的步骤无法只处理新文件，流水线包含这类步骤时不能启动
+     */
+    public void runWatchMode() {
+        if (app.getSourceRoots().isEmpty()) {
+            FXDialogUtils.showToast(app.getPrimaryStage(), "请先添加源目录！", FXDialogUtils.ToastType.INFO);
+            return;
+        }
+        if (app.getPipelineStrategies().isEmpty()) {
+            FXDialogUtils.showToast(app.getPrimaryStage(), "请先添加步骤！",
+                    FXDialogUtils.ToastType.INFO);
+            return;
+        }
+        if (isTaskRunning.get()) {
+            FXDialogUtils.showToast(app.getPrimaryStage(), "任务执行中，请先停止前面的任务再启动监控！",
+                    FXDialogUtils.ToastType.INFO);
+            return;
+        }
+        List<String> blockers = app.getPipelineStrategies().stream()
+                .filter(IAppStrategy::isCrossRecordAnalysis)
+                .map(IAppStrategy::getName)
+                .collect(Collectors.toList());
+        if (!blockers.isEmpty()) {
+            FXDialogUtils.showToast(app.getPrimaryStage(), "以下步骤需要完整的分析结果，不支持监控模式: " + blockers,
+                    FXDialogUtils.ToastType.INFO);
+            return;
+        }
+        if (!FXDialogUtils.showConfirm("确认监控", "监控期间新文件会自动执行变更，确认开始?")) {
+            return;
+        }
+        isTaskRunning.set(true);
+        fullChangeList.clear();
+        app.setFullChangeList(fullChangeList);
+        taskGraph = null;
+        app.switchView(app.getPreviewView().getViewNode());
+
+        // 捕获所有策略参数
+        for (IAppStrategy s : app.getPipelineStrategies()) {
+            s.captureParams();
+        }
+        int minDepth = scanMinDepth();
+        int maxDepth = scanMaxDepth();
+        List<File> roots = new ArrayList<>(app.getSourceRoots());
+        Task<Void> task = new Task<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                // 同步根路径线程配置
+                syncRootPathThreadConfig();
+                threadPoolManager.setVirtualThreadsEnabled(app.getPreviewView().isVirtualThreadsEnabled());
+                Map<String, Long> rootTaskCounts = new LinkedHashMap<>();
+                roots.forEach(root -> rootTaskCounts.put(root.getAbsolutePath(), 0L));
+                ExecutionSession session = new ExecutionSession(rootTaskCounts, 0);
+                session.scheduler.startStreaming(new TaskGraph(), session::rootOf);
+                FolderWatcher watcher = app.newFolderWatcher(roots, minDepth, maxDepth);
+                // 任务结束后移除输出文件的登记：成功的输出记为已知文件，失败或跳过的不会再出现
+                session.onFinished = rec -> {
+                    if (rec.getNewPath() != null) {
+                        watcher.finished(new File(rec.getNewPath()), rec.getStatus() == ExecStatus.SUCCESS);
+                    }
+                };
+                try {
+                    app.setRunningUI("▶ ▶ ▶ 记录源目录已有文件...");
+                    watcher.start(entries -> processWatchedFiles(entries, session, watcher, this::isCancelled));
+                    while (!isCancelled()) {
+                        app.setRunningUI("▶ ▶ ▶ 监控中，已发现新文件 " + watcher.getDelivered().get()
+                                + " 个，执行进度: " + session.estimator.getDisplayInfo());
+                        app.getPreviewView().updateRootPathProgress();
+                        Thread.sleep(1000);
+                    }
+                } catch (InterruptedException e) {
+                    // 停止监控
+                } finally {
+                    watcher.close();
+                    session.scheduler.finishStreaming();
+                    threadPoolManager.shutdownAnalysisPools();
+                    session.close(true);
+                }
+                return null;
+            }
+        };
+
+        setStartTaskUI("▶ ▶ ▶ 监控中...", task);
+        handleTaskLifecycle(task);
+        new Thread(task).start();
+    }
+
+    /**
+     * 分析监控到的新文件并追加到执行会话，在监控的定时线程中按批调用，同一时间只处理一批
+     */
+    private void processWatchedFiles(List<ScannedEntry> entries, ExecutionSession session, FolderWatcher watcher,
+                                     BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            return;
+        }
+        List<ChangeRecord> records = entries.stream().map(ChangeRecord::of).collect(Collectors.toList());
+        app.log("▶ ▶ ▶ 发现新文件 " + records.size() + " 个，开始分析");
+        ChangeRecordRepository repository = ChangeRecordRepository.of(records, app.getSourceRoots());
+        ConcurrentLinkedDeque<ChangeRecord> newRecords = new ConcurrentLinkedDeque<>();
+        Consumer<ChangeRecord> analyzer = rec -> {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            try {
+                for (IAppStrategy strategy : app.getPipelineStrategies()) {
+                    newRecords.addAll(strategy.analyzeWithPreCheck(rec, repository, app.getSourceRoots()));
+                }
+            } catch (Exception e) {
+                rec.setStatus(ExecStatus.ANALYZE_FAILED);
+                rec.setFailReason(e.getMessage());
+                app.logError("❌ 分析失败: " + rec.getFileHandle().getAbsolutePath() + ",原因" + e.getMessage());
+            }
+        };
+        // 与预览相同，每个根路径在所属的分析线程池中并行分析
+        Map<String, List<ChangeRecord>> recordsByRoot = new LinkedHashMap<>();
+        for (ChangeRecord rec : records) {
+            recordsByRoot.computeIfAbsent(resolveRootPath(rec), k -> new ArrayList<>()).add(rec);
+        }
+        List<ForkJoinTask<?>> analyses = new ArrayList<>();
+        for (Map.Entry<String, List<ChangeRecord>> group : recordsByRoot.entrySet()) {
+            ForkJoinPool pool = threadPoolManager.getAnalysisPool(group.getKey());
+            analyses.add(pool.submit(() -> group.getValue().parallelStream().forEach(analyzer)));
+        }
+        for (ForkJoinTask<?> analysis : analyses) {
+            analysis.join();
+        }
+
+        List<ChangeRecord> result = new ArrayList<>(newRecords);
+        result.addAll(records);
+        // 修改目录或依赖中间文件的任务排在本批其他任务之后追加
+        List<ChangeRecord> ready = new ArrayList<>();
+        List<ChangeRecord> deferred = new ArrayList<>();
+        for (ChangeRecord rec : result) {
+            if (!rec.isChanged() || rec.getOpType() == OperationType.NONE) {
+                continue;
+            }
+            // 执行写出的文件不当作新文件，避免处理结果被再次处理
+            if (rec.getNewPath() != null) {
+                watcher.expect(new File(rec.getNewPath()));
+            }
+            if (TaskGraph.isDeferredForStreaming(rec)) {
+                deferred.add(rec);
+            } else {
+                ready.add(rec);
+            }
+        }
+        Platform.runLater(() -> {
+            // 监控开始时已设置为同一个列表，只把新记录加入统计
+            fullChangeList.addAll(result);
+            app.getRunStatistics().addAll(result);
+            app.refreshPreviewTableFilter();
+        });
+        if (cancelled.getAsBoolean()) {
+            return;
+        }
+        session.feed(ready);
+        if (!deferred.isEmpty()) {
+            session.feed(deferred);
+        }
+        app.log("▶ ▶ ▶ 新文件分析完成，追加执行任务 " + (ready.size() + deferred.size()) + " 个");
+    }
+
+    /**
+     * 是否可以边分析边执行：依赖全部分析结果的策略（如整理专辑目录、按列表编号）必须等分析完成
+     */
+    private boolean canStreamExecution() {
+        List<String> blockers = app.getPipelineStrategies().stream()
+                .filter(IAppStrategy::isCrossRecordAnalysis)
+                .map(IAppStrategy::getName)
+                .collect(Collectors.toList());
+        if (!blockers.isEmpty()) {
+            app.log("▶ ▶ ▶ 以下步骤需要完整的分析结果，预览完成后再统一执行: " + blockers);
+            return false;
+        }
+        app.log("▶ ▶ ▶ 自动执行模式：分析出的任务立即进入执行队列，边分析边执行");
+        return true;
+    }
+
+    /**
+     * 把分析结果放入交接队列，队列满时等待；已取消或投递线程已退出时放弃，避免分析线程永远阻塞
+     */
+    private static void handOff(BlockingQueue<List<ChangeRecord>> analyzed, List<ChangeRecord> item, Thread feeder,
+                                BooleanSupplier cancelled) throws InterruptedException {
+        while (!analyzed.offer(item, STREAM_OFFER_WAIT_MS, TimeUnit.MILLISECONDS)) {
+            if (cancelled.getAsBoolean() || !feeder.isAlive()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 启动流式投递线程：批量取出分析结果追加到执行调度器，
+     * 未完成任务过多时暂停投递，分析线程随之在有界队列上等待
+     *
+     * @param onFailure 投递失败时调用，取消本次运行
+     */
+    private Thread startStreamFeeder(BlockingQueue<List<ChangeRecord>> analyzed, ExecutionSession session,
+                                     BooleanSupplier cancelled, Runnable onFailure) {
+        Thread feeder = new Thread(() -> {
+            // 修改目录或依赖中间文件的任务等全部分析完成后再追加
+            List<ChangeRecord> deferred = new ArrayList<>();
+            List<List<ChangeRecord>> batch = new ArrayList<>();
+            boolean end = false;
+            try {
+                while (!end) {
+                    batch.clear();
+                    batch.add(analyzed.take());
+                    analyzed.drainTo(batch, STREAM_BATCH_SIZE - 1);
+                    List<ChangeRecord> ready = new ArrayList<>();
+                    for (List<ChangeRecord> item : batch) {
+                        if (item == STREAM_END) {
+                            end = true;
+                            continue;
+                        }
+                        for (ChangeRecord rec : item) {
+                            if (!rec.isChanged() || rec.getOpType() == OperationType.NONE) {
+                                continue;
+                            }
+                            if (TaskGraph.isDeferredForStreaming(rec)) {
+                                deferred.add(rec);
+                            } else {
+                                ready.add(rec);
+                            }
+                        }
+                    }
+                    // 取消后继续取走队列中的结果，避免分析线程阻塞在队列上
+                    if (cancelled.getAsBoolean() || ready.isEmpty()) {
+                        continue;
+                    }
+                    session.feed(ready);
+                    while (!cancelled.getAsBoolean()
+                            && !session.scheduler.awaitPendingBelow(STREAM_MAX_IN_FLIGHT, 1, TimeUnit.SECONDS)) {
+                        app.getPreviewView().updateRootPathProgress();
+                    }
+                }
+                if (!cancelled.getAsBoolean() && !deferred.isEmpty()) {
+                    app.log("▶ ▶ ▶ 分析完成，追加修改目录及依赖中间文件的任务: " + deferred.size());
+                    session.feed(deferred);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                app.logError("❌ 流式投递任务失败，停止本次运行: " + e.getMessage());
+                // 投递线程退出后没有人再取队列，清空队列并取消运行，分析线程检查到投递线程已退出后不再等待
+                analyzed.clear();
+                onFailure.run();
+            } finally {
+                session.scheduler.finishStreaming();
+            }
+        }, "stream-feeder");
+        feeder.setDaemon(true);
+        feeder.start();
+        return feeder;
+    }
+
     public void runPipelineExecution() {
         long count = countPendingTasks();
         if (count == 0) {
@@ -218,198 +642,318 @@ public class PipelineManager {
             protected Void call() throws Exception {
                 // 同步根路径线程配置
                 syncRootPathThreadConfig();
-                List<ChangeRecord> todos = fullChangeList.stream()
-                        .filter(record -> record.isChanged()
-                                && record.getOpType() != OperationType.NONE
-                                && record.getStatus() == ExecStatus.PENDING)
+                threadPoolManager.setVirtualThreadsEnabled(app.getPreviewView().isVirtualThreadsEnabled());
+                TaskGraph graph = taskGraph;
+                if (graph == null) {
+                    graph = TaskGraph.build(fullChangeList);
+                    logBrokenEdges(graph);
+                    taskGraph = graph;
+                }
+                // 已处理过的节点（上一轮执行过）直接视为完成，仍保留依赖关系
+                List<ChangeRecord> todos = graph.getNodes().stream()
+                        .map(TaskGraph.Node::getRecord)
+                        .filter(record -> record.getStatus() == ExecStatus.PENDING)
                         .collect(Collectors.toList());
-                int total = todos.size();
-                AtomicInteger curr = new AtomicInteger(0);
 
-                // 线程池和估算器管理
-                localEstimatorMap.clear();
-
-                // 任务数量限制计数器
-                final java.util.Map<String, AtomicInteger> executedCountByRootPath = new java.util.concurrent.ConcurrentHashMap<>();
-                final AtomicInteger globalExecutedCount = new AtomicInteger(0);
-
-                // 创建全局估算器
-                threadTaskEstimator = new MultiThreadTaskEstimator(total, Math.max(Math.min(20, total / 20), 1));
-                threadTaskEstimator.start();
-                app.log("▶ ▶ ▶ 任务启动，并发线程: " + app.getSpExecutionThreads().getValue());
-                app.log("▶ ▶ ▶ 当前线程池模式: " + threadPoolManager.getThreadPoolMode());
-                app.log("▶ ▶ ▶ 注意：部分任务依赖同一个原始文件，会因为加锁导致串行执行，任务会一直轮询！");
-                app.log("▶ ▶ ▶ 开始任务执行，总待执行任务数：" + todos.size());
+                // 预先计算每个任务所属的根路径，并按根路径创建估算器
+                Map<String, Long> rootTaskCounts = new LinkedHashMap<>();
+                Map<ChangeRecord, String> rootPaths = new IdentityHashMap<>();
+                for (ChangeRecord rec : todos) {
+                    String rootPath = resolveRootPath(rec);
+                    rootPaths.put(rec, rootPath);
+                    rootTaskCounts.merge(rootPath, 1L, Long::sum);
+                }
+                ExecutionSession session = new ExecutionSession(rootTaskCounts, todos.size());
+                session.rootPathOfRecord.putAll(rootPaths);
+                try {
+                    session.scheduler.start(graph, session::rootOf);
+                    session.awaitCompletion(this::isCancelled);
+                } finally {
+                    session.close(isCancelled());
+                }
+                return null;
+            }
+        };
+    }
 
+    /**
+     * 一轮执行的状态：估算器、执行数量限制计数、调度器和自动调优器，
+     * 预览后执行和边分析边执行共用
+     */
+    private class ExecutionSession {
+        private final AtomicInteger curr = new AtomicInteger(0);
+        // 任务数量限制计数器
+        private final Map<String, AtomicInteger> executedCountByRootPath = new ConcurrentHashMap<>();
+        private final AtomicInteger globalExecutedCount = new AtomicInteger(0);
+        private final Map<ChangeRecord, String> rootPathOfRecord = Collections.synchronizedMap(new IdentityHashMap<>());
+        private final CancellationToken token = new CancellationToken();
+        private final MultiThreadTaskEstimator estimator;
+        private final ExecutionScheduler scheduler;
+        private final AdaptiveConcurrencyController tuner;
+        private final ExecutionLogger logger;
+        // 任务结束（成功、失败或跳过）时的回调，监控模式用来移除输出文件的登记
+        private volatile Consumer<ChangeRecord> onFinished;
 
-                while (!todos.isEmpty() && !isCancelled() && todos.stream().anyMatch(rec -> rec.getStatus() == ExecStatus.PENDING)) {
-                    AtomicBoolean anyChange = new AtomicBoolean(false);
-                    for (ChangeRecord rec : todos) {
-                        if (isCancelled()) {
-                            break;
-                        }
-                        if (threadTaskEstimator.getRunningTaskCount() > app.getSpExecutionThreads().getValue()) {
-                            Thread.sleep(1);
-                            continue;
-                        }
-                        if (rec.getStatus() != ExecStatus.PENDING) {
-                            continue;
-                        }
-                        // 检查文件锁
-                        if (FileLockManagerUtil.isLocked(rec.getFileHandle())) {
-                            continue;
-                        }
+        /**
+         * @param rootTaskCounts 各根路径的任务数，流式执行时为 0，随追加累加
+         * @param total          总任务数
+         */
+        private ExecutionSession(Map<String, Long> rootTaskCounts, long total) {
+            logger = new ExecutionLogger(app, app.getExecutionLogPolicy());
+            // 线程池和估算器管理
+            localEstimatorMap.clear();
+            rootTaskCounts.forEach(PipelineManager.this::createRootPathEstimator);
 
-                        // 获取来源文件的绝对路径
-                        File sourceFile = rec.getFileHandle();
-                        String sourcePath = sourceFile.getAbsolutePath();
-                        if (!sourceFile.isDirectory()) {
-                            sourcePath = sourceFile.getParent();
-                        }
+            // 创建全局估算器
+            estimator = new MultiThreadTaskEstimator(total, estimatorWindow(total));
+            estimator.start();
+            app.log("▶ ▶ ▶ 任务启动，并发线程: " + app.getSpExecutionThreads().getValue());
+            app.log("▶ ▶ ▶ 当前线程池模式: " + threadPoolManager.getThreadPoolMode());
+            if (threadPoolManager.useVirtualThreads()) {
+                app.log("▶ ▶ ▶ I/O 密集型任务使用虚拟线程执行，各设备并发上限: " + rootTaskCounts.keySet().stream()
+                        .collect(Collectors.toMap(threadPoolManager.getDeviceRegistry()::getDeviceId,
+                                threadPoolManager::getVirtualConcurrency, (a, b) -> a, LinkedHashMap::new)));
+            } else if (threadPoolManager.isVirtualThreadsEnabled()) {
+                app.log("▶ ▶ ▶ 当前 Java 运行时不支持虚拟线程，回退到执行线程池");
+            }
+            if (ThreadPoolManager.MODE_DEVICE.equals(threadPoolManager.getThreadPoolMode())) {
+                for (String rootPath : rootTaskCounts.keySet()) {
+                    app.log("▶ ▶ ▶ 根路径 " + rootPath + " 所在设备: " + threadPoolManager.getDeviceRegistry().getDeviceId(rootPath)
+                            + "，类型: " + threadPoolManager.getDeviceRegistry().getDeviceType(rootPath)
+                            + "，执行线程: " + threadPoolManager.getDeviceThreads(rootPath, app.getSpExecutionThreads().getValue()));
+                }
+            }
+            app.log("▶ ▶ ▶ 注意：任务按依赖图执行，修改同一个原始文件的任务会等待前置任务完成后再执行！");
+            app.log("▶ ▶ ▶ 开始任务执行，总待执行任务数：" + total);
 
-                        // 找到该文件所在的根路径
-                        String rootPath = app.findRootPathForFile(sourcePath);
+            SchedulingPolicy policy = app.getPreviewView().getSchedulingPolicy();
+            app.log("▶ ▶ ▶ 调度策略: " + policy);
 
-                        // 检查任务数量限制
-                        boolean exceedLimit = checkExecutionLimits(rootPath, globalExecutedCount, executedCountByRootPath);
-                        if (exceedLimit) {
-                            rec.setFailReason("已超出执行限制，忽略接下来的操作！！！");
-                            rec.setStatus(ExecStatus.SKIPPED);
-                            continue;
+            // 设备模式或自动调优时并发由各线程池自行限制，不再受全局执行线程数约束
+            boolean autoTune = app.getPreviewView().isAutoTuneEnabled();
+            scheduler = new ExecutionScheduler(threadPoolManager,
+                    () -> autoTune || ThreadPoolManager.MODE_DEVICE.equals(threadPoolManager.getThreadPoolMode())
+                            ? Integer.MAX_VALUE : app.getSpExecutionThreads().getValue(),
+                    policy,
+                    (rec, rootPath) -> {
+                        try {
+                            // 调度器放弃的任务已标记为失败，只做收尾
+                            if (rec.getStatus() != ExecStatus.PENDING) {
+                                return;
+                            }
+                            // 检查任务数量限制
+                            if (!acquireExecutionQuota(rootPath, globalExecutedCount, executedCountByRootPath)) {
+                                rec.setFailReason("已超出执行限制，忽略接下来的操作！！！");
+                                rec.setStatus(ExecStatus.SKIPPED);
+                                logger.skipped(rec);
+                                return;
+                            }
+                            executeSingleTask(rec, this, rootPath);
+                        } finally {
+                            Consumer<ChangeRecord> callback = onFinished;
+                            if (callback != null) {
+                                callback.accept(rec);
+                            }
                         }
+                    },
+                    app::logError);
+            currentScheduler = scheduler;
+            currentCancellation = token;
+            if (autoTune) {
+                tuner = new AdaptiveConcurrencyController(threadPoolManager, localEstimatorMap::get, app::log);
+                tuner.start(new ArrayList<>(rootTaskCounts.keySet()), scheduler::kick);
+            } else {
+                tuner = null;
+            }
+            currentTuner = tuner;
+        }
 
-                        // 预增加计数器，防止并发问题
-                        globalExecutedCount.incrementAndGet();
-                        executedCountByRootPath.computeIfAbsent(rootPath, k -> new AtomicInteger(0)).incrementAndGet();
-
-                        // 获取执行线程池
-                        RetryableThreadPool sourceExecutor = threadPoolManager.getExecutionThreadPool(rootPath);
-
-                        // 获取或创建该根路径的任务估算器
-                        createRootPathEstimatorIfNeeded(localEstimatorMap, rootPath, todos);
+        private String rootOf(ChangeRecord rec) {
+            return rootPathOfRecord.computeIfAbsent(rec, r -> resolveRootPath(r));
+        }
 
-                        final String finalRootPath = rootPath;
-                        sourceExecutor.execute(() -> executeSingleTask(rec, curr, total, localEstimatorMap, anyChange,
-                                finalRootPath, globalExecutedCount, executedCountByRootPath));
-                    }
+        /**
+         * 流式追加任务，同时累加估算器的总任务数
+         */
+        private void feed(List<ChangeRecord> records) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (ChangeRecord rec : records) {
+                String rootPath = rootOf(rec);
+                if (rootPath != null) {
+                    counts.merge(rootPath, 1L, Long::sum);
+                }
+            }
+            counts.forEach((rootPath, count) -> {
+                MultiThreadTaskEstimator rootEstimator = localEstimatorMap.get(rootPath);
+                if (rootEstimator != null) {
+                    rootEstimator.addTotalTasks(count);
+                }
+            });
+            estimator.addTotalTasks(scheduler.append(records));
+        }
 
-                    // 适当Sleep，避免反复刷数据
-                    // 定期更新根路径进度UI
-                    if (System.currentTimeMillis() - lastRefresh.get() > 1000) {
-                        lastRefresh.set(System.currentTimeMillis());
-                        app.getPreviewView().updateRootPathProgress();
-                    }
-                    Thread.sleep(100);
+        /**
+         * 阻塞等待全部任务结束，期间定期刷新根路径进度
+         */
+        private void awaitCompletion(BooleanSupplier cancelled) throws InterruptedException {
+            int lastDone = 0;
+            long lastProgressTime = System.currentTimeMillis();
+            while (!cancelled.getAsBoolean() && !scheduler.awaitCompletion(1, TimeUnit.SECONDS)) {
+                app.getPreviewView().updateRootPathProgress();
+                // 长时间没有任务完成时输出锁的持有和等待情况，便于排查卡住的原因
+                if (curr.get() != lastDone) {
+                    lastDone = curr.get();
+                    lastProgressTime = System.currentTimeMillis();
+                } else if (System.currentTimeMillis() - lastProgressTime > STALL_DUMP_INTERVAL_MS) {
+                    lastProgressTime = System.currentTimeMillis();
+                    app.log("⚠ 已超过 " + STALL_DUMP_INTERVAL_MS / 1000 + " 秒没有任务完成，当前路径锁状态：\n"
+                            + FileLockManagerUtil.getPathLockManager().dump());
                 }
+            }
+        }
 
+        private void close(boolean cancelled) throws InterruptedException {
+            try {
+                if (cancelled) {
+                    token.cancel();
+                    scheduler.cancel();
+                }
+                currentScheduler = null;
+                currentCancellation = null;
+                if (tuner != null) {
+                    tuner.stop();
+                }
+                logger.summary();
                 // 关闭所有线程池
                 threadPoolManager.shutdownAll();
-
+            } finally {
                 // 等待所有线程池终止
                 threadPoolManager.awaitTermination();
-
-                return null;
             }
-        };
+        }
+    }
+
+    private void logBrokenEdges(TaskGraph graph) {
+        if (!graph.getBrokenEdges().isEmpty()) {
+            app.log("⚠ 任务依赖存在环，已去掉环上的 " + graph.getBrokenEdges().size() + " 个依赖，相关任务可能同时执行：\n"
+                    + String.join("\n", graph.getBrokenEdges()));
+        }
+    }
+
+    private static int estimatorWindow(long total) {
+        // 流式执行开始时总数未知，按常规窗口处理
+        return total > 0 ? (int) Math.max(Math.min(20, total / 20), 1) : 20;
     }
 
-    private boolean checkExecutionLimits(String rootPath, AtomicInteger globalExecutedCount,
-                                         java.util.Map<String, AtomicInteger> executedCountByRootPath) {
+    /**
+     * 获取任务来源文件所在的根路径
+     */
+    private String resolveRootPath(ChangeRecord rec) {
+        File sourceFile = rec.getFileHandle();
+        String sourcePath = sourceFile.getAbsolutePath();
+        if (!sourceFile.isDirectory()) {
+            sourcePath = sourceFile.getParent();
+        }
+        return app.findRootPathForFile(sourcePath);
+    }
+
+    /**
+     * 检查并占用执行数量额度
+     *
+     * @return 未超出限制返回 true
+     */
+    private boolean acquireExecutionQuota(String rootPath, AtomicInteger globalExecutedCount,
+                                          Map<String, AtomicInteger> executedCountByRootPath) {
         PreviewView previewView = app.getPreviewView();
-        boolean exceedLimit = globalExecutedCount.get() >= previewView.getGlobalExecutionLimit();
         // 检查全局执行数量限制
+        if (globalExecutedCount.incrementAndGet() > previewView.getGlobalExecutionLimit()) {
+            globalExecutedCount.decrementAndGet();
+            return false;
+        }
         // 检查根路径执行数量限制
         AtomicInteger rootExecutedCount = executedCountByRootPath.computeIfAbsent(rootPath, k -> new AtomicInteger(0));
-        if (rootExecutedCount.get() >= previewView.getRootPathExecutionLimit(rootPath)) {
-            exceedLimit = true;
+        if (rootExecutedCount.incrementAndGet() > previewView.getRootPathExecutionLimit(rootPath)) {
+            rootExecutedCount.decrementAndGet();
+            globalExecutedCount.decrementAndGet();
+            return false;
         }
-        return exceedLimit;
+        return true;
     }
 
-    private void createRootPathEstimatorIfNeeded(java.util.Map<String, MultiThreadTaskEstimator> localEstimatorMap,
-                                                 String rootPath, List<ChangeRecord> todos) {
-        localEstimatorMap.computeIfAbsent(rootPath, k -> {
-            // 计算该根路径下的待执行任务数
-            long rootTaskCount = todos.stream()
-                    .filter(record -> {
-                        File file = record.getFileHandle();
-                        String filePath = file.isDirectory() ? file.getAbsolutePath() : file.getParent();
-                        return app.findRootPathForFile(filePath).equals(k);
-                    })
-                    .count();
-            MultiThreadTaskEstimator estimator = new MultiThreadTaskEstimator(rootTaskCount, Math.max(Math.min(20, (int) rootTaskCount / 20), 1));
-            estimator.start();
-            app.log("▶ ▶ ▶ 为根路径创建任务估算器: " + k + "，总任务数: " + rootTaskCount);
-            return estimator;
-        });
+    private void createRootPathEstimator(String rootPath, long rootTaskCount) {
+        MultiThreadTaskEstimator estimator = new MultiThreadTaskEstimator(rootTaskCount, estimatorWindow(rootTaskCount));
+        estimator.start();
+        localEstimatorMap.put(rootPath, estimator);
+        app.log("▶ ▶ ▶ 为根路径创建任务估算器: " + rootPath + "，总任务数: " + rootTaskCount);
     }
 
-    private void executeSingleTask(ChangeRecord rec, AtomicInteger curr, int total,
-                                   java.util.Map<String, MultiThreadTaskEstimator> localEstimatorMap, AtomicBoolean anyChange,
-                                   String finalRootPath, AtomicInteger globalExecutedCount,
-                                   java.util.Map<String, AtomicInteger> executedCountByRootPath) {
+    /**
+     * 执行单个任务，调用方已持有该任务原始文件的锁
+     */
+    private void executeSingleTask(ChangeRecord rec, ExecutionSession session, String finalRootPath) {
         synchronized (rec) {
-            if (rec.getStatus() == ExecStatus.PENDING &&
-                    !FileLockManagerUtil.isLocked(rec.getFileHandle())) {
-                if (!FileLockManagerUtil.lock(rec.getFileHandle())) {
-                    return;
-                }
-                // 对原始文件加逻辑锁，避免并发操作同一个文件
-                rec.setStatus(ExecStatus.RUNNING);
-                anyChange.set(true);
-                threadTaskEstimator.oneStarted();
-                // 更新根路径估算器
-                MultiThreadTaskEstimator rootEstimator = localEstimatorMap.get(finalRootPath);
-                if (rootEstimator != null) {
-                    rootEstimator.oneStarted();
-                }
-                // 计数器已在任务提交前增加，这里不再重复增加
-            } else {
+            if (rec.getStatus() != ExecStatus.PENDING) {
                 return;
             }
+            rec.setStatus(ExecStatus.RUNNING);
+            session.estimator.oneStarted();
+            // 更新根路径估算器
+            MultiThreadTaskEstimator rootEstimator = localEstimatorMap.get(finalRootPath);
+            if (rootEstimator != null) {
+                rootEstimator.oneStarted();
+            }
         }
 
+        // 执行前记录源文件大小，执行后源文件可能已被移动或删除
+        long bytes = rec.getFileHandle().isFile() ? rec.getFileHandle().length() : 0;
         try {
             // 执行策略
             IAppStrategy s = AppStrategyFactory.findStrategyForOp(rec.getOpType(), app.getPipelineStrategies());
-            app.log("▶ 开始处理: " + rec.getFileHandle().getAbsolutePath() + "，操作类型：" + rec.getOpType().getName() + ",目标路径：" + rec.getNewName());
+            session.logger.started(rec);
             if (s != null) {
-                s.execute(rec);
+                long start = System.currentTimeMillis();
+                s.execute(rec, session.token);
                 rec.setStatus(ExecStatus.SUCCESS);
-                app.log("✅️ 成功处理: " + rec.getFileHandle().getAbsolutePath() + "，操作类型：" + rec.getOpType().getName() + ",目标路径：" + rec.getNewName());
+                long millis = System.currentTimeMillis() - start;
+                // 修正耗时估算，供后续调度排序
+                threadPoolManager.getCostModel().record(rec, bytes, millis);
+                session.logger.succeeded(rec, millis);
             } else {
                 rec.setFailReason("没找到对应的执行节点，请检查代码实现！！！");
                 rec.setStatus(ExecStatus.SKIPPED);
+                session.logger.skipped(rec);
             }
+        } catch (CancellationException e) {
+            rec.setFailReason("执行被停止，已清理未完成的输出");
+            rec.setStatus(ExecStatus.SKIPPED);
+            session.logger.stopped(rec);
         } catch (Exception e) {
             rec.setStatus(ExecStatus.FAILED);
             rec.setFailReason(e.getMessage());
-            app.logError("❌ 失败处理: " + rec.getFileHandle().getAbsolutePath() + "，操作类型：" + rec.getOpType().getName() + ",目标路径：" + rec.getNewName() + ",原因" + e.getMessage());
-            app.logError("❌ 失败详细原因:" + e.getMessage());
+            session.logger.failed(rec, e);
         } finally {
-            completeSingleTask(rec, curr, total, localEstimatorMap, finalRootPath);
+            completeSingleTask(session, finalRootPath, bytes);
         }
     }
 
-    private void completeSingleTask(ChangeRecord rec, AtomicInteger curr, int total,
-                                    java.util.Map<String, MultiThreadTaskEstimator> localEstimatorMap, String finalRootPath) {
-        threadTaskEstimator.oneCompleted();
+    private void completeSingleTask(ExecutionSession session, String finalRootPath, long bytes) {
+        session.curr.incrementAndGet();
+        session.estimator.oneCompleted(bytes);
         // 更新根路径估算器
         MultiThreadTaskEstimator rootEstimator = localEstimatorMap.get(finalRootPath);
         if (rootEstimator != null) {
-            rootEstimator.oneCompleted();
+            rootEstimator.oneCompleted(bytes);
         }
-        // 文件解锁
-        FileLockManagerUtil.unlock(rec.getFileHandle());
         if (System.currentTimeMillis() - lastRefresh.get() > 1000) {
             lastRefresh.set(System.currentTimeMillis());
-            app.setRunningUI("▶ ▶ ▶ 执行任务进度: " + threadTaskEstimator.getDisplayInfo());
+            app.setRunningUI("▶ ▶ ▶ 执行任务进度: " + session.estimator.getDisplayInfo());
             app.refreshPreviewTableFilter();
             // 更新根路径进度UI
             app.getPreviewView().updateRootPathProgress();
         }
     }
 
+
     private void setStartTaskUI(String msg, Task<?> task) {
         app.changeStopButton(true);
         isTaskRunning.set(true);
@@ -489,6 +1033,15 @@ public class PipelineManager {
             if (currentTask != null) {
                 currentTask.cancel();
             }
+            // 先结束外部进程、关闭流，正在执行的任务随之退出
+            CancellationToken token = currentCancellation;
+            if (token != null) {
+                token.cancel();
+            }
+            ExecutionScheduler scheduler = currentScheduler;
+            if (scheduler != null) {
+                scheduler.cancel();
+            }
             threadPoolManager.shutdownAll();
             app.log("🛑 强制停止");
             setFinishTaskUI("🛑 🛑 🛑 已停止 🛑 🛑 🛑", TaskStatus.CANCELED);
@@ -498,4 +1051,12 @@ public class PipelineManager {
     public MultiThreadTaskEstimator getRootPathEstimator(String rootPath) {
         return this.localEstimatorMap.get(rootPath);
     }
+
+    /**
+     * 获取根路径当前的线程数自动调优状态，未开启调优时返回 null
+     */
+    public String getRootPathTuningStatus(String rootPath) {
+        AdaptiveConcurrencyController tuner = currentTuner;
+        return tuner != null ? tuner.getRootStatus(rootPath) : null;
+    }
 }
\ No newline at end of file
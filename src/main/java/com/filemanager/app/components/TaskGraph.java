@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.components;
+
+import com.filemanager.model.ChangeRecord;
+import com.filemanager.type.OperationType;
+import lombok.Getter;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 执行任务依赖图（DAG），在分析阶段构建，执行阶段按拓扑顺序调度
+ * <p>
+ * 依赖规则：
+ * 1. 同一源文件：只读任务（转换、切分）之间互不依赖可并行；
+ * 修改源文件的任务（重命名、移动、删除等）要等前面所有读取该文件的任务完成，只读任务也要等前一个修改任务完成。
+ * 2. 链式处理：以 intermediateFile 为源的任务依赖产出该文件的任务（上一步）。
+ * 3. 目录：修改目录的任务依赖该目录下所有文件的任务。
+ * <p>
+ * 流式执行时通过 append 边分析边追加节点，新节点只依赖已有节点；
+ * 修改目录的任务和依赖中间文件的任务需要等全部节点到齐后再追加，见 isDeferredForStreaming。
+ */
+public class TaskGraph {
+
+    @Getter
+    private final List<Node> nodes = new ArrayList<>();
+    @Getter
+    private int edgeCount = 0;
+    // 为打破环去掉的依赖，供调用方输出日志
+    @Getter
+    private final List<String> brokenEdges = new ArrayList<>();
+    // 构建状态，流式追加时继续使用
+    private final Map<String, SourceState> sourceStates = new HashMap<>();
+    private final Map<String, Node> producerByTarget = new HashMap<>();
+    private final TreeMap<String, List<Node>> nodesBySource = new TreeMap<>();
+
+    /**
+     * 按列表顺序构建依赖图，只收录需要执行的记录
+     */
+    public static TaskGraph build(List<ChangeRecord> records) {
+        TaskGraph graph = new TaskGraph();
+        List<Node> directoryNodes = new ArrayList<>();
+
+        for (ChangeRecord rec : records) {
+            Node node = graph.addNode(rec);
+            if (node != null && isDirectoryWriter(rec)) {
+                directoryNodes.add(node);
+            }
+        }
+
+        // 规则2：链式处理，上一步产出的中间文件 -> 下一步
+        for (Node node : graph.nodes) {
+            graph.linkIntermediate(node);
+        }
+
+        // 规则3：目录下所有任务 -> 修改该目录的任务
+        for (Node dirNode : directoryNodes) {
+            graph.linkDirectory(dirNode);
+        }
+
+        graph.breakCycles();
+        return graph;
+    }
+
+    /**
+     * 流式追加记录，新节点只依赖已有节点，不会产生环
+     *
+     * @param records 新分析完成的记录
+     * @param ready   输出：追加后立即就绪（没有未完成前置任务）的节点
+     * @return 追加的节点数
+     */
+    public synchronized int append(List<ChangeRecord> records, List<Node> ready) {
+        int added = 0;
+        for (ChangeRecord rec : records) {
+            Node node = addNode(rec);
+            if (node == null) {
+                continue;
+            }
+            added++;
+            linkIntermediate(node);
+            if (isDirectoryWriter(rec)) {
+                linkDirectory(node);
+            }
+            // 已完成的前置任务不再计入
+            node.pending = (int) node.predecessors.stream().filter(pred -> !pred.finished).count();
+            if (node.pending == 0) {
+                ready.add(node);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * 流式执行时需要等所有记录到齐再追加的记录：
+     * 修改目录的任务要依赖目录下所有任务，依赖中间文件的任务的上一步可能还没分析出来
+     */
+    public static boolean isDeferredForStreaming(ChangeRecord rec) {
+        return isDirectoryWriter(rec) || rec.getIntermediateFile() != null;
+    }
+
+    private static boolean isDirectoryWriter(ChangeRecord rec) {
+        return !isSourceReader(rec) && rec.isDirectory();
+    }
+
+    /**
+     * 创建节点并按规则1连接同一源文件上的前置任务，不需要执行的记录返回 null
+     */
+    private Node addNode(ChangeRecord rec) {
+        if (!rec.isChanged() || rec.getOpType() == OperationType.NONE) {
+            return null;
+        }
+        Node node = new Node(rec, nodes.size());
+        nodes.add(node);
+        String sourceKey = node.sourceKey;
+        nodesBySource.computeIfAbsent(sourceKey, k -> new ArrayList<>()).add(node);
+        if (rec.getNewPath() != null) {
+            producerByTarget.putIfAbsent(rec.getNewPath(), node);
+        }
+
+        // 规则1：同一源文件的读写顺序
+        SourceState state = sourceStates.computeIfAbsent(sourceKey, k -> new SourceState());
+        addEdge(state.lastWriter, node);
+        if (isSourceReader(rec)) {
+            state.readers.add(node);
+        } else {
+            for (Node reader : state.readers) {
+                addEdge(reader, node);
+            }
+            state.readers.clear();
+            state.lastWriter = node;
+        }
+        return node;
+    }
+
+    private void linkIntermediate(Node node) {
+        File intermediate = node.record.getIntermediateFile();
+        if (intermediate != null) {
+            addEdge(producerByTarget.get(intermediate.getAbsolutePath()), node);
+        }
+    }
+
+    private void linkDirectory(Node dirNode) {
+        String prefix = dirNode.sourceKey + File.separator;
+        for (List<Node> children : nodesBySource.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            for (Node child : children) {
+                addEdge(child, dirNode);
+            }
+        }
+    }
+
+    /**
+     * 只读源文件、输出到其他位置的操作
+     */
+    public static boolean isSourceReader(ChangeRecord rec) {
+        return rec.getOpType() == OperationType.CONVERT || rec.getOpType() == OperationType.SPLIT;
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 重置运行状态，返回入度为 0 的节点
+     */
+    public synchronized List<Node> reset() {
+        List<Node> ready = new ArrayList<>();
+        for (Node node : nodes) {
+            node.pending = node.predecessors.size();
+            node.finished = false;
+            if (node.pending == 0) {
+                ready.add(node);
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * 标记节点完成，返回因此变为就绪的后继节点
+     */
+    public synchronized List<Node> complete(Node node) {
+        if (node.finished) {
+            return Collections.emptyList();
+        }
+        node.finished = true;
+        List<Node> ready = new ArrayList<>();
+        for (Node next : node.successors) {
+            if (--next.pending == 0 && !next.finished) {
+                ready.add(next);
+            }
+        }
+        return ready;
+    }
+
+    private void addEdge(Node from, Node to) {
+        if (from == null || from == to) {
+            return;
+        }
+        if (from.successors.add(to)) {
+            to.predecessors.add(from);
+            edgeCount++;
+        }
+    }
+
+    /**
+     * 异常数据可能形成环，只去掉环内（同一强连通分量内）节点之间的依赖，避免调度永远等待；
+     * 环下游的节点仍保留对环上节点的依赖
+     */
+    private void breakCycles() {
+        // 先用拓扑排序去掉不在环上、也不在环下游的节点，通常所有节点都在这一步去掉
+        int[] inDegree = new int[nodes.size()];
+        Deque<Node> queue = new ArrayDeque<>();
+        for (Node node : nodes) {
+            inDegree[node.index] = node.predecessors.size();
+            if (node.predecessors.isEmpty()) {
+                queue.add(node);
+            }
+        }
+        int remaining = nodes.size();
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            inDegree[node.index] = -1;
+            remaining--;
+            for (Node next : node.successors) {
+                if (--inDegree[next.index] == 0) {
+                    queue.add(next);
+                }
+            }
+        }
+        if (remaining == 0) {
+            return;
+        }
+        // 剩下的节点中找出强连通分量，分量内的边就是环上的边
+        int[] component = findComponents(inDegree);
+        for (Node node : nodes) {
+            if (inDegree[node.index] < 0) {
+                continue;
+            }
+            for (Iterator<Node> it = node.successors.iterator(); it.hasNext(); ) {
+                Node next = it.next();
+                if (component[next.index] == component[node.index]) {
+                    it.remove();
+                    next.predecessors.remove(node);
+                    edgeCount--;
+                    brokenEdges.add(node.sourceKey + "（" + node.record.getOpType().getName() + "） -> "
+                            + next.sourceKey + "（" + next.record.getOpType().getName() + "）");
+                }
+            }
+        }
+    }
+
+    /**
+     * Tarjan 算法（非递归）求强连通分量，只处理 inDegree 不为 -1 的节点
+     *
+     * @return 各节点所属分量的编号，按节点序号索引
+     */
+    private int[] findComponents(int[] inDegree) {
+        int size = nodes.size();
+        int[] order = new int[size];
+        int[] low = new int[size];
+        int[] component = new int[size];
+        Arrays.fill(order, -1);
+        Arrays.fill(component, -1);
+        boolean[] onStack = new boolean[size];
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Node> callStack = new ArrayDeque<>();
+        Deque<Iterator<Node>> iterators = new ArrayDeque<>();
+        int counter = 0;
+        int components = 0;
+        for (Node root : nodes) {
+            if (inDegree[root.index] < 0 || order[root.index] >= 0) {
+                continue;
+            }
+            order[root.index] = low[root.index] = counter++;
+            stack.push(root);
+            onStack[root.index] = true;
+            callStack.push(root);
+            iterators.push(root.successors.iterator());
+            while (!callStack.isEmpty()) {
+                Node node = callStack.peek();
+                Iterator<Node> it = iterators.peek();
+                if (it.hasNext()) {
+                    Node next = it.next();
+                    if (inDegree[next.index] < 0) {
+                        continue;
+                    }
+                    if (order[next.index] < 0) {
+                        order[next.index] = low[next.index] = counter++;
+                        stack.push(next);
+                        onStack[next.index] = true;
+                        callStack.push(next);
+                        iterators.push(next.successors.iterator());
+                    } else if (onStack[next.index]) {
+                        low[node.index] = Math.min(low[node.index], order[next.index]);
+                    }
+                    continue;
+                }
+                callStack.pop();
+                iterators.pop();
+                if (!callStack.isEmpty()) {
+                    Node parent = callStack.peek();
+                    low[parent.index] = Math.min(low[parent.index], low[node.index]);
+                }
+                if (low[node.index] == order[node.index]) {
+                    Node member;
+                    do {
+                        member = stack.pop();
+                        onStack[member.index] = false;
+                        component[member.index] = components;
+                    } while (member != node);
+                    components++;
+                }
+            }
+        }
+        return component;
+    }
+
+    private static class SourceState {
+        private Node lastWriter;
+        private final List<Node> readers = new ArrayList<>();
+    }
+
+    /**
+     * 依赖图节点
+     */
+    public static class Node {
+        @Getter
+        private final ChangeRecord record;
+        @Getter
+        private final int index;
+        @Getter
+        private final String sourceKey;
+        private final Set<Node> predecessors = new LinkedHashSet<>();
+        private final Set<Node> successors = new LinkedHashSet<>();
+        // 未完成的前置任务数
+        private int pending;
+        private boolean finished;
+
+        private Node(ChangeRecord record, int index) {
+            this.record = record;
+            this.index = index;
+            this.sourceKey = record.getCurrentSource().getAbsolutePath();
+        }
+
+        public Collection<Node> getSuccessors() {
+            return Collections.unmodifiableSet(successors);
+        }
+    }
+}
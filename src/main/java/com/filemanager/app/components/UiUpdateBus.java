@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.components;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 界面更新总线：工作线程不再逐条提交 Platform.runLater，由 FX 线程按固定频率统一刷新界面
+ * <ul>
+ *     <li>post：按键合并的更新，同一个键在两次刷新之间只保留最后一次提交，适合标签文字、统计、表格刷新</li>
+ *     <li>addPoller：每次刷新都执行的读取器，工作线程只更新原子计数，由读取器把当前值显示到进度条等控件</li>
+ * </ul>
+ * 每秒最多刷新 PULSE_PER_SECOND 次，无论工作线程提交多快，FX 线程的负载基本不变。所有方法都可在任意线程调用。
+ */
+public class UiUpdateBus {
+
+    private static final int PULSE_PER_SECOND = 20;
+    private static final long PULSE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / PULSE_PER_SECOND;
+
+    // 待执行的合并更新，键相同的后提交覆盖先提交
+    private final Map<String, Runnable> pending = new ConcurrentHashMap<>();
+    private final Set<Runnable> pollers = new CopyOnWriteArraySet<>();
+    private final AnimationTimer timer;
+    private long lastPulse = 0;
+
+    public UiUpdateBus() {
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (now - lastPulse < PULSE_INTERVAL_NANOS) {
+                    return;
+                }
+                lastPulse = now;
+                pulse();
+            }
+        };
+    }
+
+    /**
+     * 开始按固定频率刷新，在 FX 线程调用
+     */
+    public void start() {
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * 提交一次界面更新，下一次刷新时在 FX 线程执行；同一键在此之前未执行的更新被替换
+     *
+     * @param key    更新的目标，如 "runningLabel"
+     * @param update 更新操作
+     */
+    public void post(String key, Runnable update) {
+        pending.put(key, update);
+    }
+
+    /**
+     * 注册每次刷新都执行的读取器，任务结束后需调用 removePoller 移除
+     */
+    public void addPoller(Runnable poller) {
+        pollers.add(poller);
+    }
+
+    public void removePoller(Runnable poller) {
+        pollers.remove(poller);
+    }
+
+    private void pulse() {
+        for (String key : pending.keySet()) {
+            run(pending.remove(key));
+        }
+        for (Runnable poller : pollers) {
+            run(poller);
+        }
+    }
+
+    // 单个更新失败不影响其他更新和之后的刷新
+    private static void run(Runnable update) {
+        if (update == null) {
+            return;
+        }
+        try {
+            update.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
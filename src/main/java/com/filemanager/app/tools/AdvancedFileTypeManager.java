@@ -235,20 +235,52 @@ public class AdvancedFileTypeManager {
      */
     public boolean accept(File file) {
         if (file == null) return false;
+        // 全选时不需要判断文件类型
+        return rootItem.isSelected() || accept(file.getName(), file.isDirectory());
+    }
+
+    /**
+     * 是否选择了所有文件类型
+     */
+    public boolean isAllSelected() {
+        return rootItem.isSelected();
+    }
+
+    public boolean isFolderAccepted() {
+        return isFolderSelected.get();
+    }
+
+    public boolean isFileAccepted() {
+        return isFileSelected.get();
+    }
+
+    /**
+     * 当前接受的所有后缀（勾选的与自定义的），返回副本
+     */
+    public Set<String> getAcceptedExtensions() {
+        Set<String> result = new HashSet<>();
+        synchronized (activeExtensions) {
+            result.addAll(activeExtensions);
+        }
+        synchronized (customExtensions) {
+            result.addAll(customExtensions);
+        }
+        return result;
+    }
 
+    private boolean accept(String name, boolean directory) {
         // 1. 判断是否全选 (优化路径)
         if (rootItem.isSelected()) return true;
 
         // 2. 文件夹判断
-        if (isFolderSelected.get()&&file.isDirectory()) {
+        if (isFolderSelected.get()&&directory) {
             return true;
         }
-        if (isFileSelected.get()&&!file.isDirectory()) {
+        if (isFileSelected.get()&&!directory) {
             return true;
         }
 
         // 3. 文件后缀判断
-        String name = file.getName();
         int lastDot = name.lastIndexOf('.');
         if (lastDot > 0 && lastDot < name.length() - 1) {
             String ext = name.substring(lastDot + 1).toLowerCase();
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.tools;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 批量交接通道：多个扫描线程按批放入，多个消费线程（BatchSpliterator 拆分后的各个并行流工作线程）按批取出
+ * <p>
+ * 基于无锁队列，每批只有一次入队和出队，代替逐条经过阻塞队列的加锁交接。
+ * 积压的批次达到上限时生产端等待（背压），避免扫描远快于消费时占用过多内存。
+ * <ul>
+ *     <li>消费端和生产端各有一个等待者队列：无数据时消费线程登记后停顿，每放入一批唤醒一个等待的消费线程；
+ *     积压满时生产线程登记后停顿，每取出一批唤醒一个等待的生产线程</li>
+ *     <li>登记后会再检查一次条件才停顿，不会错过唤醒；停顿设有 MAX_PARK_NANOS 的上限，只作为兜底</li>
+ *     <li>结束或关闭时唤醒所有等待者</li>
+ * </ul>
+ */
+public class BatchChannel<T> {
+
+    // 单次停顿的上限，正常情况下由唤醒结束停顿
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final ConcurrentLinkedQueue<List<T>> batches = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger(0);
+    private final int capacity;
+    private volatile boolean finished = false;
+    private volatile boolean closed = false;
+    // 等待数据的消费线程、等待空位的生产线程
+    private final Queue<Thread> waitingConsumers = new ConcurrentLinkedQueue<>();
+    private final Queue<Thread> waitingProducers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param capacity 最多积压的批次数
+     */
+    public BatchChannel(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * 放入一批，积压达到上限时等待
+     *
+     * @return 是否放入；通道已关闭或等待时被中断返回 false
+     */
+    public boolean put(List<T> batch) {
+        while (pending.get() >= capacity) {
+            if (closed || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            await(waitingProducers, () -> pending.get() >= capacity && !closed);
+        }
+        if (closed) {
+            return false;
+        }
+        pending.incrementAndGet();
+        batches.offer(batch);
+        signal(waitingConsumers);
+        return true;
+    }
+
+    /**
+     * 取出一批，暂无数据时等待
+     *
+     * @return 下一批；生产结束且已取完、通道关闭或等待时被中断返回 null
+     */
+    public List<T> take() {
+        while (true) {
+            List<T> batch = poll();
+            if (batch != null) {
+                return batch;
+            }
+            if (finished) {
+                // 结束标记之前放入的批次可能刚刚入队
+                return poll();
+            }
+            if (closed || Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            await(waitingConsumers, () -> batches.isEmpty() && !finished);
+        }
+    }
+
+    private List<T> poll() {
+        List<T> batch = batches.poll();
+        if (batch != null) {
+            pending.decrementAndGet();
+            signal(waitingProducers);
+        }
+        return batch;
+    }
+
+    /**
+     * 登记为等待者，再次确认仍需等待后停顿，直到被唤醒或达到停顿上限
+     */
+    private void await(Queue<Thread> waiters, BooleanSupplier stillWaiting) {
+        Thread self = Thread.currentThread();
+        waiters.add(self);
+        try {
+            if (stillWaiting.getAsBoolean()) {
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            }
+        } finally {
+            waiters.remove(self);
+        }
+    }
+
+    private static void signal(Queue<Thread> waiters) {
+        Thread waiter = waiters.poll();
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private static void signalAll(Queue<Thread> waiters) {
+        Thread waiter;
+        while ((waiter = waiters.poll()) != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * 生产结束，取完剩余批次后 take 返回 null
+     */
+    public void finish() {
+        finished = true;
+        signalAll(waitingConsumers);
+    }
+
+    /**
+     * 关闭通道：丢弃积压的批次，等待中的生产端和消费端立即返回
+     */
+    public void close() {
+        closed = true;
+        batches.clear();
+        pending.set(0);
+        signalAll(waitingProducers);
+        finish();
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.tools;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 按批次拆分的 Spliterator：数据来自批量交接通道
+ * <p>
+ * 并行流拆分时每次从通道取出一整批交给其他线程处理，批次到达即开始处理，
+ * 下游的过滤、转换随扫描同时并行进行；顺序流按批次到达顺序逐条处理。
+ */
+public class BatchSpliterator<T> implements Spliterator<T> {
+
+    private final BatchChannel<T> channel;
+    private List<T> current = Collections.emptyList();
+    private int index = 0;
+
+    public BatchSpliterator(BatchChannel<T> channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (index >= current.size()) {
+            List<T> next = channel.take();
+            if (next == null) {
+                return false;
+            }
+            current = next;
+            index = 0;
+        }
+        action.accept(current.get(index++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (true) {
+            for (int size = current.size(); index < size; index++) {
+                action.accept(current.get(index));
+            }
+            List<T> next = channel.take();
+            if (next == null) {
+                return;
+            }
+            current = next;
+            index = 0;
+        }
+    }
+
+    /**
+     * 拆出当前未处理的部分或通道中的下一批，通道取完后不再拆分
+     */
+    @Override
+    public Spliterator<T> trySplit() {
+        List<T> batch;
+        if (index < current.size()) {
+            batch = current.subList(index, current.size());
+            current = Collections.emptyList();
+            index = 0;
+        } else {
+            batch = channel.take();
+        }
+        if (batch == null) {
+            return null;
+        }
+        return batch.spliterator();
+    }
+
+    @Override
+    public long estimateSize() {
+        return channel.isFinished() ? current.size() - index : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.NONNULL | Spliterator.ORDERED;
+    }
+}
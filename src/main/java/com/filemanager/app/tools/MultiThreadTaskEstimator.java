@@ -18,13 +18,15 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class MultiThreadTaskEstimator {
     // 总任务数
-    private final long totalTasks;
+    private final AtomicLong totalTasks;
     // 已完成任务数
     private final AtomicLong startTasks= new AtomicLong(0);
     // 已完成任务数
     private final AtomicLong completedTasks= new AtomicLong(0);
     // 已失败任务数
     private final AtomicLong failedTasks= new AtomicLong(0);
+    // 已完成任务处理的字节数
+    private final AtomicLong completedBytes = new AtomicLong(0);
 
 
     // 滑动窗口：用于存储最近完成任务的时间戳，计算近期吞吐量
@@ -43,7 +45,7 @@ public class MultiThreadTaskEstimator {
      * @param windowSize 样本窗口大小（建议设为线程数的 5-10 倍）
      */
     public MultiThreadTaskEstimator(long totalTasks, int windowSize) {
-        this.totalTasks = totalTasks;
+        this.totalTasks = new AtomicLong(totalTasks);
         this.windowSize = windowSize;
         this.completionWindow = new ConcurrentLinkedDeque<>();
     }
@@ -90,6 +92,17 @@ public class MultiThreadTaskEstimator {
         }
     }
 
+    /**
+     * 子任务完成时调用，同时记录处理的数据量
+     */
+    public void oneCompleted(long bytes) {
+        if (!isStarted || isFinished) return;
+        if (bytes > 0) {
+            completedBytes.addAndGet(bytes);
+        }
+        oneCompleted();
+    }
+
     public int getRunningTaskCount() {
         return startTasks.intValue() - completedTasks.intValue();
     }
@@ -119,7 +132,7 @@ public class MultiThreadTaskEstimator {
 
         long now = System.currentTimeMillis();
         long done = completedTasks.get();
-        long remaining = totalTasks - done;
+        long remaining = totalTasks.get() - done;
 
         if (remaining <= 0) return 0;
 
@@ -162,29 +175,41 @@ public class MultiThreadTaskEstimator {
         return completedTasks.get();
     }
 
+    public long getCompletedBytes() {
+        return completedBytes.get();
+    }
+
     public String getProgressPercentage() {
-        return String.format("%.2f", (double) completedTasks.get() / totalTasks * 100);
+        return String.format("%.2f", (double) completedTasks.get() / totalTasks.get() * 100);
     }
 
     /**
      * 获取进度值 (0.0 到 1.0)
      */
     public double getProgress() {
-        if (totalTasks == 0) {
+        long total = totalTasks.get();
+        if (total == 0) {
             return 0.0;
         }
-        return Math.min(1.0, (double) completedTasks.get() / totalTasks);
+        return Math.min(1.0, (double) completedTasks.get() / total);
     }
     
     /**
      * 获取总任务数
      */
     public long getTotalTasks() {
-        return totalTasks;
+        return totalTasks.get();
+    }
+
+    /**
+     * 追加总任务数（流式执行时任务陆续加入）
+     */
+    public void addTotalTasks(long count) {
+        totalTasks.addAndGet(count);
     }
     
     public String getDisplayInfo() {
-        return " 总共：" + totalTasks
+        return " 总共：" + totalTasks.get()
                 + " 已处理:" + completedTasks.get()
                 + " 耗时:" + MultiThreadTaskEstimator.formatDuration(System.currentTimeMillis() - startTime)
                 + " 进度:" + getProgressPercentage()
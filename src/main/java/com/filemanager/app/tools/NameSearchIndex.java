@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.tools;
+
+import com.filemanager.util.LanguageUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 名称关键词搜索索引：标准化名称的三字组倒排表
+ * <p>
+ * 名称和关键词都按 LanguageUtil.toSearchKey 标准化（去空格、全角转半角、繁体转简体、转大写）。
+ * 每个三字组记录包含它的记录编号，搜索时取关键词所有三字组的倒排表求交集，结果是候选编号的位图，
+ * 可直接与其他筛选条件的位图求交；候选记录仍需用 contains 确认，三字组都出现不代表连续出现。
+ * <ul>
+ *     <li>记录编号需按递增顺序加入，倒排表天然有序，不需要排序</li>
+ *     <li>不足三个字的关键词无法用索引缩小范围，search 返回 null，由调用方逐条比较</li>
+ * </ul>
+ * 非线程安全，建立完成后只在一个线程中使用。
+ */
+public class NameSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int lastId = -1;
+
+    /**
+     * 标准化名称或关键词，建立索引和搜索时使用相同的规则
+     */
+    public static String normalize(String name) {
+        return LanguageUtil.toSearchKey(name);
+    }
+
+    /**
+     * 加入一条记录的名称
+     *
+     * @param id 记录编号，须大于之前加入的编号
+     */
+    public void add(int id, String name) {
+        if (id <= lastId) {
+            throw new IllegalArgumentException("记录编号须递增: " + id + " <= " + lastId);
+        }
+        lastId = id;
+        String key = normalize(name);
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            // 同一名称中重复的三字组只记录一次：编号相同时跳过
+            postings.computeIfAbsent(gram(key, i), k -> new Postings()).add(id);
+        }
+    }
+
+    /**
+     * 查找名称中包含关键词所有三字组的记录
+     *
+     * @param key 已标准化的关键词
+     * @return 候选记录编号；关键词不足三个字时返回 null
+     */
+    public BitSet search(String key) {
+        if (key.length() < GRAM) {
+            return null;
+        }
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            grams.add(gram(key, i));
+        }
+        List<Postings> lists = new ArrayList<>(grams.size());
+        for (Long g : grams) {
+            Postings p = postings.get(g);
+            if (p == null) {
+                return new BitSet();
+            }
+            lists.add(p);
+        }
+        // 从最短的倒排表开始求交集，候选数只会越来越少
+        lists.sort(Comparator.comparingInt(p -> p.count));
+        int[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).count);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            size = lists.get(i).retain(result, size);
+        }
+        BitSet bits = new BitSet(size > 0 ? result[size - 1] + 1 : 0);
+        for (int i = 0; i < size; i++) {
+            bits.set(result[i]);
+        }
+        return bits;
+    }
+
+    /**
+     * 建立完成后释放倒排表的空余容量
+     */
+    public void trim() {
+        postings.values().forEach(Postings::trim);
+    }
+
+    // 三个 UTF-16 字符拼成一个 long
+    private static long gram(String key, int start) {
+        return ((long) key.charAt(start) << 32) | ((long) key.charAt(start + 1) << 16) | key.charAt(start + 2);
+    }
+
+    private static class Postings {
+        private int[] ids = new int[2];
+        private int count = 0;
+
+        private void add(int id) {
+            if (count > 0 && ids[count - 1] == id) {
+                return;
+            }
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count + (count >> 1) + 1);
+            }
+            ids[count++] = id;
+        }
+
+        /**
+         * 只保留同时出现在本倒排表中的编号，返回保留后的数量
+         */
+        private int retain(int[] candidates, int size) {
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < size && from < count; i++) {
+                int pos = Arrays.binarySearch(ids, from, count, candidates[i]);
+                if (pos >= 0) {
+                    candidates[kept++] = candidates[i];
+                    from = pos + 1;
+                } else {
+                    from = -pos - 1;
+                }
+            }
+            return kept;
+        }
+
+        private void trim() {
+            if (ids.length > count) {
+                ids = Arrays.copyOf(ids, count);
+            }
+        }
+    }
+}
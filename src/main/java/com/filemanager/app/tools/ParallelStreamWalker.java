@@ -9,20 +9,17 @@
  */
 package com.filemanager.app.tools;
 
+import com.filemanager.model.ScannedEntry;
 import lombok.var;
 
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Spliterator;
-import java.util.Spliterators;
-import java.util.concurrent.BlockingQueue;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -34,9 +31,10 @@ import java.util.stream.StreamSupport;
  */
 public class ParallelStreamWalker {
 
-    // 结束标记（毒丸）：使用一个特殊的、不可能存在的Path对象作为标记
-    // 这样BlockingQueue中只存储Path类型，避免了泛型混淆。
-    private static final Path END_MARKER = Paths.get("___END_OF_SCANNING_MARKER___");
+    // 每批条目数：扫描线程按目录攒够一批再交给消费端，减少交接次数
+    private static final int BATCH_SIZE = 256;
+    // 最多积压的批次数
+    private static final int CHANNEL_CAPACITY = 16;
 
     /**
      * 并发扫描目录并返回 Stream<File>
@@ -47,131 +45,175 @@ public class ParallelStreamWalker {
      * @return Stream<File> (流的顺序是随机的)
      */
     public static Stream<Path> walk(Path root, int minDepth, int maxDepth, AtomicInteger globalLimitRemaining, AtomicInteger dirLimitRemaining, int parallelism, AtomicBoolean isTaskRunning) {
-        // 1. 创建阻塞队列作为缓冲区，只存储Path类型
-        BlockingQueue<Path> queue = new LinkedBlockingQueue<>(1024);
+        return walk(root, minDepth, maxDepth, globalLimitRemaining, dirLimitRemaining, parallelism, isTaskRunning, null);
+    }
+
+    /**
+     * 并发扫描目录，使用增量扫描索引：目录未变化时直接使用索引中记录的内容
+     *
+     * @param index 扫描索引，为 null 时每个目录都重新读取
+     */
+    public static Stream<Path> walk(Path root, int minDepth, int maxDepth, AtomicInteger globalLimitRemaining, AtomicInteger dirLimitRemaining, int parallelism, AtomicBoolean isTaskRunning, ScanIndex index) {
+        return walkEntries(root, minDepth, maxDepth, globalLimitRemaining, dirLimitRemaining, parallelism, isTaskRunning, index, null)
+                .map(ScannedEntry::getPath);
+    }
+
+    /**
+     * 并发扫描目录，返回带属性快照的条目：读取目录时每个条目只读取一次属性，后续环节直接使用
+     *
+     * @param index  扫描索引，为 null 时每个目录都重新读取
+     * @param filter 扫描过滤器，在遍历线程中排除目录、过滤条目，为 null 时不过滤
+     */
+    public static Stream<ScannedEntry> walkEntries(Path root, int minDepth, int maxDepth, AtomicInteger globalLimitRemaining, AtomicInteger dirLimitRemaining, int parallelism, AtomicBoolean isTaskRunning, ScanIndex index, ScanFilter filter) {
+        return walkEntries(root, minDepth, maxDepth, globalLimitRemaining, dirLimitRemaining, new ForkJoinPool(parallelism), true, isTaskRunning, index, filter);
+    }
+
+    /**
+     * 在调用方提供的线程池中扫描目录，同一设备上的多个根路径可共用一个线程池；流关闭时只停止本次扫描，不关闭线程池
+     *
+     * @param pool   扫描线程池
+     * @param index  扫描索引，为 null 时每个目录都重新读取
+     * @param filter 扫描过滤器，为 null 时不过滤
+     */
+    public static Stream<ScannedEntry> walkEntries(Path root, int minDepth, int maxDepth, AtomicInteger globalLimitRemaining, AtomicInteger dirLimitRemaining, ForkJoinPool pool, AtomicBoolean isTaskRunning, ScanIndex index, ScanFilter filter) {
+        return walkEntries(root, minDepth, maxDepth, globalLimitRemaining, dirLimitRemaining, pool, false, isTaskRunning, index, filter);
+    }
 
-        // 2. 创建线程池
-        ForkJoinPool pool = new ForkJoinPool(parallelism);
+    private static Stream<ScannedEntry> walkEntries(Path root, int minDepth, int maxDepth, AtomicInteger globalLimitRemaining, AtomicInteger dirLimitRemaining, ForkJoinPool pool, boolean ownsPool, AtomicBoolean isTaskRunning, ScanIndex index, ScanFilter filter) {
+        // 1. 创建批量交接通道
+        BatchChannel<ScannedEntry> channel = new BatchChannel<>(CHANNEL_CAPACITY);
+        // 本次扫描是否仍在进行，流关闭后置为 false
+        AtomicBoolean walking = new AtomicBoolean(true);
 
-        // 3. 启动后台扫描任务
+        // 2~3. 启动后台扫描任务
         pool.submit(() -> {
             try {
                 // 执行递归扫描
-                pool.invoke(new FileWalkAction(root, 0, minDepth, maxDepth, globalLimitRemaining, dirLimitRemaining, queue, isTaskRunning));
+                new FileWalkAction(ScannedEntry.lazy(root), 0, minDepth, maxDepth, globalLimitRemaining, dirLimitRemaining, channel, isTaskRunning, walking, index, filter).invoke();
             } finally {
-                // 扫描结束（无论成功失败），放入结束标记
-                offerMarker(queue);
+                // 扫描结束（无论成功失败），消费端取完剩余批次后结束
+                channel.finish();
             }
         });
 
-        // 4. 将队列转换为 Iterator<File>
-        Iterator<Path> fileIterator = new Iterator() {
-            private Path nextFile;
-            private boolean finished = false;
-
-            @Override
-            public boolean hasNext() {
-                if (nextFile != null) return true;
-                if (finished) return false;
-
-                try {
-                    // 阻塞等待，直到有数据或收到结束标记
-                    Path item = queue.take();
-
-                    // 检查是否是结束标记
-                    if (item == END_MARKER) {
-                        finished = true;
-                        return false;
-                    }
-
-                    // 将 Path 转换为 File
-                    nextFile = item;
-                    return true;
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    finished = true;
-                    return false;
-                }
-            }
-
-            @Override
-            public Path next() {
-                if (!hasNext()) throw new java.util.NoSuchElementException();
-                Path result = nextFile;
-                nextFile = null;
-                return result;
+        // 4~5. 按批次拆分的 Stream：调用 parallel() 后下游可随扫描并行处理
+        return StreamSupport.stream(new BatchSpliterator<>(channel), false).onClose(() -> {
+            // 6. 当 Stream 关闭时停止后台扫描：关闭通道，等待中的扫描线程立即返回并看到停止标记，
+            // 自建的线程池随之强制关闭
+            walking.set(false);
+            channel.close();
+            if (ownsPool) {
+                pool.shutdownNow();
             }
-        };
-
-        // 5. 将 Iterator 转换为 Stream<File>
-        return StreamSupport.stream(
-                Spliterators.spliteratorUnknownSize(fileIterator, Spliterator.NONNULL | Spliterator.ORDERED),
-                false // 不在 Stream 管道中并行处理，因为数据源已经是并发的
-        ).onClose(() -> {
-            // 6. 当 Stream 关闭时，强制关闭线程池，停止后台扫描
-            pool.shutdownNow();
         });
     }
 
-    // 辅助方法：放入结束标记
-    private static void offerMarker(BlockingQueue<Path> queue) {
-        try {
-            // 使用 put() 确保标记一定能放入队列
-            queue.put(END_MARKER);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
     // 递归任务类
     private static class FileWalkAction extends RecursiveAction {
-        private final Path dir;
+        private final ScannedEntry dir;
         private final int currentDepth;
         private final int minDepth;
         private final int depthRemaining;
-        private final BlockingQueue<Path> queue;
+        private final BatchChannel<ScannedEntry> channel;
         private final AtomicBoolean isTaskRunning;
+        private final AtomicBoolean walking;
         private final AtomicInteger globalLimitRemaining;
         private final AtomicInteger dirLimitRemaining;
+        private final ScanIndex index;
+        private final ScanFilter filter;
+        // 当前目录攒下的条目，只在本任务的 compute 中使用
+        private List<ScannedEntry> batch;
 
-        public FileWalkAction(Path dir, int currentDepth, int minDepth, int depthRemaining, AtomicInteger globalLimitRemaining, AtomicInteger dirLimitRemaining, BlockingQueue<Path> queue, AtomicBoolean isTaskRunning) {
+        public FileWalkAction(ScannedEntry dir, int currentDepth, int minDepth, int depthRemaining, AtomicInteger globalLimitRemaining, AtomicInteger dirLimitRemaining, BatchChannel<ScannedEntry> channel, AtomicBoolean isTaskRunning, AtomicBoolean walking, ScanIndex index, ScanFilter filter) {
             this.dir = dir;
             this.currentDepth = currentDepth;
             this.minDepth = minDepth;
             this.depthRemaining = depthRemaining;
-            this.queue = queue;
+            this.channel = channel;
             this.isTaskRunning = isTaskRunning;
+            this.walking = walking;
             this.globalLimitRemaining = globalLimitRemaining;
             this.dirLimitRemaining = dirLimitRemaining;
+            this.index = index;
+            this.filter = filter;
         }
 
         @Override
         protected void compute() {
-            if (this.currentDepth >= minDepth) {
-                // 尝试将当前目录放入队列
+            if (this.currentDepth >= minDepth && accepts(dir)) {
+                // 尝试将当前目录放入批次
                 putAndCheckLimit(dir);
             }
-            if (depthRemaining <= 0 || !isTaskRunning.get() || reachedLimit()) return;
+            List<FileWalkAction> subTasks = depthRemaining <= 0 || !isRunning() || reachedLimit()
+                    ? Collections.emptyList() : listDir();
+            // 先交出本目录的条目再处理子目录，保证目录排在其下内容之前
+            flush();
+            if (!subTasks.isEmpty()) {
+                invokeAll(subTasks);
+            }
+        }
 
+        /**
+         * 读取目录：文件放入批次，返回子目录任务
+         */
+        private List<FileWalkAction> listDir() {
             var subTasks = new ArrayList<FileWalkAction>();
-            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
-                for (Path entry : stream) {
-                    if (Files.isDirectory(entry)) {
-                        subTasks.add(new FileWalkAction(entry, currentDepth + 1, minDepth, depthRemaining - 1, globalLimitRemaining, dirLimitRemaining, queue, isTaskRunning));
-                    } else if (this.currentDepth >= minDepth) {
-                        // 是文件，直接放入队列
-                        putAndCheckLimit(entry);
+            if (index != null) {
+                try {
+                    ScanIndex.Contents contents = index.list(dir.getPath());
+                    for (ScannedEntry subDir : contents.getDirs()) {
+                        if (!isPruned(subDir)) {
+                            subTasks.add(newSubTask(subDir));
+                        }
+                    }
+                    if (this.currentDepth >= minDepth) {
+                        for (ScannedEntry file : contents.getFiles()) {
+                            if (accepts(file)) {
+                                putAndCheckLimit(file);
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    // 忽略访问权限异常或IO错误
+                }
+            } else {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.getPath())) {
+                    for (Path path : stream) {
+                        // 每个条目只读取一次属性，判断类型并随条目传给后续环节
+                        ScannedEntry entry = ScannedEntry.read(path);
+                        if (entry.isDirectory()) {
+                            if (!isPruned(entry)) {
+                                subTasks.add(newSubTask(entry));
+                            }
+                        } else if (this.currentDepth >= minDepth && accepts(entry)) {
+                            // 是文件，放入批次
+                            putAndCheckLimit(entry);
+                        }
                     }
+                } catch (IOException e) {
+                    // 忽略访问权限异常或IO错误
                 }
-            } catch (IOException e) {
-                // 忽略访问权限异常或IO错误
             }
+            return subTasks;
+        }
 
-            if (!subTasks.isEmpty()) {
-                invokeAll(subTasks);
-            }
+        private FileWalkAction newSubTask(ScannedEntry subDir) {
+            return new FileWalkAction(subDir, currentDepth + 1, minDepth, depthRemaining - 1, globalLimitRemaining, dirLimitRemaining, channel, isTaskRunning, walking, index, filter);
         }
 
+        // 被排除的目录连同子树不再遍历，也不计入数量限制
+        private boolean isPruned(ScannedEntry subDir) {
+            return filter != null && filter.isPruned(subDir);
+        }
+
+        // 不符合过滤条件的条目不放入队列，也不计入数量限制
+        private boolean accepts(ScannedEntry entry) {
+            return filter == null || filter.accept(entry);
+        }
+
+        private boolean isRunning() {
+            return isTaskRunning.get() && walking.get();
+        }
 
         private boolean reachedLimit() {
             if (globalLimitRemaining.get() < 0) {
@@ -180,19 +222,37 @@ public class ParallelStreamWalker {
             return dirLimitRemaining.get() < 0;
         }
 
-        private boolean putAndCheckLimit(Path entry) {
-            if (globalLimitRemaining.decrementAndGet() < 0) {
+        private boolean putAndCheckLimit(ScannedEntry entry) {
+            if (!walking.get()) {
                 return false;
             }
+            // 先扣根路径的额度：根路径额度用完时不再占用全局额度，并发扫描的其他根路径仍可使用
             if (dirLimitRemaining.decrementAndGet() < 0) {
                 return false;
             }
-            try {
-                queue.put(entry);
-            } catch (InterruptedException e) {
-                return true; // 退出
+            if (globalLimitRemaining.decrementAndGet() < 0) {
+                return false;
+            }
+            if (batch == null) {
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+            batch.add(entry);
+            if (batch.size() >= BATCH_SIZE) {
+                flush();
             }
             return true;
         }
+
+        // 交出攒下的条目；通道已关闭时丢弃并停止本次扫描
+        private void flush() {
+            if (batch == null) {
+                return;
+            }
+            List<ScannedEntry> full = batch;
+            batch = null;
+            if (!channel.put(full)) {
+                walking.set(false);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.tools;
+
+import com.filemanager.model.ScannedEntry;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 扫描过滤器：扫描开始前把界面上的过滤条件编译成不可变的规则，在目录遍历线程中直接使用
+ * <ul>
+ *     <li>排除目录：匹配的目录连同其下所有内容都不再遍历</li>
+ *     <li>文件类型：与文件类型管理器的规则一致，不符合的条目不进入扫描结果，但目录仍会继续遍历</li>
+ *     <li>文件大小：只作用于文件，0 表示不限制</li>
+ * </ul>
+ * 排除规则为通配符，逗号分隔，不区分大小写：* 匹配任意字符（不含路径分隔符），** 匹配任意层级，? 匹配单个字符；
+ * 含 / 的规则匹配相对根路径的路径，否则匹配目录名
+ */
+public class ScanFilter {
+
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final Path root;
+    private final boolean acceptAllTypes;
+    private final boolean acceptDirs;
+    private final boolean acceptFiles;
+    private final Set<String> extensions;
+    private final List<Pattern> pruneNames = new ArrayList<>();
+    private final List<Pattern> prunePaths = new ArrayList<>();
+    private final long minSize;
+    private final long maxSize;
+    // 被过滤的条目数、被排除的目录数（本次扫描）
+    @Getter
+    private final AtomicInteger rejected = new AtomicInteger(0);
+    @Getter
+    private final AtomicInteger prunedDirs = new AtomicInteger(0);
+
+    /**
+     * @param root           扫描根路径，用于计算相对路径
+     * @param acceptAllTypes 是否接受所有类型
+     * @param acceptDirs     是否接受目录
+     * @param acceptFiles    是否接受所有文件
+     * @param extensions     接受的后缀（小写，不含点）
+     * @param pruneGlobs     排除目录规则，逗号分隔
+     * @param minSizeMb      最小文件大小（MB），0 不限制
+     * @param maxSizeMb      最大文件大小（MB），0 不限制
+     */
+    public ScanFilter(Path root, boolean acceptAllTypes, boolean acceptDirs, boolean acceptFiles, Set<String> extensions,
+                      String pruneGlobs, double minSizeMb, double maxSizeMb) {
+        this.root = root;
+        this.acceptAllTypes = acceptAllTypes;
+        this.acceptDirs = acceptDirs;
+        this.acceptFiles = acceptFiles;
+        this.extensions = Collections.unmodifiableSet(new HashSet<>(extensions));
+        this.minSize = (long) (Math.max(0, minSizeMb) * BYTES_PER_MB);
+        this.maxSize = (long) (Math.max(0, maxSizeMb) * BYTES_PER_MB);
+        for (String glob : parseGlobs(pruneGlobs)) {
+            Pattern pattern = Pattern.compile(globToRegex(glob), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            if (glob.contains("/")) {
+                prunePaths.add(pattern);
+            } else {
+                pruneNames.add(pattern);
+            }
+        }
+    }
+
+    /**
+     * 目录是否排除：排除时不进入扫描结果，也不再遍历其下内容
+     */
+    public boolean isPruned(ScannedEntry dir) {
+        if (pruneNames.isEmpty() && prunePaths.isEmpty()) {
+            return false;
+        }
+        String name = dir.getFile().getName();
+        for (Pattern pattern : pruneNames) {
+            if (pattern.matcher(name).matches()) {
+                prunedDirs.incrementAndGet();
+                return true;
+            }
+        }
+        if (!prunePaths.isEmpty()) {
+            String relative = root.relativize(dir.getPath()).toString().replace('\\', '/');
+            for (Pattern pattern : prunePaths) {
+                if (pattern.matcher(relative).matches()) {
+                    prunedDirs.incrementAndGet();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 条目是否进入扫描结果
+     */
+    public boolean accept(ScannedEntry entry) {
+        if (acceptType(entry) && acceptSize(entry)) {
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    private boolean acceptType(ScannedEntry entry) {
+        if (acceptAllTypes) {
+            return true;
+        }
+        boolean directory = entry.isDirectory();
+        if (directory ? acceptDirs : acceptFiles) {
+            return true;
+        }
+        String name = entry.getFile().getName();
+        int lastDot = name.lastIndexOf('.');
+        return lastDot > 0 && lastDot < name.length() - 1
+                && extensions.contains(name.substring(lastDot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private boolean acceptSize(ScannedEntry entry) {
+        if (minSize <= 0 && maxSize <= 0) {
+            return true;
+        }
+        if (entry.isDirectory()) {
+            return true;
+        }
+        long size = entry.length();
+        return (minSize <= 0 || size >= minSize) && (maxSize <= 0 || size <= maxSize);
+    }
+
+    private static List<String> parseGlobs(String text) {
+        List<String> globs = new ArrayList<>();
+        if (text == null) {
+            return globs;
+        }
+        for (String part : text.split("[,，;；]")) {
+            String glob = part.trim().replace('\\', '/');
+            while (glob.endsWith("/")) {
+                glob = glob.substring(0, glob.length() - 1);
+            }
+            if (!glob.isEmpty()) {
+                globs.add(glob);
+            }
+        }
+        return globs;
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    sb.append(".*");
+                    i++;
+                } else {
+                    sb.append("[^/]*");
+                }
+            } else if (c == '?') {
+                sb.append("[^/]");
+            } else {
+                sb.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return sb.toString();
+    }
+}
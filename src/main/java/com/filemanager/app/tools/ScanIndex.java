@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.tools;
+
+import com.filemanager.model.ScannedEntry;
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 增量扫描索引（每个根路径一个文件）
+ * <p>
+ * 记录每个目录的修改时间、创建时间、文件标识（inode）和目录内容。再次扫描时目录属性未变则直接使用记录的内容，
+ * 省去读取目录和逐个判断条目类型；目录内新增、删除、重命名条目都会改变目录的修改时间。
+ * <ul>
+ *     <li>判断目录是否变化只比较属性是否相等，不比较先后，这一步不受本机与网络存储时钟偏差的影响</li>
+ *     <li>文件标识和创建时间用于识别被替换或移动到同一路径的其他目录</li>
+ *     <li>记录是否可信要比较先后：用本机时钟的读取时间减去存储端时钟的目录修改时间，不足 RACY_WINDOW_MILLIS（1 小时）的不可信，
+ *     下次扫描时重新读取。同一时间刻度内的后续修改不会改变修改时间，窗口覆盖粗粒度时间戳（FAT 为 2 秒）；
+ *     索引跨会话保存且没有其他途径发现遗漏，所以窗口放宽到同时覆盖时钟偏差。存储端时钟超前只会让更多目录被重新读取，
+ *     落后超过窗口时刚修改的目录会被当作可信，同一时间刻度内的后续修改可能漏扫，直到目录再次变化</li>
+ * </ul>
+ */
+public class ScanIndex {
+
+    private static final int VERSION = 1;
+    private static final long RACY_WINDOW_MILLIS = 60L * 60 * 1000;
+    private static final File INDEX_DIR = new File(System.getProperty("user.home"), ".fmplus_scan_index");
+
+    private final Path root;
+    private final File file;
+    private final Map<String, Listing> listings = new ConcurrentHashMap<>();
+    // 本次扫描访问过的目录，完整扫描后未访问的记录（已删除的目录）会被清理
+    private final Set<String> visited = ConcurrentHashMap.newKeySet();
+    @Getter
+    private final AtomicInteger reused = new AtomicInteger(0);
+    @Getter
+    private final AtomicInteger relisted = new AtomicInteger(0);
+
+    private ScanIndex(Path root, File file) {
+        this.root = root;
+        this.file = file;
+    }
+
+    /**
+     * 加载根路径的扫描索引，不存在或格式不对时返回空索引
+     */
+    public static ScanIndex load(Path root) {
+        ScanIndex index = new ScanIndex(root, new File(INDEX_DIR, indexFileName(root)));
+        if (!index.file.isFile()) {
+            return index;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(index.file.toPath()))))) {
+            if (in.readInt() != VERSION || !root.toString().equals(in.readUTF())) {
+                return index;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                long modified = in.readLong();
+                long created = in.readLong();
+                String fileKey = in.readUTF();
+                long listedAt = in.readLong();
+                List<String> files = readNames(in);
+                List<String> dirs = readNames(in);
+                index.listings.put(key, new Listing(modified, created, fileKey, listedAt, files, dirs));
+            }
+        } catch (IOException e) {
+            // 索引损坏时整体丢弃，按完整扫描处理
+            index.listings.clear();
+        }
+        return index;
+    }
+
+    /**
+     * 删除所有根路径的扫描索引，下次扫描完整读取并重建
+     */
+    public static void clearAll() {
+        File[] files = INDEX_DIR.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * 获取目录内容：属性未变且记录可信时返回记录，否则重新读取并更新记录
+     * <p>
+     * 重新读取时每个条目读取一次属性并随条目返回；使用记录时条目属性在首次使用时读取
+     */
+    public Contents list(Path dir) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(dir, BasicFileAttributes.class);
+        long modified = attrs.lastModifiedTime().toMillis();
+        long created = attrs.creationTime().toMillis();
+        String fileKey = attrs.fileKey() != null ? attrs.fileKey().toString() : "";
+        String key = keyOf(dir);
+        visited.add(key);
+        Listing cached = listings.get(key);
+        if (cached != null && cached.matches(modified, created, fileKey) && cached.isStable()) {
+            reused.incrementAndGet();
+            return new Contents(toLazyEntries(dir, cached.files, false), toLazyEntries(dir, cached.dirs, true));
+        }
+        relisted.incrementAndGet();
+        // 先取属性再读目录：读取期间的修改会改变修改时间，下次扫描不会命中这条记录
+        long listedAt = System.currentTimeMillis();
+        List<ScannedEntry> files = new ArrayList<>();
+        List<ScannedEntry> dirs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream) {
+                ScannedEntry scanned = ScannedEntry.read(entry);
+                if (scanned.isDirectory()) {
+                    dirs.add(scanned);
+                } else {
+                    files.add(scanned);
+                }
+            }
+        }
+        listings.put(key, new Listing(modified, created, fileKey, listedAt, namesOf(files), namesOf(dirs)));
+        return new Contents(files, dirs);
+    }
+
+    private static List<ScannedEntry> toLazyEntries(Path dir, List<String> names, boolean directory) {
+        List<ScannedEntry> entries = new ArrayList<>(names.size());
+        for (String name : names) {
+            entries.add(ScannedEntry.lazy(dir.resolve(name), directory));
+        }
+        return entries;
+    }
+
+    private static List<String> namesOf(List<ScannedEntry> entries) {
+        List<String> names = new ArrayList<>(entries.size());
+        for (ScannedEntry entry : entries) {
+            names.add(entry.getFile().getName());
+        }
+        return names;
+    }
+
+    /**
+     * 保存索引，写入临时文件后替换，避免中途失败留下损坏的索引
+     *
+     * @param complete 本次是否完整扫描了根路径，完整扫描时清理已不存在的目录
+     */
+    public void save(boolean complete) throws IOException {
+        if (complete) {
+            listings.keySet().retainAll(visited);
+        }
+        if (!INDEX_DIR.isDirectory() && !INDEX_DIR.mkdirs()) {
+            throw new IOException("无法创建扫描索引目录: " + INDEX_DIR);
+        }
+        File temp = new File(INDEX_DIR, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp.toPath()))))) {
+            out.writeInt(VERSION);
+            out.writeUTF(root.toString());
+            Map<String, Listing> snapshot = new ConcurrentHashMap<>(listings);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Listing> entry : snapshot.entrySet()) {
+                Listing listing = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(listing.modified);
+                out.writeLong(listing.created);
+                out.writeUTF(listing.fileKey);
+                out.writeLong(listing.listedAt);
+                writeNames(out, listing.files);
+                writeNames(out, listing.dirs);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private String keyOf(Path dir) {
+        return root.relativize(dir).toString();
+    }
+
+    private static List<String> readNames(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(in.readUTF());
+        }
+        return names;
+    }
+
+    private static void writeNames(DataOutputStream out, List<String> names) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    /**
+     * 索引文件名：根路径的摘要，避免路径中的特殊字符
+     */
+    private static String indexFileName(Path root) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(root.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 10; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb + ".idx";
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(root.toString().hashCode()) + ".idx";
+        }
+    }
+
+    /**
+     * 目录内容
+     */
+    @Getter
+    public static class Contents {
+        private final List<ScannedEntry> files;
+        private final List<ScannedEntry> dirs;
+
+        private Contents(List<ScannedEntry> files, List<ScannedEntry> dirs) {
+            this.files = files;
+            this.dirs = dirs;
+        }
+    }
+
+    /**
+     * 单个目录的记录
+     */
+    private static class Listing {
+        private final long modified;
+        private final long created;
+        private final String fileKey;
+        private final long listedAt;
+        private final List<String> files;
+        private final List<String> dirs;
+
+        private Listing(long modified, long created, String fileKey, long listedAt, List<String> files, List<String> dirs) {
+            this.modified = modified;
+            this.created = created;
+            this.fileKey = fileKey;
+            this.listedAt = listedAt;
+            this.files = Collections.unmodifiableList(files);
+            this.dirs = Collections.unmodifiableList(dirs);
+        }
+
+        private boolean matches(long modified, long created, String fileKey) {
+            return this.modified == modified && this.created == created && this.fileKey.equals(fileKey);
+        }
+
+        /**
+         * 读取时目录修改时间已足够久远，记录可信
+         */
+        private boolean isStable() {
+            return listedAt - modified > RACY_WINDOW_MILLIS;
+        }
+    }
+}
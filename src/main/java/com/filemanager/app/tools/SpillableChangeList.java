@@ -0,0 +1,475 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.tools;
+
+import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.RunStatistics;
+import com.filemanager.model.ScannedEntry;
+import com.filemanager.type.ExecStatus;
+import com.filemanager.type.OperationType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 可换出到磁盘的变更列表，用于文件数量极多的预览结果
+ * <p>
+ * 记录按段（SEGMENT_SIZE 条）存放，只有最近写入的 residentSegments 段完整保留在内存，
+ * 更早的段封存时把未变更的记录紧凑地写入内存映射的临时文件，只保留偏移量，读取时再恢复为记录。
+ * <ul>
+ *     <li>需要执行或可能被修改的记录（有变更、已选中、状态不是待处理、带附加参数或中间文件）始终保留在内存，
+ *     执行器和依赖图持有的都是同一个对象</li>
+ *     <li>换出的记录读取时恢复为对象，内容与换出时一致，保存了扫描时的属性快照，恢复时不访问文件系统；
+ *     恢复出的对象以弱引用登记在原位置，仍被使用时再次读取得到同一个对象，每个下标只有一个有效对象</li>
+ *     <li>修改恢复出的对象（调用任一 setter 或取附加参数）时，该对象重新放回内存并取代磁盘上的内容，
+ *     之后读取得到的就是它，界面上的选择、编辑不会丢失</li>
+ *     <li>加入过运行统计的记录重新恢复时关联同一统计（不重复计数），修改后统计和预览列表照常更新</li>
+ *     <li>顺序与写入顺序一致，支持按下标随机访问、遍历和并行流过滤</li>
+ * </ul>
+ * 写入（add/set/clear）需在单个线程中完成，写入完成后可在多个线程中同时读取；
+ * 换出位置的恢复、放回都在列表的锁内进行，修改恢复出的对象可在任意线程中进行。
+ */
+public class SpillableChangeList extends AbstractList<ChangeRecord> implements RandomAccess, Closeable {
+
+    private static final int SEGMENT_SIZE = 4096;
+    // 单个映射区域的大小，记录不跨区域存放
+    private static final int REGION_SIZE = 64 * 1024 * 1024;
+    private static final int DEFAULT_RESIDENT_SEGMENTS = 16;
+
+    private static final int FLAG_SAME_ORIGINAL = 1;
+    private static final int FLAG_SAME_NEW_NAME = 1 << 1;
+    private static final int FLAG_SAME_NEW_PATH = 1 << 2;
+    private static final int FLAG_ENTRY = 1 << 3;
+    private static final int FLAG_EXISTS = 1 << 4;
+    private static final int FLAG_DIRECTORY = 1 << 5;
+    private static final int FLAG_REGULAR_FILE = 1 << 6;
+
+    private final int residentSegments;
+    private final List<Segment> segments = new ArrayList<>();
+    private int size = 0;
+    // 已封存的段数，之前的段都已处理过
+    private int sealed = 0;
+    private File spillFile;
+    private FileChannel channel;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private long writePos = 0;
+    private int spilledCount = 0;
+    // clear 的次数，清空前恢复出的记录不再放回
+    private int generation = 0;
+    // 恢复出的记录加入过的运行统计，及已在其中计数的下标
+    private RunStatistics statistics;
+    private BitSet counted = new BitSet();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    public SpillableChangeList() {
+        this(DEFAULT_RESIDENT_SEGMENTS);
+    }
+
+    /**
+     * @param residentSegments 完整保留在内存中的最近段数
+     */
+    public SpillableChangeList(int residentSegments) {
+        this.residentSegments = Math.max(1, residentSegments);
+    }
+
+    @Override
+    public ChangeRecord get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Segment segment = segments.get(index / SEGMENT_SIZE);
+        int slot = index % SEGMENT_SIZE;
+        if (segment.offsets == null || segment.offsets[slot] < 0) {
+            // 未换出的位置只在写入阶段变化
+            return segment.records[slot];
+        }
+        return restore(segment, index, slot);
+    }
+
+    /**
+     * 读取换出的位置：已放回的返回放回的对象，仍被使用的恢复对象直接返回，否则从磁盘恢复并登记
+     */
+    private synchronized ChangeRecord restore(Segment segment, int index, int slot) {
+        ChangeRecord pinned = segment.records[slot];
+        if (pinned != null) {
+            return pinned;
+        }
+        if (segment.restored == null) {
+            segment.restored = newRestoredSlots();
+        }
+        WeakReference<SpilledRecord> ref = segment.restored[slot];
+        SpilledRecord rec = ref != null ? ref.get() : null;
+        if (rec != null) {
+            return rec;
+        }
+        rec = read(segment.offsets[slot]);
+        rec.owner = this;
+        rec.index = index;
+        rec.generation = generation;
+        if (statistics != null && counted.get(index)) {
+            statistics.reattach(rec);
+        }
+        segment.restored[slot] = new WeakReference<>(rec);
+        return rec;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<SpilledRecord>[] newRestoredSlots() {
+        return (WeakReference<SpilledRecord>[]) new WeakReference<?>[SEGMENT_SIZE];
+    }
+
+    @Override
+    public boolean add(ChangeRecord rec) {
+        Segment tail = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (tail == null || tail.count == SEGMENT_SIZE) {
+            tail = new Segment();
+            segments.add(tail);
+            sealOldSegments();
+        }
+        tail.records[tail.count++] = rec;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * 替换记录，新记录保留在内存中
+     */
+    @Override
+    public synchronized ChangeRecord set(int index, ChangeRecord rec) {
+        ChangeRecord old = get(index);
+        Segment segment = segments.get(index / SEGMENT_SIZE);
+        int slot = index % SEGMENT_SIZE;
+        if (segment.offsets != null && segment.offsets[slot] >= 0) {
+            // 换出的位置改为常驻，之前恢复出的对象不再放回
+            if (segment.records[slot] == null) {
+                spilledCount--;
+            }
+            segment.offsets[slot] = -1L;
+            if (segment.restored != null) {
+                segment.restored[slot] = null;
+            }
+        }
+        segment.records[slot] = rec;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void clear() {
+        segments.clear();
+        generation++;
+        statistics = null;
+        counted = new BitSet();
+        size = 0;
+        sealed = 0;
+        spilledCount = 0;
+        modCount++;
+        releaseSpillFile();
+    }
+
+    /**
+     * 已换出到磁盘的记录数
+     */
+    public int getSpilledCount() {
+        return spilledCount;
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    /**
+     * 恢复出的记录被修改，放回内存；磁盘上的内容不再使用
+     */
+    private synchronized void pin(SpilledRecord rec) {
+        if (rec.generation != generation) {
+            return;
+        }
+        Segment segment = segments.get(rec.index / SEGMENT_SIZE);
+        int slot = rec.index % SEGMENT_SIZE;
+        // 已放回，或位置已被 set 替换、该对象不是登记的恢复对象
+        if (segment.records[slot] != null || segment.restored == null || segment.restored[slot] == null
+                || segment.restored[slot].get() != rec) {
+            return;
+        }
+        segment.records[slot] = rec;
+        segment.restored[slot] = null;
+        spilledCount--;
+    }
+
+    /**
+     * 恢复出的记录加入了运行统计，之后重新恢复该下标时关联同一统计
+     */
+    private synchronized void counted(SpilledRecord rec, RunStatistics stats) {
+        if (rec.generation != generation) {
+            return;
+        }
+        if (stats != statistics) {
+            statistics = stats;
+            counted = new BitSet();
+        }
+        counted.set(rec.index);
+    }
+
+    /**
+     * 封存超出内存保留数量的段：可换出的记录写入磁盘，其余记录留在内存
+     */
+    private void sealOldSegments() {
+        while (segments.size() - sealed > residentSegments) {
+            Segment segment = segments.get(sealed++);
+            for (int i = 0; i < segment.count; i++) {
+                ChangeRecord rec = segment.records[i];
+                if (isSpillable(rec)) {
+                    if (segment.offsets == null) {
+                        segment.offsets = new long[SEGMENT_SIZE];
+                        Arrays.fill(segment.offsets, -1L);
+                    }
+                    segment.offsets[i] = write(rec);
+                    segment.records[i] = null;
+                    spilledCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 只换出恢复后与原记录完全一致、且不会再被执行或修改的记录
+     */
+    private static boolean isSpillable(ChangeRecord rec) {
+        if (rec == null || rec.isChanged() || rec.isSelected() || rec.getStatus() != ExecStatus.PENDING
+                || rec.isCreate() || rec.isDeleteOrMove() || rec.getIntermediateFile() != null || rec.getFailReason() != null) {
+            return false;
+        }
+        if (rec.getOpType() != null && rec.getOpType() != OperationType.NONE) {
+            return false;
+        }
+        return !rec.hasExtraParams() && rec.getFileHandle() != null && rec.getOriginalName() != null;
+    }
+
+    private long write(ChangeRecord rec) {
+        try {
+            buffer.reset();
+            File file = rec.getFileHandle();
+            String path = file.getPath();
+            ScannedEntry entry = rec.getScannedEntry();
+            boolean hasEntry = entry != null && entry.getFile() == file;
+            int flags = 0;
+            if (rec.getOriginalName().equals(file.getName())) flags |= FLAG_SAME_ORIGINAL;
+            if (rec.getOriginalName().equals(rec.getNewName())) flags |= FLAG_SAME_NEW_NAME;
+            if (path.equals(rec.getNewPath())) flags |= FLAG_SAME_NEW_PATH;
+            if (hasEntry) {
+                flags |= FLAG_ENTRY;
+                if (entry.exists()) flags |= FLAG_EXISTS;
+                if (entry.isDirectory()) flags |= FLAG_DIRECTORY;
+                if (entry.isFile()) flags |= FLAG_REGULAR_FILE;
+            }
+            out.writeByte(flags);
+            writeString(path);
+            if ((flags & FLAG_SAME_ORIGINAL) == 0) writeString(rec.getOriginalName());
+            if ((flags & FLAG_SAME_NEW_NAME) == 0) writeString(rec.getNewName());
+            if ((flags & FLAG_SAME_NEW_PATH) == 0) writeString(rec.getNewPath());
+            if (hasEntry) {
+                out.writeLong(entry.length());
+                out.writeLong(entry.lastModified());
+                out.writeLong(entry.creationTime());
+            }
+            out.flush();
+            return append(buffer.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入换出文件失败", e);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private long append(byte[] bytes) throws IOException {
+        long regionStart = writePos / REGION_SIZE * REGION_SIZE;
+        if (writePos + bytes.length > regionStart + REGION_SIZE) {
+            // 当前区域放不下，从下一个区域开头写入
+            writePos = regionStart + REGION_SIZE;
+        }
+        int regionIndex = (int) (writePos / REGION_SIZE);
+        while (regions.size() <= regionIndex) {
+            regions.add(channel().map(FileChannel.MapMode.READ_WRITE, (long) regions.size() * REGION_SIZE, REGION_SIZE));
+        }
+        ByteBuffer region = regions.get(regionIndex).duplicate();
+        region.position((int) (writePos % REGION_SIZE));
+        region.put(bytes);
+        long offset = writePos;
+        writePos += bytes.length;
+        return offset;
+    }
+
+    private SpilledRecord read(long offset) {
+        ByteBuffer in = regions.get((int) (offset / REGION_SIZE)).duplicate();
+        in.position((int) (offset % REGION_SIZE));
+        int flags = in.get();
+        String path = readString(in);
+        String originalName = (flags & FLAG_SAME_ORIGINAL) != 0 ? null : readString(in);
+        String newName = (flags & FLAG_SAME_NEW_NAME) != 0 ? null : readString(in);
+        String newPath = (flags & FLAG_SAME_NEW_PATH) != 0 ? path : readString(in);
+        ScannedEntry entry = null;
+        File file;
+        if ((flags & FLAG_ENTRY) != 0) {
+            entry = ScannedEntry.restore(Paths.get(path), (flags & FLAG_EXISTS) != 0, (flags & FLAG_DIRECTORY) != 0,
+                    (flags & FLAG_REGULAR_FILE) != 0, in.getLong(), in.getLong(), in.getLong());
+            file = entry.getFile();
+        } else {
+            file = new File(path);
+        }
+        if (originalName == null) {
+            originalName = file.getName();
+        }
+        if (newName == null) {
+            newName = originalName;
+        }
+        SpilledRecord rec = new SpilledRecord(originalName, newName, file, newPath);
+        rec.setScannedEntry(entry);
+        return rec;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            spillFile = File.createTempFile("fmplus_changes_", ".spill");
+            spillFile.deleteOnExit();
+            channel = new RandomAccessFile(spillFile, "rw").getChannel();
+        }
+        return channel;
+    }
+
+    private void releaseSpillFile() {
+        regions.clear();
+        writePos = 0;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // 忽略关闭异常
+            }
+            channel = null;
+        }
+        if (spillFile != null) {
+            // 映射未释放时部分系统无法立即删除，退出时再删除
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+
+    /**
+     * 从磁盘恢复的记录，修改前先放回所属列表的内存中
+     */
+    private static final class SpilledRecord extends ChangeRecord {
+        // 恢复完成后才设置，恢复过程中的赋值不触发放回
+        private SpillableChangeList owner;
+        private int index;
+        private int generation;
+
+        private SpilledRecord(String originalName, String newName, File file, String newPath) {
+            super(originalName, newName, file, false, newPath, OperationType.NONE);
+        }
+
+        private void pin() {
+            if (owner != null) {
+                owner.pin(this);
+            }
+        }
+
+        @Override
+        protected void statisticsAttached(RunStatistics stats) {
+            if (owner != null) {
+                owner.counted(this, stats);
+            }
+        }
+
+        @Override
+        public void setOriginalName(String originalName) { pin(); super.setOriginalName(originalName); }
+        @Override
+        public void setNewName(String newName) { pin(); super.setNewName(newName); }
+        @Override
+        public void setFileHandle(File fileHandle) { pin(); super.setFileHandle(fileHandle); }
+        @Override
+        public void setChanged(boolean changed) { pin(); super.setChanged(changed); }
+        @Override
+        public void setNewPath(String newPath) { pin(); super.setNewPath(newPath); }
+        @Override
+        public void setOpType(OperationType opType) { pin(); super.setOpType(opType); }
+        // 附加参数表可被调用方直接修改，取出时即放回
+        @Override
+        public Map<String, String> getExtraParams() { pin(); return super.getExtraParams(); }
+        @Override
+        public void setExtraParams(Map<String, String> extraParams) { pin(); super.setExtraParams(extraParams); }
+        @Override
+        public void setStatus(ExecStatus status) { pin(); super.setStatus(status); }
+        @Override
+        public void setFailReason(String failReason) { pin(); super.setFailReason(failReason); }
+        @Override
+        public void setCreate(boolean create) { pin(); super.setCreate(create); }
+        @Override
+        public void setDeleteOrMove(boolean deleteOrMove) { pin(); super.setDeleteOrMove(deleteOrMove); }
+        @Override
+        public void setIntermediateFile(File intermediateFile) { pin(); super.setIntermediateFile(intermediateFile); }
+        @Override
+        public void setSelected(boolean selected) { pin(); super.setSelected(selected); }
+        @Override
+        public void setScannedEntry(ScannedEntry scannedEntry) { pin(); super.setScannedEntry(scannedEntry); }
+    }
+
+    private static class Segment {
+        private final ChangeRecord[] records = new ChangeRecord[SEGMENT_SIZE];
+        // 换出记录在文件中的位置，未换出的为 -1；整段都未换出时为 null
+        private long[] offsets;
+        // 换出位置上恢复出的对象，未被使用后可回收；放回内存后移到 records
+        private WeakReference<SpilledRecord>[] restored;
+        private int count = 0;
+    }
+}
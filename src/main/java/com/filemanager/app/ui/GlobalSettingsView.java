@@ -10,31 +10,46 @@
 package com.filemanager.app.ui;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.Properties;
 import java.util.stream.Collectors;
 
 import com.filemanager.app.base.IAppController;
 import com.filemanager.app.base.IAutoReloadAble;
 import com.filemanager.app.tools.AdvancedFileTypeManager;
+import com.filemanager.app.tools.ScanFilter;
+import com.filemanager.app.tools.ScanIndex;
+import com.filemanager.app.tools.display.FXDialogUtils;
 import com.filemanager.app.tools.display.StyleFactory;
+import com.jfoenix.controls.JFXButton;
+import com.jfoenix.controls.JFXCheckBox;
 import com.jfoenix.controls.JFXComboBox;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.Node;
 import javafx.scene.control.Spinner;
+import javafx.scene.control.TextField;
+import javafx.scene.control.Tooltip;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import lombok.Getter;
 
 @Getter
 public class GlobalSettingsView implements IAutoReloadAble {
+    // 默认排除系统回收站和卷信息目录
+    private static final String DEFAULT_PRUNE_DIRS = "$RECYCLE.BIN, System Volume Information";
     private final IAppController app;
     private final AdvancedFileTypeManager fileTypeManager = new AdvancedFileTypeManager();
     private VBox viewNode;
     // UI Controls
     private JFXComboBox<String> cbRecursionMode;
     private Spinner<Integer> spRecursionDepth;
+    private JFXCheckBox chkIncrementalScan;
+    private JFXButton btnFullRescan;
+    private TextField txtPruneDirs;
+    private Spinner<Integer> spMinSizeMb;
+    private Spinner<Integer> spMaxSizeMb;
 
     public GlobalSettingsView(IAppController app) {
         this.app = app;
@@ -50,6 +65,38 @@ public class GlobalSettingsView implements IAutoReloadAble {
         spRecursionDepth = new Spinner<>(1, 20, 2);
         spRecursionDepth.setEditable(true);
         spRecursionDepth.disableProperty().bind(cbRecursionMode.getSelectionModel().selectedItemProperty().isNotEqualTo("指定目录层级"));
+
+        chkIncrementalScan = new JFXCheckBox("增量扫描");
+        chkIncrementalScan.setSelected(true);
+        chkIncrementalScan.setTooltip(new Tooltip("记录每个目录的修改时间和内容，再次扫描时未变化的目录直接使用记录，大幅减少磁盘读取"));
+        btnFullRescan = StyleFactory.createSecondaryButton("完整重新扫描", this::fullRescan);
+        btnFullRescan.setTooltip(new Tooltip("删除扫描索引，完整扫描所有源目录并重建索引"));
+
+        txtPruneDirs = new TextField(DEFAULT_PRUNE_DIRS);
+        txtPruneDirs.setPromptText("如: $RECYCLE.BIN, Extracted_*, * - FLAC");
+        txtPruneDirs.setPrefWidth(320);
+        txtPruneDirs.setTooltip(new Tooltip("匹配的目录及其下所有内容不扫描，逗号分隔，不区分大小写\n"
+                + "* 匹配任意字符，? 匹配单个字符，** 匹配任意层级；含 / 的规则匹配相对源目录的路径，否则匹配目录名"));
+        spMinSizeMb = new Spinner<>(0, 1024 * 1024, 0);
+        spMinSizeMb.setEditable(true);
+        spMinSizeMb.setPrefWidth(90);
+        spMinSizeMb.setTooltip(new Tooltip("小于该大小的文件不扫描（MB），0 不限制"));
+        spMaxSizeMb = new Spinner<>(0, 1024 * 1024, 0);
+        spMaxSizeMb.setEditable(true);
+        spMaxSizeMb.setPrefWidth(90);
+        spMaxSizeMb.setTooltip(new Tooltip("大于该大小的文件不扫描（MB），0 不限制"));
+    }
+
+    /**
+     * 删除扫描索引并重新预览，预览时完整扫描并重建索引
+     */
+    private void fullRescan() {
+        ScanIndex.clearAll();
+        if (app.getTaskRunningStatus().get()) {
+            FXDialogUtils.showToast(app.getPrimaryStage(), "扫描索引已清除，下次预览时完整扫描", FXDialogUtils.ToastType.INFO);
+            return;
+        }
+        app.runPipelineAnalysis();
     }
 
     private void buildUI() {
@@ -61,11 +108,21 @@ public class GlobalSettingsView implements IAutoReloadAble {
         spRecursionDepth.setPrefWidth(60);
         scanSettingsBox.getChildren().addAll(
                 StyleFactory.createParamPairLine("扫描模式:", cbRecursionMode),
-                StyleFactory.createParamPairLine("扫描层级:", spRecursionDepth)
+                StyleFactory.createParamPairLine("扫描层级:", spRecursionDepth),
+                chkIncrementalScan,
+                btnFullRescan
         );
         
+        HBox scanFilterBox = new HBox(10);
+        scanFilterBox.getChildren().addAll(
+                StyleFactory.createParamPairLine("排除目录:", txtPruneDirs),
+                StyleFactory.createParamPairLine("最小(MB):", spMinSizeMb),
+                StyleFactory.createParamPairLine("最大(MB):", spMaxSizeMb)
+        );
+
         viewNode.getChildren().addAll(
                 scanSettingsBox,
+                scanFilterBox,
                 fileTypeManager.getView()
         );
     }
@@ -90,6 +147,17 @@ public class GlobalSettingsView implements IAutoReloadAble {
         return fileTypeManager.accept(file);
     }
 
+    /**
+     * 编译扫描过滤器：文件类型、排除目录、文件大小，在扫描线程中使用
+     *
+     * @param root 扫描根路径
+     */
+    public ScanFilter compileScanFilter(Path root) {
+        return new ScanFilter(root, fileTypeManager.isAllSelected(), fileTypeManager.isFolderAccepted(),
+                fileTypeManager.isFileAccepted(), fileTypeManager.getAcceptedExtensions(),
+                txtPruneDirs.getText(), spMinSizeMb.getValue(), spMaxSizeMb.getValue());
+    }
+
     public Node getViewNode() {
         return viewNode;
     }
@@ -102,6 +170,10 @@ public class GlobalSettingsView implements IAutoReloadAble {
         return spRecursionDepth;
     }
 
+    public boolean isIncrementalScan() {
+        return chkIncrementalScan.isSelected();
+    }
+
     @Override
     public void saveConfig(Properties props) {
         if (props == null) return;
@@ -110,6 +182,10 @@ public class GlobalSettingsView implements IAutoReloadAble {
                 String.valueOf(cbRecursionMode.getSelectionModel().getSelectedIndex()));
         props.setProperty("filter.recursion.depth",
                 spRecursionDepth.getValue() != null ? String.valueOf(spRecursionDepth.getValue()) : "1");
+        props.setProperty("filter.incremental.scan", String.valueOf(chkIncrementalScan.isSelected()));
+        props.setProperty("filter.prune.dirs", txtPruneDirs.getText());
+        props.setProperty("filter.size.min", String.valueOf(spMinSizeMb.getValue()));
+        props.setProperty("filter.size.max", String.valueOf(spMaxSizeMb.getValue()));
         ObservableList<File> roots = app.getSourceRoots();
         if (!roots.isEmpty()) {
             String paths = roots.stream().map(File::getAbsolutePath).collect(Collectors.joining("||"));
@@ -126,6 +202,10 @@ public class GlobalSettingsView implements IAutoReloadAble {
         cbRecursionMode.getSelectionModel().select(recursionMode);
         int recursionDepth = Integer.parseInt(props.getProperty("filter.recursion.depth", "1"));
         spRecursionDepth.getValueFactory().setValue(recursionDepth);
+        chkIncrementalScan.setSelected(Boolean.parseBoolean(props.getProperty("filter.incremental.scan", "true")));
+        txtPruneDirs.setText(props.getProperty("filter.prune.dirs", DEFAULT_PRUNE_DIRS));
+        spMinSizeMb.getValueFactory().setValue(Integer.parseInt(props.getProperty("filter.size.min", "0")));
+        spMaxSizeMb.getValueFactory().setValue(Integer.parseInt(props.getProperty("filter.size.max", "0")));
         String paths = props.getProperty("filter.global.sources");
         if (paths != null && !paths.isEmpty()) {
             app.getSourceRoots().clear();
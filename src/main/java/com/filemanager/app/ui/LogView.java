@@ -12,39 +12,63 @@ package com.filemanager.app.ui;
 import com.filemanager.app.base.IAppController;
 import com.filemanager.app.base.IAutoReloadAble;
 import com.filemanager.app.tools.display.StyleFactory;
+import com.filemanager.tool.log.ExecutionLogPolicy;
 import com.filemanager.tool.log.LogInfo;
+import com.filemanager.tool.log.LogLineRing;
 import com.filemanager.tool.log.LogType;
 import com.filemanager.tool.log.SmartLogAppender;
+import com.filemanager.type.ExecLogLevel;
+import com.filemanager.type.OperationType;
 import com.jfoenix.controls.JFXButton;
-import javafx.animation.AnimationTimer;
+import com.jfoenix.controls.JFXComboBox;
+import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Tab;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import lombok.Getter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 @Getter
 public class LogView implements IAutoReloadAble {
+    // 界面最多保留的日志行数，更早的日志只在日志文件中
+    private static final int MAX_LINES = 5000;
     private final IAppController controller;
     private final Tab tabLog;
-    private final ConcurrentLinkedQueue<LogInfo> logQueue = new ConcurrentLinkedQueue<>();
-    private final TextArea logArea;
+    // 待显示的日志行，工作线程无锁写入，界面刷新时取出
+    private final ConcurrentLinkedQueue<String> logQueue = new ConcurrentLinkedQueue<>();
+    private final LogLineRing logLines = new LogLineRing(MAX_LINES);
+    private final ListView<String> logList;
     private final SmartLogAppender infoLogAppender,errorLogAppender;
+    // 执行日志配置
+    private final Map<OperationType, JFXComboBox<ExecLogLevel>> opLogLevels = new EnumMap<>(OperationType.class);
+    private JFXComboBox<ExecLogLevel> cbExecLogLevel;
+    private Spinner<Integer> spSampleFirst, spSampleEvery;
     private VBox viewNode;
 
     public LogView(IAppController controller) {
         this.controller = controller;
         this.tabLog = new Tab("日志");
-        this.logArea = StyleFactory.createTextArea();
-        this.infoLogAppender = new SmartLogAppender(logArea, 500, ".info.log");
-        this.errorLogAppender = new SmartLogAppender(logArea, 500, ".error.log");
+        this.logList = StyleFactory.createListView();
+        this.logList.setItems(logLines);
+        this.infoLogAppender = new SmartLogAppender(".info.log");
+        this.errorLogAppender = new SmartLogAppender(".error.log");
+        logQueue.add(SmartLogAppender.formatLine(infoLogAppender.getInitMessage()));
+        logQueue.add(SmartLogAppender.formatLine(errorLogAppender.getInitMessage()));
         this.buildUI();
         this.tabLog.setContent(viewNode);
         StyleFactory.setBasicStyle(viewNode);
@@ -56,43 +80,106 @@ public class LogView implements IAutoReloadAble {
         viewNode = StyleFactory.createVBoxPanel();
         viewNode.setPadding(new Insets(10));
         JFXButton clr = StyleFactory.createSmallActionButton("清空日志", "#dcbecf", this::clearLog);
-        JFXButton btnScrollTop = StyleFactory.createSmallActionButton("查看顶部", "#dcbecf", () -> logArea.setScrollTop(0));
-        JFXButton btnScrollBottom = StyleFactory.createSmallActionButton("查看底部", "#dcbecf", () -> logArea.setScrollTop(Double.MAX_VALUE));
+        JFXButton btnScrollTop = StyleFactory.createSmallActionButton("查看顶部", "#dcbecf", () -> logList.scrollTo(0));
+        JFXButton btnScrollBottom = StyleFactory.createSmallActionButton("查看底部", "#dcbecf", this::scrollToBottom);
 
         // 移除硬编码样式，让StyleFactory统一管理
-        VBox.setVgrow(logArea, Priority.ALWAYS);
+        VBox.setVgrow(logList, Priority.ALWAYS);
 
         HBox tools = StyleFactory.createHBoxPanel(clr,btnScrollTop, btnScrollBottom);
         tools.setAlignment(Pos.CENTER_RIGHT);
-        viewNode.getChildren().addAll(tools, logArea);
+        viewNode.getChildren().addAll(tools, buildExecLogSettings(), logList);
     }
 
-    private void startLogUpdater() {
-        AnimationTimer uiUpdater;
-        uiUpdater = new AnimationTimer() {
-            @Override
-            public void handle(long now) {
-                LogInfo s;
-                while ((s = logQueue.poll()) != null) {
-                    if (s.getType() == LogType.ERROR) {
-                        errorLogAppender.appendLog(s.getMessage());
-                    } else {
-                        infoLogAppender.appendLog(s.getMessage());
-                    }
-                }
+    private Node buildExecLogSettings() {
+        List<ExecLogLevel> levels = new ArrayList<>(Arrays.asList(ExecLogLevel.values()));
+        levels.remove(ExecLogLevel.DEFAULT);
+        cbExecLogLevel = new JFXComboBox<>(FXCollections.observableArrayList(levels));
+        cbExecLogLevel.setValue(ExecLogLevel.SAMPLED);
+        cbExecLogLevel.setTooltip(new Tooltip("执行时每个任务的日志：全部（开始和结果）、只记结果、抽样（成功的只记前若干条，之后每隔若干条记一条）、只记失败。"
+                + "失败和停止总是记录，执行结束时输出各操作的汇总"));
+        spSampleFirst = new Spinner<>(0, 1000000, 1000);
+        spSampleFirst.setEditable(true);
+        spSampleFirst.setTooltip(new Tooltip("抽样时每种操作前多少条成功记录全部输出"));
+        spSampleEvery = new Spinner<>(0, 1000000, 100);
+        spSampleEvery.setEditable(true);
+        spSampleEvery.setTooltip(new Tooltip("之后每隔多少条成功记录输出一条，0 表示不再输出"));
+
+        HBox levelRow = StyleFactory.createHBox(
+                StyleFactory.createParamPairLine("执行日志:", cbExecLogLevel),
+                StyleFactory.createParamPairLine("抽样前:", spSampleFirst),
+                StyleFactory.createParamPairLine("之后每隔:", spSampleEvery));
+        levelRow.setAlignment(Pos.CENTER_LEFT);
+
+        // 各操作类型单独的级别
+        FlowPane opRow = new FlowPane(10, 5);
+        for (OperationType opType : OperationType.values()) {
+            if (opType == OperationType.NONE) {
+                continue;
+            }
+            JFXComboBox<ExecLogLevel> cb = new JFXComboBox<>(FXCollections.observableArrayList(ExecLogLevel.values()));
+            cb.setValue(ExecLogLevel.DEFAULT);
+            opLogLevels.put(opType, cb);
+            opRow.getChildren().add(StyleFactory.createParamPairLine(opType.getName() + ":", cb));
+        }
+        return StyleFactory.createVBox(levelRow, opRow);
+    }
+
+    /**
+     * 当前的执行日志配置，执行开始时读取一次
+     */
+    public ExecutionLogPolicy getExecutionLogPolicy() {
+        Map<OperationType, ExecLogLevel> levels = new EnumMap<>(OperationType.class);
+        opLogLevels.forEach((opType, cb) -> {
+            if (cb.getValue() != null && cb.getValue() != ExecLogLevel.DEFAULT) {
+                levels.put(opType, cb.getValue());
             }
-        };
-        uiUpdater.start();
+        });
+        return new ExecutionLogPolicy(cbExecLogLevel.getValue(), levels, spSampleFirst.getValue(), spSampleEvery.getValue());
+    }
+
+    private void startLogUpdater() {
+        // 日志由界面更新总线按固定频率成批显示
+        controller.getUiUpdateBus().addPoller(this::drainLogs);
+    }
+
+    private void drainLogs() {
+        List<String> batch = new ArrayList<>();
+        String line;
+        while ((line = logQueue.poll()) != null) {
+            batch.add(line);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        // 一次超过容量的日志只显示最后的部分
+        logLines.addLines(batch);
+        scrollToBottom();
+    }
+
+    private void scrollToBottom() {
+        if (!logLines.isEmpty()) {
+            logList.scrollTo(logLines.size() - 1);
+        }
     }
 
+    /**
+     * 追加日志（线程安全，不阻塞）：写入对应的日志文件，并在下次界面刷新时显示
+     */
     public void appendLog(LogInfo logInfo) {
-        logQueue.add(logInfo);
+        String line = SmartLogAppender.formatLine(logInfo.getMessage());
+        if (logInfo.getType() == LogType.ERROR) {
+            errorLogAppender.appendLine(line);
+        } else {
+            infoLogAppender.appendLine(line);
+        }
+        logQueue.add(line);
     }
 
     public void clearLog() {
         infoLogAppender.forceFlush();
         errorLogAppender.forceFlush();
-        logArea.clear();
+        logLines.clear();
     }
 
     public Node getViewNode() {
@@ -105,12 +192,30 @@ public class LogView implements IAutoReloadAble {
 
     @Override
     public void saveConfig(Properties props) {
-
+        props.setProperty("exec_log_level", cbExecLogLevel.getValue().name());
+        props.setProperty("exec_log_sample_first", String.valueOf(spSampleFirst.getValue()));
+        props.setProperty("exec_log_sample_every", String.valueOf(spSampleEvery.getValue()));
+        opLogLevels.forEach((opType, cb) -> props.setProperty("exec_log_level_" + opType.name(), cb.getValue().name()));
     }
 
     @Override
     public void loadConfig(Properties props) {
-
+        if (props.containsKey("exec_log_level")) {
+            ExecLogLevel level = ExecLogLevel.fromString(props.getProperty("exec_log_level"));
+            cbExecLogLevel.setValue(level == ExecLogLevel.DEFAULT ? ExecLogLevel.SAMPLED : level);
+        }
+        if (props.containsKey("exec_log_sample_first")) {
+            spSampleFirst.getValueFactory().setValue(Integer.parseInt(props.getProperty("exec_log_sample_first")));
+        }
+        if (props.containsKey("exec_log_sample_every")) {
+            spSampleEvery.getValueFactory().setValue(Integer.parseInt(props.getProperty("exec_log_sample_every")));
+        }
+        opLogLevels.forEach((opType, cb) -> {
+            String key = "exec_log_level_" + opType.name();
+            if (props.containsKey(key)) {
+                cb.setValue(ExecLogLevel.fromString(props.getProperty(key)));
+            }
+        });
     }
 
     public void reload() {
@@ -121,7 +226,7 @@ public class LogView implements IAutoReloadAble {
             String alphaHex = String.format("%02x", alpha);
             bgColor = bgColor + alphaHex;
         }
-        logArea.setStyle(String.format(
+        logList.setStyle(String.format(
                 "-fx-background-color: %s; -fx-background-radius: %.1f; -fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 10, 0, 0, 5); -fx-text-fill: %s; -fx-border-color: %s; -fx-border-width: %.1f; -fx-font-family: %s; -fx-font-size: %.1f;",
                 bgColor, controller.getCurrentTheme().getCornerRadius(), controller.getCurrentTheme().getTextPrimaryColor(), controller.getCurrentTheme().getBorderColor(),
                 controller.getCurrentTheme().getBorderWidth(), controller.getCurrentTheme().getLogFontFamily(), controller.getCurrentTheme().getLogFontSize()
@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.app.ui;
+
+import com.filemanager.app.tools.NameSearchIndex;
+import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.RunStatistics;
+import com.filemanager.type.ExecStatus;
+import com.filemanager.type.OperationType;
+import javafx.collections.ListChangeListener;
+import javafx.concurrent.Task;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeTableColumn;
+import javafx.scene.control.TreeTableView;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * 预览列表的视图模型：在固定的根节点上按行增量更新
+ * <p>
+ * 为变更列表建立位图索引（是否变更、执行状态、操作类型）和名称的三字组索引，筛选时各条件的位图求交得到候选行，
+ * 只对候选行确认名称是否包含关键词。
+ * 之后记录的状态变化、新增的记录只调整受影响的行，不重建整个列表，刷新开销与变化的数量成正比，表格的滚动位置保持不变。
+ * 列表更换时在后台线程建立索引，其余方法都在 FX 线程调用。
+ */
+public class PreviewTableModel {
+
+    private final TreeTableView<ChangeRecord> table;
+    private final TreeItem<ChangeRecord> root = new TreeItem<>(new ChangeRecord());
+    private final Consumer<String> log;
+    private final Runnable onChanged;
+    // 当前显示的行，按在列表中的下标排序
+    private final TreeMap<Integer, TreeItem<ChangeRecord>> visible = new TreeMap<>();
+    private Index index;
+    private Filter filter;
+    // 显示行数已达上限，后面可能还有符合条件的记录
+    private boolean truncated = false;
+    private boolean building = false;
+    // 建立索引期间收到的最新刷新请求
+    private Runnable pendingUpdate;
+    // 每次更换列表或清空时递增，丢弃过期的后台结果
+    private int generation = 0;
+
+    /**
+     * @param log       日志输出
+     * @param onChanged 显示的行变化后回调
+     */
+    public PreviewTableModel(TreeTableView<ChangeRecord> table, Consumer<String> log, Runnable onChanged) {
+        this.table = table;
+        this.log = log;
+        this.onChanged = onChanged;
+        root.setExpanded(true);
+        table.setRoot(root);
+        // 取消排序后恢复列表顺序，增量插入依赖这个顺序
+        table.getSortOrder().addListener((ListChangeListener<TreeTableColumn<ChangeRecord, ?>>) c -> {
+            if (table.getSortOrder().isEmpty()) {
+                root.getChildren().setAll(visible.values());
+            }
+        });
+    }
+
+    /**
+     * 按变更列表和筛选条件刷新显示的行
+     * <p>
+     * 列表或统计对象更换时重建索引；否则只处理上次刷新之后变化、新增的记录，筛选条件变化时用索引重新筛选。
+     */
+    public void update(List<ChangeRecord> source, RunStatistics stats, Filter newFilter) {
+        if (table.getRoot() != root) {
+            table.setRoot(root);
+        }
+        if (building) {
+            pendingUpdate = () -> update(source, stats, newFilter);
+            return;
+        }
+        if (source.isEmpty()) {
+            clear();
+            return;
+        }
+        if (index == null || index.source != source || index.stats != stats || source.size() < index.size) {
+            rebuild(source, stats, newFilter);
+            return;
+        }
+        BitSet dirty = new BitSet();
+        boolean[] unknown = {false};
+        boolean complete = stats.drainUpdated(rec -> {
+            Integer i = index.indexOf.get(rec);
+            if (i == null) {
+                unknown[0] = true;
+            } else {
+                dirty.set(i);
+            }
+        });
+        if (!complete || unknown[0]) {
+            // 变化过多或有未建立映射的记录变化，整体重建
+            rebuild(source, stats, newFilter);
+            return;
+        }
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            index.put(i, index.source.get(i), true);
+        }
+        // 监控模式下追加到同一个列表的新记录
+        for (int i = index.size; i < source.size(); i++) {
+            index.add(source.get(i));
+            dirty.set(i);
+        }
+        if (!newFilter.equals(filter)) {
+            filter = newFilter;
+            refilter();
+        } else if (!dirty.isEmpty()) {
+            applyDelta(dirty);
+        }
+        onChanged.run();
+    }
+
+    /**
+     * 清空显示的行和索引
+     */
+    public void clear() {
+        generation++;
+        index = null;
+        pendingUpdate = null;
+        visible.clear();
+        truncated = false;
+        root.getChildren().clear();
+        onChanged.run();
+    }
+
+    private void rebuild(List<ChangeRecord> source, RunStatistics stats, Filter newFilter) {
+        building = true;
+        int gen = ++generation;
+        int count = source.size();
+        // 建立索引时读取记录的当前状态，之前的变化不再需要
+        stats.drainUpdated(rec -> { });
+        Task<Index> t = new Task<Index>() {
+            @Override
+            protected Index call() {
+                Index built = new Index(source, stats);
+                for (int i = 0; i < count; i++) {
+                    built.add(source.get(i));
+                }
+                built.names.trim();
+                return built;
+            }
+        };
+        t.setOnSucceeded(e -> {
+            building = false;
+            if (gen == generation) {
+                index = t.getValue();
+                filter = newFilter;
+                refilter();
+                onChanged.run();
+            }
+            runPending();
+        });
+        t.setOnFailed(e -> {
+            building = false;
+            log.accept("❌ 预览列表索引建立失败: " + t.getException());
+            runPending();
+        });
+        new Thread(t).start();
+    }
+
+    private void runPending() {
+        Runnable pending = pendingUpdate;
+        pendingUpdate = null;
+        if (pending != null) {
+            pending.run();
+        }
+    }
+
+    /**
+     * 按当前筛选条件重新选出显示的行，只检查位图给出的候选记录
+     */
+    private void refilter() {
+        visible.clear();
+        truncated = false;
+        BitSet candidates = index.candidates(filter);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            ChangeRecord rec = index.source.get(i);
+            if (!matchesSearch(rec)) {
+                continue;
+            }
+            if (visible.size() >= filter.getLimit()) {
+                truncated = true;
+                break;
+            }
+            visible.put(i, new TreeItem<>(rec));
+        }
+        root.getChildren().setAll(visible.values());
+        if (truncated) {
+            log.accept("注意：实时预览数据限制为" + filter.getLimit() + "条！");
+        }
+        if (!table.getSortOrder().isEmpty()) {
+            table.sort();
+        }
+    }
+
+    /**
+     * 只处理变化的记录：不再符合条件的行移除，新符合条件的行插入到列表顺序对应的位置
+     */
+    private void applyDelta(BitSet dirty) {
+        boolean sorted = !table.getSortOrder().isEmpty();
+        boolean contentChanged = false;
+        boolean inserted = false;
+        int limit = filter.getLimit();
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            TreeItem<ChangeRecord> item = visible.get(i);
+            ChangeRecord rec = item != null ? item.getValue() : index.source.get(i);
+            boolean show = index.matches(i, filter) && matchesSearch(rec);
+            if (item != null) {
+                if (show) {
+                    contentChanged = true;
+                } else {
+                    visible.remove(i);
+                    root.getChildren().remove(item);
+                }
+                continue;
+            }
+            if (!show) {
+                continue;
+            }
+            if (truncated && !visible.isEmpty() && i > visible.lastKey()) {
+                // 超出显示范围，由补位时按顺序加入
+                continue;
+            }
+            if (visible.size() >= limit) {
+                Map.Entry<Integer, TreeItem<ChangeRecord>> last = visible.pollLastEntry();
+                root.getChildren().remove(last.getValue());
+                truncated = true;
+            }
+            insert(i, rec, sorted);
+            inserted = true;
+        }
+        if (truncated && visible.size() < limit) {
+            inserted |= fill(sorted);
+        }
+        if (sorted && inserted) {
+            table.sort();
+        }
+        if (contentChanged) {
+            // 只重绘可见的单元格
+            table.refresh();
+        }
+    }
+
+    private void insert(int i, ChangeRecord rec, boolean sorted) {
+        TreeItem<ChangeRecord> item = new TreeItem<>(rec);
+        if (sorted) {
+            root.getChildren().add(item);
+        } else {
+            root.getChildren().add(visible.headMap(i).size(), item);
+        }
+        visible.put(i, item);
+    }
+
+    /**
+     * 移除行后从最后一个显示行之后继续补足到上限
+     */
+    private boolean fill(boolean sorted) {
+        boolean added = false;
+        BitSet candidates = index.candidates(filter);
+        int from = visible.isEmpty() ? 0 : visible.lastKey() + 1;
+        for (int i = candidates.nextSetBit(from); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            ChangeRecord rec = index.source.get(i);
+            if (!matchesSearch(rec)) {
+                continue;
+            }
+            if (visible.size() >= filter.getLimit()) {
+                return added;
+            }
+            insert(i, rec, sorted);
+            added = true;
+        }
+        truncated = false;
+        return added;
+    }
+
+    private boolean matchesSearch(ChangeRecord rec) {
+        String search = filter.getSearch();
+        return search.isEmpty() || NameSearchIndex.normalize(rec.getOriginalName()).contains(search);
+    }
+
+    /**
+     * 筛选条件，状态、操作类型为 null 表示不限
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Filter {
+        // 名称关键词，已按 NameSearchIndex.normalize 标准化
+        private final String search;
+        private final ExecStatus status;
+        private final OperationType opType;
+        // 仅显示变更和失败的记录
+        private final boolean hideUnchanged;
+        private final int limit;
+    }
+
+    /**
+     * 变更列表的位图索引
+     */
+    private static class Index {
+        private final List<ChangeRecord> source;
+        private final RunStatistics stats;
+        private final BitSet changed = new BitSet();
+        private final Map<ExecStatus, BitSet> byStatus = new EnumMap<>(ExecStatus.class);
+        private final Map<OperationType, BitSet> byOpType = new EnumMap<>(OperationType.class);
+        // 可能再变化的记录（已变更或已处理）对应的下标
+        private final Map<ChangeRecord, Integer> indexOf = new IdentityHashMap<>();
+        private final NameSearchIndex names = new NameSearchIndex();
+        // 最近一次关键词搜索的结果，加入新记录后失效
+        private String lastSearch;
+        private BitSet lastHits;
+        private int size = 0;
+
+        private Index(List<ChangeRecord> source, RunStatistics stats) {
+            this.source = source;
+            this.stats = stats;
+            for (ExecStatus status : ExecStatus.values()) {
+                byStatus.put(status, new BitSet());
+            }
+            for (OperationType opType : OperationType.values()) {
+                byOpType.put(opType, new BitSet());
+            }
+        }
+
+        private void add(ChangeRecord rec) {
+            int i = size++;
+            put(i, rec, false);
+            names.add(i, rec.getOriginalName());
+            lastSearch = null;
+            if (rec.isChanged() || rec.getStatus() != ExecStatus.PENDING) {
+                indexOf.put(rec, i);
+            }
+        }
+
+        private void put(int i, ChangeRecord rec, boolean replace) {
+            if (replace) {
+                changed.clear(i);
+                byStatus.values().forEach(bits -> bits.clear(i));
+                byOpType.values().forEach(bits -> bits.clear(i));
+            }
+            if (rec.isChanged()) {
+                changed.set(i);
+            }
+            if (rec.getStatus() != null) {
+                byStatus.get(rec.getStatus()).set(i);
+            }
+            if (rec.getOpType() != null) {
+                byOpType.get(rec.getOpType()).set(i);
+            }
+        }
+
+        private boolean matches(int i, Filter filter) {
+            if (filter.isHideUnchanged() && !changed.get(i) && !byStatus.get(ExecStatus.FAILED).get(i)) {
+                return false;
+            }
+            if (filter.getStatus() != null && !byStatus.get(filter.getStatus()).get(i)) {
+                return false;
+            }
+            return filter.getOpType() == null || byOpType.get(filter.getOpType()).get(i);
+        }
+
+        private BitSet candidates(Filter filter) {
+            BitSet result;
+            if (filter.isHideUnchanged()) {
+                result = (BitSet) changed.clone();
+                result.or(byStatus.get(ExecStatus.FAILED));
+            } else {
+                result = new BitSet(size);
+                result.set(0, size);
+            }
+            if (filter.getStatus() != null) {
+                result.and(byStatus.get(filter.getStatus()));
+            }
+            if (filter.getOpType() != null) {
+                result.and(byOpType.get(filter.getOpType()));
+            }
+            if (!filter.getSearch().isEmpty()) {
+                BitSet hits = search(filter.getSearch());
+                if (hits != null) {
+                    result.and(hits);
+                }
+            }
+            return result;
+        }
+
+        // 关键词不足三个字时返回 null，候选行不按名称缩小
+        private BitSet search(String key) {
+            if (!key.equals(lastSearch)) {
+                lastHits = names.search(key);
+                lastSearch = key;
+            }
+            return lastHits;
+        }
+    }
+}
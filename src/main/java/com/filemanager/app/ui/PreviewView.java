@@ -14,13 +14,19 @@ import com.filemanager.app.FileManagerPlusApp;
 import com.filemanager.app.base.IAppController;
 import com.filemanager.app.base.IAutoReloadAble;
 import com.filemanager.app.tools.MultiThreadTaskEstimator;
+import com.filemanager.app.tools.NameSearchIndex;
 import com.filemanager.app.tools.display.DetailWindowHelper;
 import com.filemanager.app.tools.display.StyleFactory;
 import com.filemanager.app.tools.display.ThemeConfig;
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.RunStatistics;
+import com.filemanager.tool.StorageDeviceRegistry;
 import com.filemanager.tool.ThreadPoolManager;
+import com.filemanager.tool.VirtualThreadSupport;
 import com.filemanager.type.ExecStatus;
 import com.filemanager.type.OperationType;
+import com.filemanager.type.SchedulingPolicy;
+import com.filemanager.type.StorageDeviceType;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import com.filemanager.util.file.FileSizeFormatUtil;
@@ -51,8 +57,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 @Getter
 public class PreviewView implements IAutoReloadAble {
@@ -66,9 +70,12 @@ public class PreviewView implements IAutoReloadAble {
     private final Map<String, Spinner<Integer>> rootPathSpinners = new HashMap<>();
     private final Map<String, ProgressBar> rootPathProgressBars = new HashMap<>();
     private final Map<String, Label> rootPathProgressLabels = new HashMap<>();
+    private final Map<String, JFXComboBox<StorageDeviceType>> rootPathDeviceTypes = new HashMap<>();
     private VBox viewNode;
     // UI Components
     private TreeTableView<ChangeRecord> previewTable;
+    // 预览列表的增量更新模型
+    private PreviewTableModel tableModel;
     private ProgressBar mainProgressBar;
     private Label runningLabel, statsLabel;
     private JFXTextField txtSearchFilter;
@@ -77,6 +84,12 @@ public class PreviewView implements IAutoReloadAble {
     private JFXCheckBox chkHideUnchanged;
     private Spinner<Integer> spPreviewThreads;
     private Spinner<Integer> spExecutionThreads;
+    // 执行线程数自动调优
+    private JFXCheckBox chkAutoTuneThreads;
+    // I/O 密集型任务使用虚拟线程
+    private JFXCheckBox chkVirtualThreads;
+    // 执行调度策略
+    private JFXComboBox<SchedulingPolicy> cbSchedulingPolicy;
     // 全选复选框
     private JFXCheckBox chkSelectAll;
     // 删除按钮
@@ -181,20 +194,37 @@ public class PreviewView implements IAutoReloadAble {
         spExecutionThreads.setEditable(true);
         spExecutionThreads.setTooltip(new Tooltip("执行线程数：用于管道任务执行"));
 
+        chkAutoTuneThreads = new JFXCheckBox("自动调优");
+        chkAutoTuneThreads.setTooltip(new Tooltip("执行时根据实际吞吐自动增减各线程池的线程数，并按存储设备记住最佳线程数供下次使用"));
+
+        chkVirtualThreads = new JFXCheckBox("虚拟线程");
+        if (VirtualThreadSupport.isSupported()) {
+            chkVirtualThreads.setTooltip(new Tooltip("重命名、移动、删除、刮削等 I/O 密集型任务使用虚拟线程执行，并发按存储设备限制；转换、切分仍使用执行线程池"));
+        } else {
+            chkVirtualThreads.setDisable(true);
+            chkVirtualThreads.setTooltip(new Tooltip("当前 Java 运行时（" + System.getProperty("java.version") + "）不支持虚拟线程，需要 Java 21 及以上"));
+        }
+
+        cbSchedulingPolicy = new JFXComboBox<>(FXCollections.observableArrayList(SchedulingPolicy.values()));
+        cbSchedulingPolicy.setValue(SchedulingPolicy.AUTO);
+        cbSchedulingPolicy.setTooltip(new Tooltip("就绪任务的执行顺序：自动（机械硬盘按目录顺序，转换等耗时长的任务优先开始，重命名等快速任务填补空闲）、"
+                + "列表顺序、耗时长的优先、快速操作优先、按目录顺序。耗时按文件大小、编码格式和历史执行耗时估算"));
+
         // 设置预览数量 默认200
         numberDisplay = new JFXComboBox<>(FXCollections.observableArrayList(50, 100, 200, 500, 1000, 2000, 5000));
         numberDisplay.getSelectionModel().selectFirst();
+        numberDisplay.valueProperty().addListener((o, old, v) -> app.refreshPreviewTableFilter());
 
         // 线程池模式选择
-        cbThreadPoolMode = new JFXComboBox<>(FXCollections.observableArrayList(ThreadPoolManager.MODE_GLOBAL, ThreadPoolManager.MODE_ROOT_PATH));
+        cbThreadPoolMode = new JFXComboBox<>(FXCollections.observableArrayList(ThreadPoolManager.MODE_GLOBAL, ThreadPoolManager.MODE_ROOT_PATH, ThreadPoolManager.MODE_DEVICE));
         cbThreadPoolMode.getSelectionModel().select(0); // 默认使用全局统一配置
-        cbThreadPoolMode.setTooltip(new Tooltip("选择线程池模式：全局统一配置或根路径独立配置"));
+        cbThreadPoolMode.setTooltip(new Tooltip("选择线程池模式：全局统一配置、根路径独立配置或存储设备独立配置（同一硬盘上的根路径共用线程池，机械硬盘低并发顺序执行，固态硬盘高并发）"));
         cbThreadPoolMode.valueProperty().addListener((o, oldVal, newVal) -> {
             // 调用App的方法切换线程池模式
             boolean success = app.setThreadPoolMode(newVal);
             if (success) {
                 // 线程池模式切换成功，更新根路径配置区域的可见性
-                boolean isRootPathMode = ThreadPoolManager.MODE_ROOT_PATH.equals(newVal);
+                boolean isRootPathMode = !ThreadPoolManager.MODE_GLOBAL.equals(newVal);
                 rootPathThreadConfigBox.setDisable(!isRootPathMode);
 
                 // 控制局部参数配置面板的显示
@@ -290,8 +320,10 @@ public class PreviewView implements IAutoReloadAble {
         rootPathSpinners.clear();
         rootPathProgressBars.clear();
         rootPathProgressLabels.clear();
+        rootPathDeviceTypes.clear();
 
-        boolean isRootPathMode = ThreadPoolManager.MODE_ROOT_PATH.equals(cbThreadPoolMode.getValue());
+        boolean isRootPathMode = !ThreadPoolManager.MODE_GLOBAL.equals(cbThreadPoolMode.getValue());
+        boolean isDeviceMode = ThreadPoolManager.MODE_DEVICE.equals(cbThreadPoolMode.getValue());
 
         if (!isRootPathMode) {
             Label modeLabel = new Label("当前使用全局统一配置模式，所有根路径共用线程数设置");
@@ -353,15 +385,9 @@ public class PreviewView implements IAutoReloadAble {
             rootPathSpinners.put(rootPath, executionSpinner);
             rootPathSpinners.put(rootPath + "_preview", previewSpinner);
 
-            // 计算该根路径下的文件数量
-            long fileCount = app.getFullChangeList().stream()
-                    .filter(record -> record.getOriginalName().startsWith(rootPath))
-                    .count();
-
-            // 计算该根路径下待执行的文件数量
-            long pendingCount = app.getFullChangeList().stream()
-                    .filter(record -> record.getOriginalName().startsWith(rootPath) && record.isChanged() && record.getStatus() == ExecStatus.PENDING)
-                    .count();
+            // 该根路径下的文件数量和待执行数量
+            long fileCount = app.getRunStatistics().getRootTotal(rootPath);
+            long pendingCount = app.getRunStatistics().getRootPending(rootPath);
 
             // 创建折叠面板内容
             VBox content = new VBox(10);
@@ -393,6 +419,11 @@ public class PreviewView implements IAutoReloadAble {
                     previewSpinner,
                     new Label("执行线程: "),
                     executionSpinner);
+            // 设备模式下线程数由设备类型决定
+            threadConfig.setDisable(isDeviceMode);
+
+            // 存储设备配置
+            HBox deviceConfig = createDeviceConfigRow(rootPath);
 
             // 预览数量上限配置
             Spinner<Integer> previewLimitSpinner = new Spinner<>(1, 10000, 1000);
@@ -443,7 +474,7 @@ public class PreviewView implements IAutoReloadAble {
             // 将所有参数添加到垂直布局中，避免一行显示过多内容
             VBox allParamsBox = new VBox(10);
             allParamsBox.setAlignment(Pos.CENTER_LEFT);
-            allParamsBox.getChildren().addAll(threadConfig, previewLimit, executionLimit);
+            allParamsBox.getChildren().addAll(threadConfig, deviceConfig, previewLimit, executionLimit);
 
             // 保存根路径数量上限配置引用
             rootPathPreviewLimits.put(rootPath, previewLimitSpinner);
@@ -486,6 +517,38 @@ public class PreviewView implements IAutoReloadAble {
         }
     }
 
+    /**
+     * 创建存储设备配置行：显示探测结果，允许手动指定设备类型
+     */
+    private HBox createDeviceConfigRow(String rootPath) {
+        StorageDeviceRegistry registry = app.getStorageDeviceRegistry();
+        JFXComboBox<StorageDeviceType> cbDeviceType = new JFXComboBox<>(FXCollections.observableArrayList(
+                StorageDeviceType.AUTO, StorageDeviceType.HDD, StorageDeviceType.SSD));
+        cbDeviceType.setValue(registry.getOverride(rootPath));
+        cbDeviceType.setTooltip(new Tooltip("存储设备类型，自动检测不准确时可手动指定，同一设备上的根路径共用该设置"));
+        Label probeLabel = new Label("检测中...");
+        probeLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #666;");
+        // 线程池在每轮执行结束后释放，下一轮按新类型创建
+        cbDeviceType.valueProperty().addListener((obs, oldVal, newVal) -> registry.setOverride(rootPath, newVal));
+        rootPathDeviceTypes.put(rootPath, cbDeviceType);
+
+        // 探测需要读磁盘，放到后台执行
+        Thread probeThread = new Thread(() -> {
+            StorageDeviceRegistry.ProbeResult result = registry.getProbeResult(rootPath);
+            String text = "设备: " + registry.getDeviceId(rootPath) + "，检测结果: " + result.getType() + "（" + result.getDetail() + "）";
+            Platform.runLater(() -> probeLabel.setText(text));
+        }, "device-probe");
+        probeThread.setDaemon(true);
+        probeThread.start();
+
+        HBox deviceConfig = new HBox(10);
+        deviceConfig.setAlignment(Pos.CENTER_LEFT);
+        deviceConfig.setFillHeight(false);
+        deviceConfig.setPrefHeight(25);
+        deviceConfig.getChildren().addAll(new Label("设备类型: "), cbDeviceType, probeLabel);
+        return deviceConfig;
+    }
+
     private void buildUI() {
         viewNode = new VBox(5);
         viewNode.setPadding(new Insets(4));
@@ -544,7 +607,10 @@ public class PreviewView implements IAutoReloadAble {
         threadParamsRow.getChildren().addAll(
                 StyleFactory.createParamPairLine("预览线程数:", spPreviewThreads),
                 StyleFactory.createParamPairLine("执行线程数:", spExecutionThreads),
-                StyleFactory.createParamPairLine("线程池模式:", cbThreadPoolMode));
+                chkAutoTuneThreads,
+                chkVirtualThreads,
+                StyleFactory.createParamPairLine("线程池模式:", cbThreadPoolMode),
+                StyleFactory.createParamPairLine("调度策略:", cbSchedulingPolicy));
 
         // 设置整个参数行的最小宽度
         threadParamsRow.setMinWidth(500);
@@ -681,6 +747,7 @@ public class PreviewView implements IAutoReloadAble {
         // 移除硬编码样式，让StyleFactory统一管理
         setupPreviewColumns();
         setupPreviewRows();
+        tableModel = new PreviewTableModel(previewTable, app::log, this::updateDeleteButtonsState);
 
         // 设置根路径线程配置面板的垂直增长优先级
         VBox.setVgrow(rootPathThreadConfigBox, Priority.NEVER);
@@ -693,7 +760,7 @@ public class PreviewView implements IAutoReloadAble {
     }
 
     public void updateRunningProgress(String msg) {
-        Platform.runLater(() -> {
+        app.getUiUpdateBus().post("runningLabel", () -> {
             runningLabel.textProperty().unbind();
             runningLabel.setText(msg);
         });
@@ -704,14 +771,14 @@ public class PreviewView implements IAutoReloadAble {
     }
 
     public void updateStatsDisplay(long t, long c, long s, long f, String tm) {
-        Platform.runLater(() -> statsLabel.setText(String.format("文件总数:%d 需要变更:%d 操作成功:%d 操作失败:%d 过程耗时:%s", t, c, s, f, tm)));
+        app.getUiUpdateBus().post("statsLabel", () -> statsLabel.setText(String.format("文件总数:%d 需要变更:%d 操作成功:%d 操作失败:%d 过程耗时:%s", t, c, s, f, tm)));
     }
 
     /**
      * 更新所有根路径的执行进度
      */
     public void updateRootPathProgress() {
-        Platform.runLater(() -> {
+        app.getUiUpdateBus().post("rootPathProgress", () -> {
             FileManagerPlusApp app = (FileManagerPlusApp) getApp();
             // 遍历所有根路径，更新进度
             for (String rootPath : rootPathProgressBars.keySet()) {
@@ -722,8 +789,9 @@ public class PreviewView implements IAutoReloadAble {
                 if (estimator != null) {
                     double progress = estimator.getProgress();
                     String displayInfo = estimator.getDisplayInfo();
+                    String tuningStatus = app.getRootPathTuningStatus(rootPath);
                     progressBar.setProgress(progress);
-                    progressLabel.setText(displayInfo);
+                    progressLabel.setText(tuningStatus != null ? displayInfo + "  " + tuningStatus : displayInfo);
                 } else {
                     // 如果没有估算器，显示默认信息
                     progressBar.setProgress(-1); // -1表示不确定进度
@@ -733,6 +801,36 @@ public class PreviewView implements IAutoReloadAble {
         });
     }
 
+    /**
+     * 更新单个根路径的扫描进度，每个根路径单独合并更新，互不覆盖
+     *
+     * @param finished 扫描是否已结束，结束前进度条显示为不确定进度
+     */
+    public void updateRootPathScanProgress(String rootPath, String msg, boolean finished) {
+        app.getUiUpdateBus().post("rootPathScan:" + rootPath, () -> {
+            ProgressBar progressBar = rootPathProgressBars.get(rootPath);
+            Label progressLabel = rootPathProgressLabels.get(rootPath);
+            if (progressBar == null || progressLabel == null) {
+                // 全局配置模式下没有根路径进度行
+                return;
+            }
+            progressBar.setProgress(finished ? 1 : -1);
+            progressLabel.setText("扫描进度: " + msg);
+        });
+    }
+
+    public boolean isAutoTuneEnabled() {
+        return chkAutoTuneThreads.isSelected();
+    }
+
+    public boolean isVirtualThreadsEnabled() {
+        return chkVirtualThreads.isSelected();
+    }
+
+    public SchedulingPolicy getSchedulingPolicy() {
+        return cbSchedulingPolicy.getValue() != null ? cbSchedulingPolicy.getValue() : SchedulingPolicy.AUTO;
+    }
+
     private void setupPreviewColumns() {
         // 添加选择列
         TreeTableColumn<ChangeRecord, Boolean> selectionColumn = new TreeTableColumn<>();
@@ -992,76 +1090,42 @@ public class PreviewView implements IAutoReloadAble {
 
     /**
      * 刷新列表
+     * <p>
+     * 只处理上次刷新之后状态变化、新增的记录，以及筛选条件的变化；可在任意线程调用，其他线程的调用经界面更新总线合并为一次。
      */
     public void refresh() {
-        List<ChangeRecord> fullChangeList = app.getFullChangeList();
-        if (fullChangeList.isEmpty()) return;
-        String s = getTxtSearchFilter().getText().toLowerCase();
-        String st = getCbStatusFilter().getValue();
-        String opType = getCbOperationTypeFilter().getValue();
-        boolean h = getChkHideUnchanged().isSelected();
-
-        Task<TreeItem<ChangeRecord>> t = new Task<TreeItem<ChangeRecord>>() {
-            @Override
-            protected TreeItem<ChangeRecord> call() {
-                TreeItem<ChangeRecord> root = new TreeItem<>(new ChangeRecord());
-                root.setExpanded(true);
-                int limit = numberDisplay.getValue();
-
-                // 构建筛选条件
-                Predicate<ChangeRecord> hideUnchangedPredicate = r -> !h || r.isChanged() || r.getStatus() == ExecStatus.FAILED;
-                Predicate<ChangeRecord> searchPredicate = r -> s.isEmpty() || r.getOriginalName().toLowerCase().contains(s);
-                Predicate<ChangeRecord> statusPredicate = r -> {
-                    if ("全部".equals(st)) return true;
-                    if ("执行中".equals(st)) return r.getStatus() == ExecStatus.RUNNING;
-                    if ("成功".equals(st)) return r.getStatus() == ExecStatus.SUCCESS;
-                    if ("失败".equals(st)) return r.getStatus() == ExecStatus.FAILED;
-                    if ("跳过".equals(st)) return r.getStatus() == ExecStatus.SKIPPED;
-                    return true;
-                };
-                Predicate<ChangeRecord> operationTypePredicate = r -> {
-                    if ("全部".equals(opType)) return true;
-                    return r.getOpType() != null && opType.equals(r.getOpType().name);
-                };
-
-                // 组合所有筛选条件
-                Predicate<ChangeRecord> allPredicates = hideUnchangedPredicate
-                        .and(searchPredicate)
-                        .and(statusPredicate)
-                        .and(operationTypePredicate);
-
-                // 使用并行流处理，优化性能
-                List<ChangeRecord> filteredList = fullChangeList.parallelStream()
-                        .filter(allPredicates)
-                        .limit(limit)
-                        .collect(Collectors.toList());
-
-                // 如果超过限制，记录日志
-                if (filteredList.size() >= limit) {
-                    app.log("注意：实时预览数据限制为" + limit + "条！");
-                }
+        if (!Platform.isFxApplicationThread()) {
+            app.getUiUpdateBus().post("previewRefresh", this::refresh);
+            return;
+        }
+        tableModel.update(app.getFullChangeList(), app.getRunStatistics(), currentFilter());
+        // 顺便也刷新下统计
+        updateStats();
+    }
 
-                // 将筛选结果添加到树结构中
-                for (ChangeRecord r : filteredList) {
-                    root.getChildren().add(new TreeItem<>(r));
-                }
+    /**
+     * 清空预览列表
+     */
+    public void clearPreview() {
+        tableModel.clear();
+    }
 
-                return root;
+    private PreviewTableModel.Filter currentFilter() {
+        String st = getCbStatusFilter().getValue();
+        ExecStatus status = null;
+        if ("执行中".equals(st)) status = ExecStatus.RUNNING;
+        if ("成功".equals(st)) status = ExecStatus.SUCCESS;
+        if ("失败".equals(st)) status = ExecStatus.FAILED;
+        if ("跳过".equals(st)) status = ExecStatus.SKIPPED;
+        String opName = getCbOperationTypeFilter().getValue();
+        OperationType opType = null;
+        for (OperationType type : OperationType.values()) {
+            if (type.name.equals(opName)) {
+                opType = type;
             }
-        };
-        t.setOnSucceeded(e -> {
-            getPreviewTable().setRoot(t.getValue());
-            // 更新按钮状态
-            updateDeleteButtonsState();
-        });
-        t.setOnFailed(e -> {
-            getPreviewTable().setRoot(t.getValue());
-            // 更新按钮状态
-            updateDeleteButtonsState();
-        });
-        new Thread(t).start();
-        // 顺便也刷新下统计
-        updateStats();
+        }
+        return new PreviewTableModel.Filter(NameSearchIndex.normalize(getTxtSearchFilter().getText()), status, opType,
+                getChkHideUnchanged().isSelected(), numberDisplay.getValue());
     }
 
     /**
@@ -1081,13 +1145,17 @@ public class PreviewView implements IAutoReloadAble {
     }
 
     public void updateStats() {
-        List<ChangeRecord> fullChangeList = app.getFullChangeList();
-        long startT = app.getTaskStartTimStamp();
-        long t = fullChangeList.size(),
-                c = fullChangeList.stream().filter(ChangeRecord::isChanged).count(),
-                s = fullChangeList.stream().filter(r -> r.getStatus() == ExecStatus.SUCCESS).count(),
-                f = fullChangeList.stream().filter(r -> r.getStatus() == ExecStatus.FAILED).count();
-        this.updateStatsDisplay(t, c, s, f, MultiThreadTaskEstimator.formatDuration(System.currentTimeMillis() - startT));
+        // 计数随记录状态变化实时维护，不需要遍历列表；刷新时再读取，多次调用只读取一次
+        app.getUiUpdateBus().post("stats", () -> {
+            RunStatistics stats = app.getRunStatistics();
+            long startT = app.getTaskStartTimStamp();
+            long t = stats.getTotal(),
+                    c = stats.getChanged(),
+                    s = stats.getCount(ExecStatus.SUCCESS),
+                    f = stats.getCount(ExecStatus.FAILED);
+            statsLabel.setText(String.format("文件总数:%d 需要变更:%d 操作成功:%d 操作失败:%d 过程耗时:%s", t, c, s, f,
+                    MultiThreadTaskEstimator.formatDuration(System.currentTimeMillis() - startT)));
+        });
     }
 
     /**
@@ -1227,6 +1295,17 @@ public class PreviewView implements IAutoReloadAble {
         props.setProperty("preview_threads", String.valueOf(spPreviewThreads.getValue()));
         props.setProperty("execution_threads", String.valueOf(spExecutionThreads.getValue()));
         props.setProperty("thread_pool_mode", cbThreadPoolMode.getValue());
+        props.setProperty("auto_tune_threads", String.valueOf(chkAutoTuneThreads.isSelected()));
+        props.setProperty("virtual_threads", String.valueOf(chkVirtualThreads.isSelected()));
+        props.setProperty("scheduling_policy", getSchedulingPolicy().name());
+        // 保存修正后的任务耗时估算
+        for (java.util.Map.Entry<OperationType, String> entry : app.getTaskCostModel().export().entrySet()) {
+            props.setProperty("op_cost_" + entry.getKey().name(), entry.getValue());
+        }
+        // 保存各设备自动调优得到的线程数
+        for (java.util.Map.Entry<String, Integer> entry : app.getStorageDeviceRegistry().getAllLearnedThreads().entrySet()) {
+            props.setProperty("auto_tune_device_" + entry.getKey(), String.valueOf(entry.getValue()));
+        }
 
         // 保存全局数量上限配置
         props.setProperty("global_preview_limit", String.valueOf(spGlobalPreviewLimit.getValue()));
@@ -1240,6 +1319,12 @@ public class PreviewView implements IAutoReloadAble {
             props.setProperty(key, String.valueOf(entry.getValue().getValue()));
         }
 
+        // 保存存储设备类型配置
+        for (java.util.Map.Entry<String, JFXComboBox<StorageDeviceType>> entry : rootPathDeviceTypes.entrySet()) {
+            String key = "root_device_type_" + entry.getKey().replaceAll("\\\\", "_");
+            props.setProperty(key, entry.getValue().getValue().name());
+        }
+
         // 保存根路径数量上限配置
         for (java.util.Map.Entry<String, Spinner<Integer>> entry : rootPathPreviewLimits.entrySet()) {
             String key = "root_preview_limit_" + entry.getKey().replaceAll("\\\\", "_");
@@ -1271,6 +1356,24 @@ public class PreviewView implements IAutoReloadAble {
         if (props.containsKey("thread_pool_mode")) {
             cbThreadPoolMode.setValue(props.getProperty("thread_pool_mode"));
         }
+        if (props.containsKey("auto_tune_threads")) {
+            chkAutoTuneThreads.setSelected(Boolean.parseBoolean(props.getProperty("auto_tune_threads")));
+        }
+        if (props.containsKey("virtual_threads")) {
+            chkVirtualThreads.setSelected(Boolean.parseBoolean(props.getProperty("virtual_threads")));
+        }
+        if (props.containsKey("scheduling_policy")) {
+            cbSchedulingPolicy.setValue(SchedulingPolicy.fromString(props.getProperty("scheduling_policy")));
+        }
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith("op_cost_")) {
+                app.getTaskCostModel().load(OperationType.fromString(key.substring("op_cost_".length())), props.getProperty(key));
+            }
+            if (key.startsWith("auto_tune_device_")) {
+                app.getStorageDeviceRegistry().setLearnedThreads(key.substring("auto_tune_device_".length()),
+                        Integer.parseInt(props.getProperty(key)));
+            }
+        }
         // 兼容旧配置
         if (props.containsKey("global_threads")) {
             int globalThreads = Integer.parseInt(props.getProperty("global_threads"));
@@ -1304,6 +1407,12 @@ public class PreviewView implements IAutoReloadAble {
                 fileManagerApp.setRootPathExecutionThreads(rootPath, threads);
             }
 
+            // 加载存储设备类型配置
+            String deviceTypeKey = "root_device_type_" + rootPath.replaceAll("\\\\", "_");
+            if (props.containsKey(deviceTypeKey)) {
+                app.getStorageDeviceRegistry().setOverride(rootPath, StorageDeviceType.fromString(props.getProperty(deviceTypeKey)));
+            }
+
             // 加载预览线程数配置
             String previewKey = "root_preview_thread_" + rootPath.replaceAll("\\\\", "_");
             if (props.containsKey(previewKey)) {
@@ -9,13 +9,18 @@
  */
 package com.filemanager.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import com.filemanager.type.ExecStatus;
 import com.filemanager.type.OperationType;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -32,7 +37,8 @@ public class ChangeRecord {
     // 最终路径
     private String newPath;
     private OperationType opType;
-    private Map<String, String> extraParams = new HashMap<>();
+    // 附加参数，首次使用时创建；同一步骤的记录通过 RecordParams 共用参数模板
+    private Map<String, String> extraParams;
     private ExecStatus status = ExecStatus.PENDING;
     // 失败的原因
     private String failReason;
@@ -44,6 +50,26 @@ public class ChangeRecord {
     // 链式处理中的中间状态文件（如果不为空，说明这是上一步产生的临时状态）
     private File intermediateFile;
 
+    // 扫描时的属性快照，仅对应扫描得到的原始文件句柄
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private ScannedEntry scannedEntry;
+
+    // 所属的运行统计及统计用的根路径，状态变化时同步更新计数
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile transient RunStatistics statistics;
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient String statisticsRoot;
+
     public ChangeRecord(String o, String n, File f, boolean c, String p, OperationType op) {
         this.originalName = o;
         this.newName = n;
@@ -70,6 +96,92 @@ public class ChangeRecord {
         return intermediateFile != null ? intermediateFile : fileHandle;
     }
 
+    /**
+     * 使用扫描得到的条目创建未变更的记录
+     */
+    public static ChangeRecord of(ScannedEntry entry) {
+        File f = entry.getFile();
+        // 原名与新名、最终路径与文件句柄共用同一个字符串，大量记录时不重复占用内存
+        String name = f.getName();
+        String path = f.isAbsolute() ? f.getPath() : f.getAbsolutePath();
+        ChangeRecord rec = new ChangeRecord(name, name, f, false, path, OperationType.NONE);
+        rec.scannedEntry = entry;
+        return rec;
+    }
+
+    // 文件句柄仍是扫描得到的那个时使用属性快照，否则访问文件系统
+    private ScannedEntry entryOfHandle() {
+        return scannedEntry != null && scannedEntry.getFile() == fileHandle ? scannedEntry : null;
+    }
+
+    @JsonIgnore
+    public boolean isDirectory() {
+        ScannedEntry entry = entryOfHandle();
+        return entry != null ? entry.isDirectory() : fileHandle.isDirectory();
+    }
+
+    @JsonIgnore
+    public boolean isFile() {
+        ScannedEntry entry = entryOfHandle();
+        return entry != null ? entry.isFile() : fileHandle.isFile();
+    }
+
+    public long length() {
+        ScannedEntry entry = entryOfHandle();
+        return entry != null ? entry.length() : fileHandle.length();
+    }
+
+    public long lastModified() {
+        ScannedEntry entry = entryOfHandle();
+        return entry != null ? entry.lastModified() : fileHandle.lastModified();
+    }
+
+    /**
+     * 加入运行统计，由 RunStatistics.add 调用
+     */
+    synchronized void attachStatistics(RunStatistics stats, String root) {
+        if (statistics == stats) {
+            return;
+        }
+        statistics = stats;
+        statisticsRoot = root;
+        stats.count(this, root, 1);
+        statisticsAttached(stats);
+    }
+
+    /**
+     * 关联运行统计但不计数，用于同一条记录的另一个对象（如从磁盘恢复的副本），由 RunStatistics.reattach 调用
+     */
+    synchronized void reattachStatistics(RunStatistics stats, String root) {
+        statistics = stats;
+        statisticsRoot = root;
+    }
+
+    /**
+     * 加入运行统计并计数后调用，子类可记录所属的统计
+     */
+    protected void statisticsAttached(RunStatistics stats) {
+    }
+
+    // 修改影响统计的字段：先扣减旧状态的计数，修改后再按新状态累加。
+    // 判断是否已加入统计和修改字段都在同一把锁内，与 attachStatistics 互斥，
+    // 否则加入统计时按旧状态计数、随后的修改又没有扣减，计数会一直偏差
+    private void updateCounted(Runnable change) {
+        RunStatistics stats;
+        synchronized (this) {
+            stats = statistics;
+            if (stats == null) {
+                change.run();
+                return;
+            }
+            stats.count(this, statisticsRoot, -1);
+            change.run();
+            stats.count(this, statisticsRoot, 1);
+        }
+        // 通知预览列表该记录需要重新筛选
+        stats.updated(this);
+    }
+
     // 手动添加常用的getter和setter方法，确保其他类能够访问这些属性
     public String getOriginalName() { return this.originalName; }
     public void setOriginalName(String originalName) { this.originalName = originalName; }
@@ -78,15 +190,22 @@ public class ChangeRecord {
     public File getFileHandle() { return this.fileHandle; }
     public void setFileHandle(File fileHandle) { this.fileHandle = fileHandle; }
     public boolean isChanged() { return this.changed; }
-    public void setChanged(boolean changed) { this.changed = changed; }
+    public void setChanged(boolean changed) { updateCounted(() -> this.changed = changed); }
     public String getNewPath() { return this.newPath; }
     public void setNewPath(String newPath) { this.newPath = newPath; }
     public OperationType getOpType() { return this.opType; }
-    public void setOpType(OperationType opType) { this.opType = opType; }
-    public Map<String, String> getExtraParams() { return this.extraParams; }
+    public void setOpType(OperationType opType) { updateCounted(() -> this.opType = opType); }
+    public Map<String, String> getExtraParams() {
+        if (this.extraParams == null) {
+            this.extraParams = new RecordParams();
+        }
+        return this.extraParams;
+    }
     public void setExtraParams(Map<String, String> extraParams) { this.extraParams = extraParams; }
+    // 判断是否带附加参数，不创建空参数表
+    public boolean hasExtraParams() { return this.extraParams != null && !this.extraParams.isEmpty(); }
     public ExecStatus getStatus() { return this.status; }
-    public void setStatus(ExecStatus status) { this.status = status; }
+    public void setStatus(ExecStatus status) { updateCounted(() -> this.status = status); }
     public String getFailReason() { return this.failReason; }
     public void setFailReason(String failReason) { this.failReason = failReason; }
     public boolean isCreate() { return this.isCreate; }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 分析阶段的记录仓库：按路径、父目录、根路径建立索引，代替逐条遍历记录列表查找
+ * <p>
+ * 创建时一次建立全部索引，之后只读，可在多个分析线程中同时使用。
+ * 查找结果与按列表顺序遍历一致：同一路径有多条记录时取第一条，目录下的记录保持列表中的顺序。
+ */
+public class ChangeRecordRepository implements Iterable<ChangeRecord> {
+
+    private static final ChangeRecordRepository EMPTY = new ChangeRecordRepository(Collections.emptyList(), Collections.emptyList());
+
+    private final List<ChangeRecord> records;
+    // records 的底层列表，release 时清空
+    private final List<ChangeRecord> backing;
+    private final Map<File, ChangeRecord> byPath;
+    private final Map<File, List<ChangeRecord>> byParent;
+    private final Map<File, List<ChangeRecord>> byRoot;
+
+    private ChangeRecordRepository(List<ChangeRecord> records, List<File> rootDirs) {
+        this.backing = records;
+        this.records = Collections.unmodifiableList(records);
+        this.byPath = new HashMap<>(records.size() * 4 / 3 + 1);
+        this.byParent = new HashMap<>();
+        this.byRoot = new HashMap<>();
+        Set<File> roots = new HashSet<>(rootDirs);
+        for (ChangeRecord rec : records) {
+            File file = rec.getFileHandle();
+            byPath.putIfAbsent(file, rec);
+            File parent = file.getParentFile();
+            if (parent != null) {
+                byParent.computeIfAbsent(parent, k -> new ArrayList<>()).add(rec);
+            }
+            File root = findRoot(file, roots);
+            if (root != null) {
+                byRoot.computeIfAbsent(root, k -> new ArrayList<>()).add(rec);
+            }
+        }
+    }
+
+    /**
+     * 为记录列表建立索引，列表之后的修改不会反映到仓库中
+     *
+     * @param rootDirs 根路径，用于按根路径查找
+     */
+    public static ChangeRecordRepository of(List<ChangeRecord> records, List<File> rootDirs) {
+        if (records.isEmpty()) {
+            return EMPTY;
+        }
+        return new ChangeRecordRepository(new ArrayList<>(records), rootDirs);
+    }
+
+    public static ChangeRecordRepository of(List<ChangeRecord> records) {
+        return of(records, Collections.emptyList());
+    }
+
+    /**
+     * 查找路径对应的记录，与 File.equals 一致，并要求文件名大小写相同
+     */
+    public ChangeRecord findByPath(File file) {
+        ChangeRecord rec = byPath.get(file);
+        if (rec != null && file.getName().equals(rec.getFileHandle().getName())) {
+            return rec;
+        }
+        return null;
+    }
+
+    /**
+     * 查找目录下直接包含的记录，要求目录名大小写相同
+     */
+    public List<ChangeRecord> findUnderDir(File dir) {
+        List<ChangeRecord> children = byParent.get(dir);
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        String name = dir.getName();
+        return children.stream()
+                .filter(rec -> name.equals(rec.getFileHandle().getParentFile().getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 查找根路径下的所有记录
+     */
+    public List<ChangeRecord> findByRoot(File root) {
+        return Collections.unmodifiableList(byRoot.getOrDefault(root, Collections.emptyList()));
+    }
+
+    /**
+     * 全部记录，只读
+     */
+    public List<ChangeRecord> asList() {
+        return records;
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    public boolean isEmpty() {
+        return records.isEmpty();
+    }
+
+    @Override
+    public Iterator<ChangeRecord> iterator() {
+        return records.iterator();
+    }
+
+    /**
+     * 分析结束后释放索引和记录引用，之后仓库为空；记录本身不受影响
+     */
+    public void release() {
+        if (this == EMPTY) {
+            return;
+        }
+        byPath.clear();
+        byParent.clear();
+        byRoot.clear();
+        backing.clear();
+    }
+
+    private static File findRoot(File file, Set<File> roots) {
+        if (roots.isEmpty()) {
+            return null;
+        }
+        for (File f = file; f != null; f = f.getParentFile()) {
+            if (roots.contains(f)) {
+                return f;
+            }
+        }
+        return null;
+    }
+}
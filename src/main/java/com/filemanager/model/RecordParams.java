@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 记录的附加参数：共享的只读模板 + 每条记录自己的少量改动
+ * <p>
+ * 同一步骤产生的记录大多带有相同的参数（格式、编码、ffmpeg 路径等），模板在步骤内共享一份，
+ * 每条记录只保存与模板不同的部分（如输出目录），没有改动时不额外占用内存。
+ * 读写与普通 Map 一致；条目数随读写维护，遍历时直接合并模板和改动，不复制整表，不支持通过遍历结果修改。
+ */
+public class RecordParams extends AbstractMap<String, String> {
+
+    // 删除模板中参数、值为 null 的标记
+    private static final String REMOVED = new String("");
+    private static final String NULL = new String("");
+
+    private final Map<String, String> template;
+    private Map<String, String> overlay;
+    // 合并后的条目数，随 put/remove 维护
+    private int size;
+
+    public RecordParams() {
+        this(Collections.emptyMap());
+    }
+
+    /**
+     * @param template 共享模板，调用方保证之后不再修改
+     */
+    public RecordParams(Map<String, String> template) {
+        this.template = template;
+        this.size = template.size();
+    }
+
+    /**
+     * 将参数固定为共享模板，供同一步骤的多条记录使用
+     */
+    public static Map<String, String> template(Map<String, String> params) {
+        return Collections.unmodifiableMap(new HashMap<>(params));
+    }
+
+    @Override
+    public String get(Object key) {
+        if (overlay != null) {
+            String value = overlay.get(key);
+            if (value != null) {
+                return value == REMOVED || value == NULL ? null : value;
+            }
+        }
+        return template.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (overlay != null) {
+            String value = overlay.get(key);
+            if (value != null) {
+                return value != REMOVED;
+            }
+        }
+        return template.containsKey(key);
+    }
+
+    @Override
+    public String put(String key, String value) {
+        boolean present = containsKey(key);
+        String old = get(key);
+        overlay().put(key, value == null ? NULL : value);
+        if (!present) {
+            size++;
+        }
+        return old;
+    }
+
+    @Override
+    public String remove(Object key) {
+        boolean present = containsKey(key);
+        String old = get(key);
+        if (template.containsKey(key)) {
+            overlay().put((String) key, REMOVED);
+        } else if (overlay != null) {
+            overlay.remove(key);
+        }
+        if (present) {
+            size--;
+        }
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        overlay = null;
+        if (!template.isEmpty()) {
+            for (String key : template.keySet()) {
+                overlay().put(key, REMOVED);
+            }
+        }
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        if (overlay == null) {
+            return template.entrySet();
+        }
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new MergedIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * 按模板顺序遍历（改动过的取改动后的值，已删除的跳过），再遍历模板中没有的新增参数
+     */
+    private class MergedIterator implements Iterator<Entry<String, String>> {
+        private final Iterator<Entry<String, String>> templateEntries = template.entrySet().iterator();
+        private final Iterator<Entry<String, String>> overlayEntries = overlay.entrySet().iterator();
+        private Entry<String, String> next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && templateEntries.hasNext()) {
+                Entry<String, String> entry = templateEntries.next();
+                String value = overlay.get(entry.getKey());
+                if (value == null) {
+                    next = entry;
+                } else if (value != REMOVED) {
+                    next = new SimpleImmutableEntry<>(entry.getKey(), value == NULL ? null : value);
+                }
+            }
+            while (next == null && overlayEntries.hasNext()) {
+                Entry<String, String> entry = overlayEntries.next();
+                if (entry.getValue() != REMOVED && !template.containsKey(entry.getKey())) {
+                    next = new SimpleImmutableEntry<>(entry.getKey(), entry.getValue() == NULL ? null : entry.getValue());
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<String, String> entry = next;
+            next = null;
+            return entry;
+        }
+    }
+
+    private Map<String, String> overlay() {
+        if (overlay == null) {
+            overlay = new HashMap<>(4);
+        }
+        return overlay;
+    }
+}
@@ -54,6 +54,19 @@ public class RuleCondition {
      * @return 是否满足条件
      */
     public boolean test(File f) {
+        return test(f, null);
+    }
+
+    /**
+     * 校验记录，文件大小和类型使用扫描时的属性快照
+     * @param rec 待检测的记录
+     * @return 是否满足条件
+     */
+    public boolean test(ChangeRecord rec) {
+        return rec != null && test(rec.getFileHandle(), rec);
+    }
+
+    private boolean test(File f, ChangeRecord rec) {
         if (f == null) return false;
 
         String name = f.getName();
@@ -70,8 +83,8 @@ public class RuleCondition {
                 case REGEX_MATCH: return name.matches(value);
 
                 // 2. 属性匹配
-                case FILE_SIZE_GT: return f.length() > parseSize(value);
-                case FILE_SIZE_LT: return f.length() < parseSize(value);
+                case FILE_SIZE_GT: return (rec != null ? rec.length() : f.length()) > parseSize(value);
+                case FILE_SIZE_LT: return (rec != null ? rec.length() : f.length()) < parseSize(value);
                 case PARENT_DIR_IS: return f.getParentFile() != null && f.getParentFile().getName().equals(value);
 
                 // 3. 路径匹配
@@ -89,8 +102,8 @@ public class RuleCondition {
                 case IS_ARCHIVE: return ARCHIVE_EXTS.contains(ext);
                 case IS_NOT_ARCHIVE: return !ARCHIVE_EXTS.contains(ext);
 
-                case IS_DIRECTORY: return f.isDirectory();
-                case IS_FILE: return f.isFile();
+                case IS_DIRECTORY: return rec != null ? rec.isDirectory() : f.isDirectory();
+                case IS_FILE: return rec != null ? rec.isFile() : f.isFile();
 
                 default: return true;
             }
@@ -32,6 +32,15 @@ public class RuleConditionGroup {
         }
         return true;
     }
+
+    // 使用记录的属性快照校验
+    public boolean test(ChangeRecord rec) {
+        if (conditions.isEmpty()) return true;
+        for (RuleCondition c : conditions) {
+            if (!c.test(rec)) return false;
+        }
+        return true;
+    }
     
     public void add(RuleCondition c) { conditions.add(c); }
     public void remove(RuleCondition c) { conditions.remove(c); }
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.model;
+
+import com.filemanager.type.ExecStatus;
+import com.filemanager.type.OperationType;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 变更列表的运行统计
+ * <p>
+ * 记录加入统计后，状态、是否变更、操作类型的每次变化都会同步更新计数，
+ * 读取统计不需要遍历列表。计数使用 LongAdder，多个执行线程同时更新时不会互相争用。
+ */
+public class RunStatistics {
+
+    // 未取走的变化记录上限，超过后只保留溢出标记，由使用方整体刷新
+    private static final int MAX_PENDING_UPDATES = 100_000;
+
+    private final LongAdder total = new LongAdder();
+    private final LongAdder changed = new LongAdder();
+    // 创建后只读，可并发访问
+    private final Map<ExecStatus, LongAdder> byStatus = new EnumMap<>(ExecStatus.class);
+    private final Map<OperationType, LongAdder> changedByOpType = new EnumMap<>(OperationType.class);
+    private final Map<String, RootCounters> byRoot = new ConcurrentHashMap<>();
+    private final List<String> roots = new ArrayList<>();
+    // 父目录对应的根路径，同目录下的记录只匹配一次
+    private final Map<String, String> rootOfParent = new ConcurrentHashMap<>();
+    // 状态变化过的记录，供预览列表增量刷新
+    private final Queue<ChangeRecord> updated = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger updatedCount = new AtomicInteger();
+    private volatile boolean updatesOverflowed = false;
+
+    /**
+     * @param rootDirs 源根路径，用于按根路径统计
+     */
+    public RunStatistics(List<File> rootDirs) {
+        for (ExecStatus status : ExecStatus.values()) {
+            byStatus.put(status, new LongAdder());
+        }
+        for (OperationType opType : OperationType.values()) {
+            changedByOpType.put(opType, new LongAdder());
+        }
+        for (File root : rootDirs) {
+            String rootPath = root.getAbsolutePath();
+            roots.add(rootPath);
+            byRoot.put(rootPath, new RootCounters());
+        }
+        // 嵌套的根路径优先匹配更深的一个
+        roots.sort((a, b) -> b.length() - a.length());
+    }
+
+    public static RunStatistics empty() {
+        return new RunStatistics(Collections.emptyList());
+    }
+
+    /**
+     * 记录加入统计，之后记录的变化自动更新计数
+     */
+    public void add(ChangeRecord rec) {
+        String root = rootOf(rec.getFileHandle());
+        rec.attachStatistics(this, root);
+    }
+
+    /**
+     * 已计入统计的记录换了一个对象（如从磁盘恢复的副本）时关联新对象，不重复计数，之后的变化同样更新计数
+     */
+    public void reattach(ChangeRecord rec) {
+        rec.reattachStatistics(this, rootOf(rec.getFileHandle()));
+    }
+
+    public void addAll(Collection<ChangeRecord> records) {
+        for (ChangeRecord rec : records) {
+            add(rec);
+        }
+    }
+
+    /**
+     * 按记录当前状态累加或扣减计数，由记录在状态变化前后调用
+     */
+    void count(ChangeRecord rec, String root, int delta) {
+        total.add(delta);
+        ExecStatus status = rec.getStatus();
+        if (status != null) {
+            byStatus.get(status).add(delta);
+        }
+        if (rec.isChanged()) {
+            changed.add(delta);
+            if (rec.getOpType() != null) {
+                changedByOpType.get(rec.getOpType()).add(delta);
+            }
+        }
+        RootCounters counters = root != null ? byRoot.get(root) : null;
+        if (counters != null) {
+            counters.total.add(delta);
+            if (rec.isChanged() && status == ExecStatus.PENDING) {
+                counters.pending.add(delta);
+            }
+        }
+    }
+
+    /**
+     * 记录的状态、是否变更或操作类型已变化，由记录在修改后调用
+     */
+    void updated(ChangeRecord rec) {
+        if (updatesOverflowed) {
+            return;
+        }
+        if (updatedCount.incrementAndGet() > MAX_PENDING_UPDATES) {
+            updatesOverflowed = true;
+            updated.clear();
+            return;
+        }
+        updated.add(rec);
+    }
+
+    /**
+     * 取走上次调用之后发生变化的记录，同一条记录可能出现多次
+     *
+     * @return 变化过多未能全部保留时返回 false，调用方应按整个列表重新处理
+     */
+    public boolean drainUpdated(Consumer<ChangeRecord> consumer) {
+        boolean complete = !updatesOverflowed;
+        updatesOverflowed = false;
+        ChangeRecord rec;
+        while ((rec = updated.poll()) != null) {
+            updatedCount.decrementAndGet();
+            if (complete) {
+                consumer.accept(rec);
+            }
+        }
+        if (!complete) {
+            updatedCount.set(updated.size());
+        }
+        return complete;
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getChanged() {
+        return changed.sum();
+    }
+
+    public long getCount(ExecStatus status) {
+        return byStatus.get(status).sum();
+    }
+
+    /**
+     * 指定操作类型的变更数
+     */
+    public long getChangedCount(OperationType opType) {
+        return changedByOpType.get(opType).sum();
+    }
+
+    public long getRootTotal(String rootPath) {
+        RootCounters counters = byRoot.get(rootPath);
+        return counters != null ? counters.total.sum() : 0;
+    }
+
+    /**
+     * 根路径下待执行的变更数
+     */
+    public long getRootPending(String rootPath) {
+        RootCounters counters = byRoot.get(rootPath);
+        return counters != null ? counters.pending.sum() : 0;
+    }
+
+    /**
+     * 按路径前缀匹配根路径，不访问文件系统
+     */
+    private String rootOf(File file) {
+        if (file == null || roots.isEmpty()) {
+            return null;
+        }
+        String path = file.getAbsolutePath();
+        if (byRoot.containsKey(path)) {
+            return path;
+        }
+        String parent = file.getParent();
+        if (parent == null) {
+            return null;
+        }
+        String root = rootOfParent.get(parent);
+        if (root == null) {
+            root = matchRoot(file.getAbsoluteFile().getParent());
+            rootOfParent.put(parent, root);
+        }
+        return root.isEmpty() ? null : root;
+    }
+
+    private String matchRoot(String dir) {
+        for (String root : roots) {
+            if (dir.equals(root) || dir.startsWith(root.endsWith(File.separator) ? root : root + File.separator)) {
+                return root;
+            }
+        }
+        // 空字符串表示不在任何根路径下，同样缓存
+        return "";
+    }
+
+    private static class RootCounters {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder pending = new LongAdder();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 扫描到的条目及其属性快照
+ * <p>
+ * 扫描时读取一次属性，之后的过滤、分析都使用快照，不再逐项访问文件系统。
+ * 从增量扫描索引复用的条目没有属性，首次使用时读取一次。快照反映扫描时的状态，执行阶段仍以实际文件为准。
+ * <p>
+ * 条目随记录保留到预览结束，只保存 File，Path 在使用时由 File 转换，避免每条记录重复保存两份路径。
+ */
+public class ScannedEntry {
+
+    private final File file;
+    private volatile boolean loaded;
+    // 属性未读取时已知的类型（来自增量扫描索引），为 null 表示未知
+    private final Boolean knownDirectory;
+    private boolean exists;
+    private boolean directory;
+    private boolean regularFile;
+    private long size;
+    private long lastModified;
+    private long creationTime;
+
+    private ScannedEntry(Path path, Boolean knownDirectory) {
+        this.file = path.toFile();
+        this.knownDirectory = knownDirectory;
+    }
+
+    /**
+     * 使用已读取的属性创建条目
+     */
+    public static ScannedEntry of(Path path, BasicFileAttributes attrs) {
+        ScannedEntry entry = new ScannedEntry(path, null);
+        entry.apply(attrs);
+        return entry;
+    }
+
+    /**
+     * 读取条目属性，失败时（如失效的符号链接）按不存在处理，与 File 的对应方法一致
+     */
+    public static ScannedEntry read(Path path) {
+        try {
+            return of(path, Files.readAttributes(path, BasicFileAttributes.class));
+        } catch (IOException e) {
+            ScannedEntry entry = new ScannedEntry(path, null);
+            entry.loaded = true;
+            return entry;
+        }
+    }
+
+    /**
+     * 读取目录下的条目，每个条目读取一次属性
+     *
+     * @return 条目列表，目录无法读取时返回 null（与 File.listFiles 一致）
+     */
+    public static List<ScannedEntry> list(File dir) {
+        List<ScannedEntry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath())) {
+            for (Path path : stream) {
+                entries.add(read(path));
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        return entries;
+    }
+
+    /**
+     * 使用之前保存的属性恢复条目（如从磁盘换入的记录），不访问文件系统
+     */
+    public static ScannedEntry restore(Path path, boolean exists, boolean directory, boolean regularFile,
+                                       long size, long lastModified, long creationTime) {
+        ScannedEntry entry = new ScannedEntry(path, null);
+        entry.exists = exists;
+        entry.directory = directory;
+        entry.regularFile = regularFile;
+        entry.size = size;
+        entry.lastModified = lastModified;
+        entry.creationTime = creationTime;
+        entry.loaded = true;
+        return entry;
+    }
+
+    /**
+     * 创建属性未知的条目，首次使用时读取
+     */
+    public static ScannedEntry lazy(Path path) {
+        return new ScannedEntry(path, null);
+    }
+
+    /**
+     * 创建类型已知、其他属性未知的条目，判断类型时不需要读取属性
+     */
+    public static ScannedEntry lazy(Path path, boolean directory) {
+        return new ScannedEntry(path, directory);
+    }
+
+    public Path getPath() {
+        return file.toPath();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean exists() {
+        ensureLoaded();
+        return exists;
+    }
+
+    public boolean isDirectory() {
+        if (!loaded && knownDirectory != null) {
+            return knownDirectory;
+        }
+        ensureLoaded();
+        return directory;
+    }
+
+    /**
+     * 与 File.isFile 一致：普通文件（跟随符号链接）
+     */
+    public boolean isFile() {
+        ensureLoaded();
+        return regularFile;
+    }
+
+    /**
+     * 与 File.length 一致：不存在时为 0
+     */
+    public long length() {
+        ensureLoaded();
+        return size;
+    }
+
+    /**
+     * 与 File.lastModified 一致：毫秒，不存在时为 0
+     */
+    public long lastModified() {
+        ensureLoaded();
+        return lastModified;
+    }
+
+    public long creationTime() {
+        ensureLoaded();
+        return creationTime;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            try {
+                apply(Files.readAttributes(file.toPath(), BasicFileAttributes.class));
+            } catch (IOException e) {
+                // 不存在或无权访问，与 File 的对应方法一样返回 false/0
+                loaded = true;
+            }
+        }
+    }
+
+    private void apply(BasicFileAttributes attrs) {
+        exists = true;
+        directory = attrs.isDirectory();
+        regularFile = attrs.isRegularFile();
+        size = attrs.size();
+        lastModified = attrs.lastModifiedTime().toMillis();
+        creationTime = attrs.creationTime().toMillis();
+        loaded = true;
+    }
+}
@@ -12,9 +12,13 @@ package com.filemanager.strategy;
 import com.filemanager.app.base.IAppStrategy;
 import com.filemanager.app.tools.display.StyleFactory;
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.ChangeRecordRepository;
+import com.filemanager.model.RecordParams;
+import com.filemanager.tool.CancellationToken;
 import com.filemanager.tool.file.PathUtils;
 import com.filemanager.type.ScanTarget;
 import com.filemanager.util.MetadataHelper;
+import com.filemanager.util.ProcessUtils;
 import com.jfoenix.controls.JFXButton;
 import com.jfoenix.controls.JFXComboBox;
 import javafx.collections.FXCollections;
@@ -26,7 +30,6 @@ import javafx.scene.control.Tooltip;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import net.bramp.ffmpeg.FFmpeg;
-import net.bramp.ffmpeg.FFmpegExecutor;
 import net.bramp.ffmpeg.builder.FFmpegBuilder;
 import net.bramp.ffmpeg.builder.FFmpegOutputBuilder;
 import org.apache.commons.lang3.StringUtils;
@@ -36,6 +39,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 
 public abstract class AbstractFfmpegStrategy extends IAppStrategy {
@@ -77,6 +81,8 @@ public abstract class AbstractFfmpegStrategy extends IAppStrategy {
     protected String pChannels;
     // 自动格式化目标文件名
     protected boolean pAutoFormatFilename;
+    // 与具体文件无关的参数模板，captureParams 后重建
+    private volatile Map<String, String> sharedParams;
 
     public AbstractFfmpegStrategy() {
         cbTargetFormat = new JFXComboBox<>(FXCollections.observableArrayList("WAV (CD标准)", "FLAC", "WAV", "MP3", "ALAC", "AAC", "OGG"));
@@ -213,12 +219,17 @@ public abstract class AbstractFfmpegStrategy extends IAppStrategy {
     }
 
     @Override
-    public List<ChangeRecord> analyze(ChangeRecord currentRecord, List<ChangeRecord> inputRecords, List<File> rootDirs) {
+    public List<ChangeRecord> analyze(ChangeRecord currentRecord, ChangeRecordRepository inputRecords, List<File> rootDirs) {
         return Collections.emptyList();
     }
 
     @Override
     public void execute(ChangeRecord rec) throws Exception {
+        execute(rec, CancellationToken.NONE);
+    }
+
+    @Override
+    public void execute(ChangeRecord rec, CancellationToken token) throws Exception {
         File source = rec.getFileHandle();
         File target = new File(rec.getNewPath());
         File finalTarget = target;
@@ -236,7 +247,13 @@ public abstract class AbstractFfmpegStrategy extends IAppStrategy {
             if (!target.getParentFile().exists()) target.getParentFile().mkdirs();
         }
 
-        convertAudioFile(source, target, rec.getExtraParams());
+        try {
+            convertAudioFile(source, target, rec.getExtraParams(), token);
+        } catch (CancellationException e) {
+            // 停止时删除写了一半的输出（缓存文件或目标文件）
+            Files.deleteIfExists(target.toPath());
+            throw e;
+        }
 
         if (stagingFile != null && stagingFile.exists()) {
             if (!finalTarget.getParentFile().exists()) finalTarget.getParentFile().mkdirs();
@@ -261,6 +278,7 @@ public abstract class AbstractFfmpegStrategy extends IAppStrategy {
         pSampleRate = cbSampleRate.getValue();
         pChannels = cbChannels.getValue();
         pAutoFormatFilename = chkAutoFormatFilename.isSelected();
+        sharedParams = null;
     }
 
     @Override
@@ -356,19 +374,21 @@ public abstract class AbstractFfmpegStrategy extends IAppStrategy {
         return "";
     }
 
-    protected void convertAudioFile(File source, File target, Map<String, String> params) throws Exception {
+    protected void convertAudioFile(File source, File target, Map<String, String> params, CancellationToken token) throws Exception {
         String ffmpegPath = params.getOrDefault("ffmpegPath", "ffmpeg");
         if (ffmpeg == null) {
             ffmpeg = new FFmpeg(ffmpegPath);
         }
         boolean forceMeta = "true".equals(params.get("forceMeta"));
         try {
-            runFFmpegJob(ffmpeg, source, target, params, !forceMeta);
+            runFFmpegJob(ffmpeg, source, target, params, !forceMeta, token);
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             if (!forceMeta) {
                 try {
                     if (target.exists()) target.delete();
-                    runFFmpegJob(ffmpeg, source, target, params, false);
+                    runFFmpegJob(ffmpeg, source, target, params, false, token);
                 } catch (IOException retryEx) {
                     throw new IOException("重试失败: " + retryEx.getMessage(), retryEx);
                 }
@@ -378,7 +398,8 @@ public abstract class AbstractFfmpegStrategy extends IAppStrategy {
         }
     }
 
-    protected void runFFmpegJob(FFmpeg ffmpeg, File source, File target, Map<String, String> params, boolean mapMetadata) throws Exception {
+    protected void runFFmpegJob(FFmpeg ffmpeg, File source, File target, Map<String, String> params, boolean mapMetadata,
+                                CancellationToken token) throws Exception {
         FFmpegBuilder builder = new FFmpegBuilder()
                 .setInput(source.getAbsolutePath())
                 .overrideOutputFiles(true)
@@ -458,12 +479,17 @@ public abstract class AbstractFfmpegStrategy extends IAppStrategy {
         log("▶ 执行ffmpeg命令： " + StringUtils.join(outputBuilder.done().build(), " "));
 //        FFmpegAudioToolkit.init(ffmpeg);
 //        FFmpegAudioToolkit.runJob(outputBuilder.done(), FFmpegAudioToolkit.ExecutionMode.NATIVE);
-        new FFmpegExecutor(ffmpeg).createJob(outputBuilder.done()).run();
+        // 自行启动进程，停止时可以立即结束 ffmpeg
+        ProcessUtils.Result result = ProcessUtils.run(ffmpeg.path(outputBuilder.done().build()), token);
+        if (result.getExitCode() != 0) {
+            throw new IOException("ffmpeg 退出码: " + result.getExitCode() + "，输出: " + result.getOutput());
+        }
     }
 
 
     protected Map<String, String> getParams(File parentDir, String tempName) {
-        Map<String, String> params = new HashMap<>();
+        // 记录只保存输出目录等与文件相关的参数，其余参数共用模板
+        Map<String, String> params = new RecordParams(getSharedParams());
         // [核心优化] 默认目录名逻辑
         if (pRelPath == null || pRelPath.trim().isEmpty()) {
             String cleanFormat = pFormat != null ? pFormat.split(" ")[0].toUpperCase() : "UNK";
@@ -491,6 +517,30 @@ public abstract class AbstractFfmpegStrategy extends IAppStrategy {
 
         params.put("parentPath", parentPath);
 
+        if (pUseCache) {
+            String tempFileName = UUID.randomUUID().toString();
+            File stagingFile = new File(pCacheDir, tempFileName);
+            params.put("stagingPath", stagingFile.getAbsolutePath());
+        } else if (pUseTempSuffix) {
+            params.put("stagingPath", new File(parentPath, tempName + ".temp").getAbsolutePath());
+        }
+        return params;
+    }
+
+    /**
+     * 与具体文件无关的参数，同一次分析产生的记录共用一份，参数重新读取（captureParams）后重建
+     */
+    private Map<String, String> getSharedParams() {
+        Map<String, String> shared = sharedParams;
+        if (shared == null) {
+            shared = buildSharedParams();
+            sharedParams = shared;
+        }
+        return shared;
+    }
+
+    private Map<String, String> buildSharedParams() {
+        Map<String, String> params = new HashMap<>();
         // [核心优化] 确定最终参数：如果是 CD 模式，强制覆盖 UI 选项
         final boolean isCdMode = "WAV (CD标准)".equals(pFormat);
         final String extension = isCdMode ? "wav" : (pFormat != null ? pFormat.toLowerCase() : "flac");
@@ -540,17 +590,9 @@ public abstract class AbstractFfmpegStrategy extends IAppStrategy {
             params.put("codec", "libmp3lame");
         }
 
-        if (pUseCache) {
-            String tempFileName = UUID.randomUUID().toString();
-            File stagingFile = new File(pCacheDir, tempFileName);
-            params.put("stagingPath", stagingFile.getAbsolutePath());
-        } else if (pUseTempSuffix) {
-            params.put("stagingPath", new File(parentPath, tempName + ".temp").getAbsolutePath());
-        }
-        
         // 添加自动格式化目标文件名的参数
         params.put("autoFormatFilename", String.valueOf(pAutoFormatFilename));
-        return params;
+        return RecordParams.template(params);
     }
 
 }
@@ -12,6 +12,7 @@ package com.filemanager.strategy;
 import com.filemanager.app.base.IAppStrategy;
 import com.filemanager.app.tools.display.StyleFactory;
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.ChangeRecordRepository;
 import com.filemanager.model.RuleCondition;
 import com.filemanager.rule.rename.RenameActionType;
 import com.filemanager.rule.rename.RenameMode;
@@ -228,7 +229,7 @@ public class AdvancedRenameStrategy extends IAppStrategy {
     }
 
     @Override
-    public List<ChangeRecord> analyze(ChangeRecord rec, List<ChangeRecord> inputRecords, List<File> roots) {
+    public List<ChangeRecord> analyze(ChangeRecord rec, ChangeRecordRepository inputRecords, List<File> roots) {
         List<RenameRule> rules = pRules;
         boolean isCopy = "复制 (Copy)".equals(pCrossDriveMode);
         boolean pFile = (pProcessScopeIndex == 0 || pProcessScopeIndex == 2);
@@ -236,13 +237,15 @@ public class AdvancedRenameStrategy extends IAppStrategy {
 
         File currentVirtualFile = new File(rec.getNewPath());
 
-        boolean d = currentVirtualFile.isDirectory();
         // 注意：Pipeline 中间状态的文件可能不存在，用 isDirectory 判断可能不准
-        // 如果是中间步骤，我们假设如果原始文件是目录，它也是目录
-        if (rec.getFileHandle().isDirectory()) {
+        // 如果是中间步骤，我们假设如果原始文件是目录，它也是目录；原始文件的类型使用扫描时的属性
+        boolean d;
+        if (rec.isDirectory()) {
             d = true;
-        } else if (rec.getFileHandle().isFile()) {
+        } else if (rec.isFile()) {
             d = false;
+        } else {
+            d = currentVirtualFile.isDirectory();
         }
 
         if (d && !pFolder) {
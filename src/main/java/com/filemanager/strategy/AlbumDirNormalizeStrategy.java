@@ -12,6 +12,7 @@ package com.filemanager.strategy;
 import com.filemanager.app.base.IAppStrategy;
 import com.filemanager.app.tools.display.StyleFactory;
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.ChangeRecordRepository;
 import com.filemanager.tool.file.FileTypeUtil;
 import com.filemanager.type.ExecStatus;
 import com.filemanager.type.OperationType;
@@ -67,6 +68,12 @@ public class AlbumDirNormalizeStrategy extends IAppStrategy {
         return ScanTarget.FILES_ONLY;
     }
 
+    @Override
+    public boolean isCrossRecordAnalysis() {
+        // 需要同目录下所有文件的记录
+        return true;
+    }
+
     @Override
     public Node getConfigNode() {
         return StyleFactory.createVBoxPanel(
@@ -86,8 +93,8 @@ public class AlbumDirNormalizeStrategy extends IAppStrategy {
     }
 
     @Override
-    public List<ChangeRecord> analyze(ChangeRecord changeRecord, List<ChangeRecord> inputRecords, List<File> rootDirs) {
-        if (changeRecord.getFileHandle().isFile()) {
+    public List<ChangeRecord> analyze(ChangeRecord changeRecord, ChangeRecordRepository inputRecords, List<File> rootDirs) {
+        if (changeRecord.isFile()) {
             return Collections.emptyList();
         }
         String parentPath = changeRecord.getFileHandle().getParentFile().getAbsolutePath();
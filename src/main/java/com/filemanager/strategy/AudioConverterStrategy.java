@@ -10,6 +10,8 @@
 package com.filemanager.strategy;
 
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.ChangeRecordRepository;
+import com.filemanager.tool.CancellationToken;
 import com.filemanager.tool.file.FileTypeUtil;
 import com.filemanager.type.ExecStatus;
 import com.filemanager.type.OperationType;
@@ -75,13 +77,13 @@ public class AudioConverterStrategy extends AbstractFfmpegStrategy {
     }
 
     @Override
-    public void execute(ChangeRecord rec) throws Exception {
+    public void execute(ChangeRecord rec, CancellationToken token) throws Exception {
         if (rec.getOpType() != OperationType.CONVERT) return;
-        super.execute(rec);
+        super.execute(rec, token);
     }
 
     @Override
-    public List<ChangeRecord> analyze(ChangeRecord rec, List<ChangeRecord> inputRecords, List<File> rootDirs) {
+    public List<ChangeRecord> analyze(ChangeRecord rec, ChangeRecordRepository inputRecords, List<File> rootDirs) {
         File virtualInput = new File(rec.getNewPath());
         String name = virtualInput.getName().toLowerCase();
         int dotIndex = name.lastIndexOf(".");
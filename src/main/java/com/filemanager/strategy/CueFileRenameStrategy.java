@@ -12,6 +12,7 @@ package com.filemanager.strategy;
 import com.filemanager.app.base.IAppStrategy;
 import com.filemanager.app.tools.display.StyleFactory;
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.ChangeRecordRepository;
 import com.filemanager.model.FileStatisticInfo;
 import com.filemanager.type.OperationType;
 import com.filemanager.type.ScanTarget;
@@ -78,6 +79,12 @@ public class CueFileRenameStrategy extends IAppStrategy {
         return ScanTarget.FOLDERS_ONLY;
     }
 
+    @Override
+    public boolean isCrossRecordAnalysis() {
+        // 需要目录下 CUE 和音频文件的记录
+        return true;
+    }
+
     @Override
     public Node getConfigNode() {
         VBox box = new VBox(10);
@@ -103,8 +110,8 @@ public class CueFileRenameStrategy extends IAppStrategy {
     }
 
     @Override
-    public List<ChangeRecord> analyze(ChangeRecord rec, List<ChangeRecord> inputRecords, List<File> rootDirs) {
-        if (rec.getFileHandle().isFile()) {
+    public List<ChangeRecord> analyze(ChangeRecord rec, ChangeRecordRepository inputRecords, List<File> rootDirs) {
+        if (rec.isFile()) {
             return Collections.emptyList();
         }
         File[] filesUnderDir = rec.getFileHandle().listFiles();
@@ -10,7 +10,9 @@
 package com.filemanager.strategy;
 
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.ChangeRecordRepository;
 import com.filemanager.model.CueSheet;
+import com.filemanager.tool.CancellationToken;
 import com.filemanager.type.ExecStatus;
 import com.filemanager.type.OperationType;
 import com.filemanager.type.ScanTarget;
@@ -35,6 +37,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * CUE 分轨策略 (专业版)
@@ -53,7 +56,7 @@ public class CueSplitterStrategy extends AbstractFfmpegStrategy {
     protected String pArchiveDir;
     
     // 用于跟踪每个cue文件的处理状态
-    private final Map<String, Set<String>> cueTrackProcessingStatus = new HashMap<>();
+    private final Map<String, Set<String>> cueTrackProcessingStatus = new ConcurrentHashMap<>();
 
     public CueSplitterStrategy() {
         super();
@@ -97,29 +100,24 @@ public class CueSplitterStrategy extends AbstractFfmpegStrategy {
      * @param trackIds 该cue文件对应的所有音轨ID列表
      */
     private void initializeCueTracks(String cueFilePath, List<String> trackIds) {
-        cueTrackProcessingStatus.computeIfAbsent(cueFilePath, k -> new HashSet<>()).addAll(trackIds);
+        cueTrackProcessingStatus.computeIfAbsent(cueFilePath, k -> ConcurrentHashMap.newKeySet()).addAll(trackIds);
     }
     
     /**
      * 标记指定cue文件的指定音轨为已完成
+     * 同一个cue的音轨会并行切分，只有完成最后一个音轨的线程返回true
      * @param cueFilePath cue文件的绝对路径
      * @param trackId 音轨ID
-     */
-    private void markTrackAsCompleted(String cueFilePath, String trackId) {
-        Set<String> trackIds = cueTrackProcessingStatus.get(cueFilePath);
-        if (trackIds != null) {
-            trackIds.remove(trackId);
-        }
-    }
-    
-    /**
-     * 检查指定cue文件的所有音轨是否都已完成切分
-     * @param cueFilePath cue文件的绝对路径
      * @return 如果所有音轨都已完成，返回true；否则返回false
      */
-    private boolean isAllTracksCompleted(String cueFilePath) {
+    private boolean markTrackAsCompleted(String cueFilePath, String trackId) {
         Set<String> trackIds = cueTrackProcessingStatus.get(cueFilePath);
-        return trackIds != null && trackIds.isEmpty();
+        if (trackIds == null) {
+            return false;
+        }
+        synchronized (trackIds) {
+            return trackIds.remove(trackId) && trackIds.isEmpty();
+        }
     }
     
     /**
@@ -128,11 +126,6 @@ public class CueSplitterStrategy extends AbstractFfmpegStrategy {
      * @param audioFilePath 原始音频文件的绝对路径
      */
     private void afterSplitProcess(String cueFilePath, String audioFilePath) {
-        // 检查所有音轨是否都已完成
-        if (!isAllTracksCompleted(cueFilePath)) {
-            return;
-        }
-        
         // 根据选择的操作执行相应的处理
         if ("什么都不做 (默认)".equals(pAfterSplitAction)) {
             log("已完成所有音轨切分，选择：什么都不做");
@@ -258,6 +251,12 @@ public class CueSplitterStrategy extends AbstractFfmpegStrategy {
         return ScanTarget.FILES_ONLY;
     }
 
+    @Override
+    public boolean isCrossRecordAnalysis() {
+        // 需要读取 CUE 对应的音频文件
+        return true;
+    }
+
     @Override
     public Node getConfigNode() {
         Node parentConfig = super.getConfigNode();
@@ -319,7 +318,7 @@ public class CueSplitterStrategy extends AbstractFfmpegStrategy {
     }
 
     @Override
-    public void execute(ChangeRecord rec) throws Exception {
+    public void execute(ChangeRecord rec, CancellationToken token) throws Exception {
         if (rec.getOpType() != OperationType.SPLIT) return;
         
         // 获取cue文件路径和音轨ID
@@ -328,21 +327,19 @@ public class CueSplitterStrategy extends AbstractFfmpegStrategy {
         String sourceAudioPath = rec.getExtraParams().get("source");
         
         // 执行切分操作
-        super.execute(rec);
+        super.execute(rec, token);
         
         // 标记当前音轨为已完成
-        if (cueFilePath != null && trackId != null) {
-            markTrackAsCompleted(cueFilePath, trackId);
-            
-            // 检查是否所有音轨都已完成切分，如果是，则执行选择的操作
+        // 检查是否所有音轨都已完成切分，如果是，则执行选择的操作
+        if (cueFilePath != null && trackId != null && markTrackAsCompleted(cueFilePath, trackId)) {
             afterSplitProcess(cueFilePath, sourceAudioPath);
         }
     }
 
     // --- 核心逻辑：分析 ---
     @Override
-    public List<ChangeRecord> analyze(ChangeRecord rec, List<ChangeRecord> inputRecords, List<File> rootDirs) {
-        if (!rec.getFileHandle().getName().toLowerCase().endsWith(".cue") || rec.getFileHandle().isDirectory()) {
+    public List<ChangeRecord> analyze(ChangeRecord rec, ChangeRecordRepository inputRecords, List<File> rootDirs) {
+        if (!rec.getFileHandle().getName().toLowerCase().endsWith(".cue") || rec.isDirectory()) {
             return Collections.emptyList();
         }
         File cueFile = rec.getFileHandle();
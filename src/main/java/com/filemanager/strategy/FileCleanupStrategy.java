@@ -12,6 +12,7 @@ package com.filemanager.strategy;
 import com.filemanager.app.base.IAppStrategy;
 import com.filemanager.app.components.CleanupUIConfig;
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.ChangeRecordRepository;
 import com.filemanager.model.CleanupParams;
 import com.filemanager.tool.file.DeleteExecutor;
 import com.filemanager.tool.file.DuplicateAnalyzer;
@@ -140,6 +141,12 @@ public class FileCleanupStrategy extends IAppStrategy {
         return ScanTarget.ALL;
     }
 
+    @Override
+    public boolean isCrossRecordAnalysis() {
+        // 需要比较同目录下的其他文件
+        return true;
+    }
+
     @Override
     public Node getConfigNode() {
         return uiConfig.getConfigNode();
@@ -169,13 +176,13 @@ public class FileCleanupStrategy extends IAppStrategy {
     }
 
     @Override
-    public List<ChangeRecord> analyze(ChangeRecord rec, List<ChangeRecord> inputRecords, List<File> rootDirs) {
+    public List<ChangeRecord> analyze(ChangeRecord rec, ChangeRecordRepository inputRecords, List<File> rootDirs) {
         if (analyzer == null) {
             // 如果analyzer还没初始化，先初始化
             analyzer = new DuplicateAnalyzer(params);
         }
         // 调用分析器进行分析
-        return analyzer.analyze(rec.getFileHandle());
+        return analyzer.analyze(rec);
     }
 
     @Override
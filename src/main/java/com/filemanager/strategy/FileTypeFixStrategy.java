@@ -14,6 +14,7 @@ import cn.hutool.core.map.MapUtil;
 import com.filemanager.app.base.IAppStrategy;
 import com.filemanager.app.tools.display.StyleFactory;
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.ChangeRecordRepository;
 import com.filemanager.tool.file.AudioTypeInspector;
 import com.filemanager.type.OperationType;
 import com.filemanager.type.ScanTarget;
@@ -94,7 +95,7 @@ public class FileTypeFixStrategy extends IAppStrategy {
     }
 
     @Override
-    public List<ChangeRecord> analyze(ChangeRecord rec, List<ChangeRecord> inputRecords, List<File> rootDirs) {
+    public List<ChangeRecord> analyze(ChangeRecord rec, ChangeRecordRepository inputRecords, List<File> rootDirs) {
         AudioTypeInspector.FileTypeCheckResult checkResult = null;
         if (pForce) {
             checkResult = AudioTypeInspector.inspectHard(rec.getFileHandle());
@@ -12,10 +12,12 @@ package com.filemanager.strategy;
 import com.filemanager.app.base.IAppStrategy;
 import com.filemanager.model.*;
 import com.filemanager.app.tools.display.StyleFactory;
+import com.filemanager.tool.CancellationToken;
 import com.filemanager.tool.file.PathUtils;
 import com.filemanager.type.ExecStatus;
 import com.filemanager.type.OperationType;
 import com.filemanager.type.ScanTarget;
+import com.filemanager.util.ProcessUtils;
 import com.google.common.collect.Lists;
 import com.jfoenix.controls.JFXButton;
 import com.jfoenix.controls.JFXComboBox;
@@ -36,6 +38,7 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 /**
  * 批量智能解压策略 (v5.1 - SSD 极速优化版)
@@ -292,7 +295,7 @@ public class FileUnzipStrategy extends IAppStrategy {
     }
 
     @Override
-    public List<ChangeRecord> analyze(ChangeRecord rec, List<ChangeRecord> inputRecords, List<File> rootDirs) {
+    public List<ChangeRecord> analyze(ChangeRecord rec, ChangeRecordRepository inputRecords, List<File> rootDirs) {
         Set<String> archiveExts = new HashSet<>(Arrays.asList("zip", "7z", "rar", "tar", "gz", "jar", "xz", "bz2", "iso"));
         File file = rec.getFileHandle();
         String name = file.getName().toLowerCase();
@@ -339,14 +342,19 @@ public class FileUnzipStrategy extends IAppStrategy {
 
     @Override
     public void execute(ChangeRecord rec) throws Exception {
+        execute(rec, CancellationToken.NONE);
+    }
+
+    @Override
+    public void execute(ChangeRecord rec, CancellationToken token) throws Exception {
         if (!rec.getExtraParams().containsKey("baseDest")) return;
 
         // [优化] 直接调用执行，不加锁，允许全速并发
         // 并发度由主程序的 executorService 控制
-        executeInternal(rec);
+        executeInternal(rec, token);
     }
 
-    private void executeInternal(ChangeRecord rec) throws Exception {
+    private void executeInternal(ChangeRecord rec, CancellationToken token) throws Exception {
         File archiveFile = rec.getFileHandle();
         String baseDestPath = rec.getExtraParams().get("baseDest");
         String engine = rec.getExtraParams().get("engine");
@@ -360,10 +368,12 @@ public class FileUnzipStrategy extends IAppStrategy {
 
         // 1. 确定解压根目录 (Wrapper)
         File extractRoot;
+        // 本次新建的解压目录，停止时整个删除
+        boolean createdRoot = false;
         if (smart) {
             String wrapperName = PathUtils.fixFolderName(getBaseName(archiveFile.getName()));
             extractRoot = new File(baseDestDir, wrapperName);
-            if (!extractRoot.exists()) extractRoot.mkdirs();
+            if (!extractRoot.exists()) createdRoot = extractRoot.mkdirs();
         } else {
             extractRoot = baseDestDir;
         }
@@ -377,25 +387,40 @@ public class FileUnzipStrategy extends IAppStrategy {
         Exception lastError = null;
 
         // 3. 循环尝试解压
-        for (String pwd : passwordsToTry) {
-            try {
-                if (engine.contains("外部")) {
-                    extractWithExternalTool(archiveFile, extractRoot, rec.getExtraParams(), pwd);
-                } else {
-                    extractWithJava(archiveFile, extractRoot, overwrite, pwd);
-                }
+        try {
+            for (String pwd : passwordsToTry) {
+                token.throwIfCancelled();
+                try {
+                    if (engine.contains("外部")) {
+                        extractWithExternalTool(archiveFile, extractRoot, rec.getExtraParams(), pwd, token);
+                    } else {
+                        extractWithJava(archiveFile, extractRoot, overwrite, pwd, token);
+                    }
 
-                // 校验阶段：确保有文件产出
-                String[] files = extractRoot.list();
-                if (files == null || files.length == 0) {
-                    throw new IOException("解压程序返回成功，但目标目录为空 (可能是密码错误或程序假死)");
-                }
+                    // 校验阶段：确保有文件产出
+                    String[] files = extractRoot.list();
+                    if (files == null || files.length == 0) {
+                        throw new IOException("解压程序返回成功，但目标目录为空 (可能是密码错误或程序假死)");
+                    }
 
-                success = true;
-                break;
-            } catch (Exception e) {
-                lastError = e;
+                    success = true;
+                    break;
+                } catch (CancellationException e) {
+                    throw e;
+                } catch (Exception e) {
+                    lastError = e;
+                }
             }
+            // 流被取消关闭时表现为读取失败，不能当作解压失败处理（可能删除源文件）
+            token.throwIfCancelled();
+        } catch (CancellationException e) {
+            if (createdRoot) {
+                try {
+                    deleteDirectoryRecursively(extractRoot);
+                } catch (IOException ignored) {
+                }
+            }
+            throw e;
         }
 
         if (!success) {
@@ -425,7 +450,8 @@ public class FileUnzipStrategy extends IAppStrategy {
 
     // --- 解压引擎实现 ---
 
-    private void extractWithExternalTool(File archive, File destDir, Map<String, String> params, String pwd) throws Exception {
+    private void extractWithExternalTool(File archive, File destDir, Map<String, String> params, String pwd,
+                                         CancellationToken token) throws Exception {
         String exePath = params.get("exePath");
         boolean overwrite = Boolean.parseBoolean(params.get("overwrite"));
 
@@ -463,43 +489,41 @@ public class FileUnzipStrategy extends IAppStrategy {
         cmd.add(overwrite ? "-aoa" : "-aos");
         cmd.add("-y");
 
-        ProcessBuilder pb = new ProcessBuilder(cmd);
-        Process p = pb.start();
-
-        // 消耗流
-        new Thread(() -> {
-            try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream(), Charset.defaultCharset()))) {
-                while (r.readLine() != null) {
-                }
-            } catch (Exception e) {
-            }
-        }).start();
-
-        int exitCode = p.waitFor();
+        // 停止时强制结束解压进程
+        int exitCode = ProcessUtils.run(cmd, token).getExitCode();
         if (exitCode != 0 && exitCode != 1) {
             throw new IOException("外部程序退出码: " + exitCode + " (可能密码错误)");
         }
     }
 
-    private void extractWithJava(File archive, File destDir, boolean overwrite, String pwd) throws Exception {
+    private void extractWithJava(File archive, File destDir, boolean overwrite, String pwd, CancellationToken token) throws Exception {
         String lowerName = archive.getName().toLowerCase();
 
         if (lowerName.endsWith(".7z")) {
             byte[] pwdBytes = pwd == null ? null : pwd.getBytes(Charset.defaultCharset());
             try (SevenZFile sevenZFile = pwdBytes == null ? new SevenZFile(archive) : new SevenZFile(archive, pwdBytes)) {
-                SevenZArchiveEntry entry;
-                while ((entry = sevenZFile.getNextEntry()) != null) {
-                    if (entry.isDirectory()) continue;
-                    File target = new File(destDir, entry.getName());
-                    File parent = target.getParentFile();
-                    if (!parent.exists()) parent.mkdirs();
-                    if (target.exists() && !overwrite) continue;
-
-                    try (FileOutputStream out = new FileOutputStream(target)) {
-                        byte[] content = new byte[(int) entry.getSize()];
-                        sevenZFile.read(content, 0, content.length);
-                        out.write(content);
+                CancellationToken.Registration registration = token.onCancel(sevenZFile);
+                try {
+                    SevenZArchiveEntry entry;
+                    while ((entry = sevenZFile.getNextEntry()) != null) {
+                        token.throwIfCancelled();
+                        if (entry.isDirectory()) continue;
+                        File target = new File(destDir, entry.getName());
+                        File parent = target.getParentFile();
+                        if (!parent.exists()) parent.mkdirs();
+                        if (target.exists() && !overwrite) continue;
+
+                        try (FileOutputStream out = new FileOutputStream(target)) {
+                            byte[] content = new byte[(int) entry.getSize()];
+                            sevenZFile.read(content, 0, content.length);
+                            out.write(content);
+                        } catch (IOException e) {
+                            deletePartialIfCancelled(target, token);
+                            throw e;
+                        }
                     }
+                } finally {
+                    registration.close();
                 }
             }
             return;
@@ -512,35 +536,53 @@ public class FileUnzipStrategy extends IAppStrategy {
         try (InputStream fi = Files.newInputStream(archive.toPath());
              InputStream bi = new BufferedInputStream(fi);
              ArchiveInputStream in = new ArchiveStreamFactory().createArchiveInputStream(bi)) {
+            CancellationToken.Registration registration = token.onCancel(in);
+            try {
+                ArchiveEntry entry;
+                while ((entry = in.getNextEntry()) != null) {
+                    token.throwIfCancelled();
+                    if (!in.canReadEntryData(entry)) {
+                        if (pwd != null) throw new IOException("内置引擎不支持加密流，请用外部引擎。");
+                        continue;
+                    }
 
-            ArchiveEntry entry;
-            while ((entry = in.getNextEntry()) != null) {
-                if (!in.canReadEntryData(entry)) {
-                    if (pwd != null) throw new IOException("内置引擎不支持加密流，请用外部引擎。");
-                    continue;
-                }
-
-                File target = new File(destDir, entry.getName());
-                if (entry.isDirectory()) {
-                    if (!target.isDirectory() && !target.mkdirs()) throw new IOException("无法创建目录: " + target);
-                } else {
-                    File parent = target.getParentFile();
-                    if (!parent.isDirectory() && !parent.mkdirs()) throw new IOException("无法创建父目录: " + parent);
-                    if (target.exists() && !overwrite) continue;
-
-                    // [优化] 使用 64KB 缓冲区
-                    try (OutputStream o = Files.newOutputStream(target.toPath())) {
-                        byte[] buffer = new byte[64 * 1024];
-                        int n;
-                        while (-1 != (n = in.read(buffer))) {
-                            o.write(buffer, 0, n);
+                    File target = new File(destDir, entry.getName());
+                    if (entry.isDirectory()) {
+                        if (!target.isDirectory() && !target.mkdirs()) throw new IOException("无法创建目录: " + target);
+                    } else {
+                        File parent = target.getParentFile();
+                        if (!parent.isDirectory() && !parent.mkdirs()) throw new IOException("无法创建父目录: " + parent);
+                        if (target.exists() && !overwrite) continue;
+
+                        // [优化] 使用 64KB 缓冲区
+                        try (OutputStream o = Files.newOutputStream(target.toPath())) {
+                            byte[] buffer = new byte[64 * 1024];
+                            int n;
+                            while (-1 != (n = in.read(buffer))) {
+                                o.write(buffer, 0, n);
+                            }
+                        } catch (IOException e) {
+                            deletePartialIfCancelled(target, token);
+                            throw e;
                         }
                     }
                 }
+            } finally {
+                registration.close();
             }
         }
     }
 
+    /**
+     * 停止导致的读取失败：删除写了一半的文件并转为取消异常
+     */
+    private void deletePartialIfCancelled(File target, CancellationToken token) throws IOException {
+        if (token.isCancelled()) {
+            Files.deleteIfExists(target.toPath());
+            token.throwIfCancelled();
+        }
+    }
+
     private void optimizeSmartFolder(File wrapperDir, File parentDir) {
         if (wrapperDir == null || !wrapperDir.exists() || !wrapperDir.isDirectory()) return;
 
@@ -15,6 +15,7 @@ import com.filemanager.model.*;
 import com.filemanager.type.ExecStatus;
 import com.filemanager.type.OperationType;
 import com.filemanager.type.ScanTarget;
+import com.filemanager.util.BlockingUtils;
 import com.filemanager.util.MetadataHelper;
 import com.jfoenix.controls.*;
 import javafx.collections.FXCollections;
@@ -213,7 +214,7 @@ public class MetadataScraperStrategy extends IAppStrategy {
 
     // --- 核心逻辑：分析阶段 ---
     @Override
-    public List<ChangeRecord> analyze(ChangeRecord rec, List<ChangeRecord> inputRecords, List<File> rootDirs) {
+    public List<ChangeRecord> analyze(ChangeRecord rec, ChangeRecordRepository inputRecords, List<File> rootDirs) {
         processedAlbumDirs.clear(); // 清除目录缓存
         AtomicInteger matched = new AtomicInteger(0);
         Set<String> supportedExts = new HashSet<>(Arrays.asList("mp3", "flac", "m4a", "ogg", "wav", "dsf", "dff", "ape"));
@@ -238,7 +239,7 @@ public class MetadataScraperStrategy extends IAppStrategy {
         if (pUpdateBasic || pFetchLyrics) {
             // 尝试读取现有
             try {
-                AudioFile f = AudioFileIO.read(file);
+                AudioFile f = BlockingUtils.call(() -> AudioFileIO.read(file));
                 Tag tag = f.getTag();
 
                 // 搜索逻辑
@@ -514,6 +515,10 @@ public class MetadataScraperStrategy extends IAppStrategy {
 
     // ... (httpGet, downloadBytes, extractJsonValue, Lyrics Providers 同前，保持不变) ...
     private String httpGet(String urlStr) throws Exception{
+        return BlockingUtils.call(() -> doHttpGet(urlStr));
+    }
+
+    private String doHttpGet(String urlStr) throws Exception{
         URL url = new URL(urlStr);
         HttpURLConnection conn = (HttpURLConnection) url.openConnection();
         conn.setConnectTimeout(3000);
@@ -12,6 +12,7 @@ package com.filemanager.strategy;
 import com.filemanager.app.base.IAppStrategy;
 import com.filemanager.app.tools.display.StyleFactory;
 import com.filemanager.model.ChangeRecord;
+import com.filemanager.model.ChangeRecordRepository;
 import com.filemanager.tool.file.FileTypeUtil;
 import com.filemanager.type.OperationType;
 import com.filemanager.type.ScanTarget;
@@ -79,6 +80,12 @@ public class TrackNumberStrategy extends IAppStrategy {
         return ScanTarget.FILES_ONLY;
     }
 
+    @Override
+    public boolean isCrossRecordAnalysis() {
+        // 需要同目录下所有文件的记录
+        return true;
+    }
+
     @Override
     public Node getConfigNode() {
         return StyleFactory.createVBoxPanel(
@@ -98,7 +105,7 @@ public class TrackNumberStrategy extends IAppStrategy {
     }
 
     @Override
-    public List<ChangeRecord> analyze(ChangeRecord change, List<ChangeRecord> inputRecords, List<File> rootDirs) {
+    public List<ChangeRecord> analyze(ChangeRecord change, ChangeRecordRepository inputRecords, List<File> rootDirs) {
         File f = change.getFileHandle();
         File[] files = f.listFiles();
         if (f.isFile() || files == null || files.length < 2) {
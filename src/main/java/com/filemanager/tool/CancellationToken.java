@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.tool;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 协作式取消令牌：一轮执行共用一个令牌，停止时关闭所有登记的资源（外部进程、打开的流），
+ * 正在执行的任务随之从阻塞中返回，并通过 throwIfCancelled 尽快退出
+ */
+public class CancellationToken {
+
+    /**
+     * 永不取消的令牌，供不需要取消的调用方使用
+     */
+    public static final CancellationToken NONE = new CancellationToken() {
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final Set<AutoCloseable> resources = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled = false;
+
+    /**
+     * 取消并关闭所有登记的资源
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        for (AutoCloseable resource : resources) {
+            closeQuietly(resource);
+        }
+        resources.clear();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 已取消时抛出 CancellationException
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("任务已停止");
+        }
+    }
+
+    /**
+     * 登记取消时需要关闭的资源，已取消时立即关闭
+     *
+     * @param resource 资源，如 process::destroyForcibly、打开的流
+     * @return 登记句柄，资源正常用完后关闭句柄即取消登记
+     */
+    public Registration onCancel(AutoCloseable resource) {
+        resources.add(resource);
+        if (cancelled && resources.remove(resource)) {
+            closeQuietly(resource);
+        }
+        return () -> resources.remove(resource);
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception ignored) {
+            // 取消时尽力释放，忽略关闭失败
+        }
+    }
+
+    /**
+     * 资源登记句柄
+     */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
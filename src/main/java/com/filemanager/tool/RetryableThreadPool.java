@@ -14,10 +14,32 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 自动重试且无队列的动态线程池
+ * <p>
+ * 虚拟线程模式下每个任务一个虚拟线程，并发数由信号量限制，提交时没有许可则阻塞，行为与平台线程模式一致
  */
 public class RetryableThreadPool {
 
     private final ThreadPoolExecutor executor;
+    // 虚拟线程执行器和并发许可，平台线程模式下为 null
+    private final ExecutorService virtualExecutor;
+    private final ResizableSemaphore permits;
+    private int permitCount;
+
+    /**
+     * 创建虚拟线程池
+     *
+     * @param maxConcurrency 最大并发数
+     */
+    public static RetryableThreadPool ofVirtualThreads(int maxConcurrency) {
+        return new RetryableThreadPool(VirtualThreadSupport.newVirtualThreadPerTaskExecutor(), maxConcurrency);
+    }
+
+    private RetryableThreadPool(ExecutorService virtualExecutor, int maxConcurrency) {
+        this.executor = null;
+        this.virtualExecutor = virtualExecutor;
+        this.permits = new ResizableSemaphore(maxConcurrency);
+        this.permitCount = maxConcurrency;
+    }
 
     public RetryableThreadPool(int coreSize, int maxSize, long keepAliveTime, TimeUnit unit) {
         // 使用 SynchronousQueue 实现无任务等待队列
@@ -33,39 +55,119 @@ public class RetryableThreadPool {
                 new CustomThreadFactory(),
                 new BlockingRetryPolicy() // 自定义重试策略
         );
+        this.virtualExecutor = null;
+        this.permits = null;
+    }
+
+    /**
+     * 是否为虚拟线程池
+     */
+    public boolean isVirtual() {
+        return virtualExecutor != null;
     }
 
     /**
      * 提交任务
      */
     public void execute(Runnable task) {
-        executor.execute(task);
+        if (virtualExecutor == null) {
+            executor.execute(task);
+            return;
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Task interrupted while waiting for permit", e);
+        }
+        try {
+            virtualExecutor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
     }
 
     /**
-     * 动态调整核心线程数
+     * 动态调整核心线程数，虚拟线程池没有核心线程，忽略
      */
     public void setCorePoolSize(int size) {
-        executor.setCorePoolSize(size);
+        if (virtualExecutor == null) {
+            executor.setCorePoolSize(size);
+        }
     }
 
     /**
-     * 动态调整最大线程数
+     * 动态调整最大线程数，虚拟线程池调整的是并发许可数
      */
     public void setMaximumPoolSize(int size) {
-        executor.setMaximumPoolSize(size);
+        if (virtualExecutor == null) {
+            executor.setMaximumPoolSize(size);
+            return;
+        }
+        synchronized (permits) {
+            int delta = size - permitCount;
+            if (delta > 0) {
+                permits.release(delta);
+            } else if (delta < 0) {
+                permits.reducePermits(-delta);
+            }
+            permitCount = size;
+        }
+    }
+
+    /**
+     * 当前最大线程数
+     */
+    public int getMaximumPoolSize() {
+        if (virtualExecutor != null) {
+            synchronized (permits) {
+                return permitCount;
+            }
+        }
+        return executor.getMaximumPoolSize();
     }
 
     public void shutdown() {
-        executor.shutdown();
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+        } else {
+            executor.shutdown();
+        }
     }
 
     public void shutdownNow() {
-        executor.shutdownNow();
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdownNow();
+        } else {
+            executor.shutdownNow();
+        }
     }
 
     public boolean awaitTermination(long time, TimeUnit unit) throws InterruptedException {
-        return executor.awaitTermination(time, unit);
+        return virtualExecutor != null ? virtualExecutor.awaitTermination(time, unit) : executor.awaitTermination(time, unit);
+    }
+
+    /**
+     * 可缩减许可数的信号量，缩减后可用许可可能为负，正在运行的任务归还后恢复
+     */
+    private static class ResizableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        private ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
     }
 
     /**
@@ -76,11 +178,13 @@ public class RetryableThreadPool {
         public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
             try {
                 // 如果线程池未关闭
-                if (!executor.isShutdown()) {
-                    // 利用 SynchronousQueue 的 put 方法，它会一直阻塞直到有线程来取任务
-                    // 这实现了“自动重试”的效果，且不会占用额外的内存队列
-                    executor.getQueue().put(r);
+                if (executor.isShutdown()) {
+                    // 已关闭时拒绝，不静默丢弃，调用方据此归还占用的额度
+                    throw new RejectedExecutionException("线程池已关闭");
                 }
+                // 利用 SynchronousQueue 的 put 方法，它会一直阻塞直到有线程来取任务
+                // 这实现了“自动重试”的效果，且不会占用额外的内存队列
+                executor.getQueue().put(r);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 throw new RejectedExecutionException("Task interrupted during retry", e);
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.tool;
+
+import com.filemanager.type.StorageDeviceType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 存储设备识别：按 FileStore 把根路径归到同一个物理设备，并通过随机读探测判断设备类型
+ */
+public class StorageDeviceRegistry {
+
+    // 随机读中位延迟超过该值判定为机械硬盘（微秒）
+    private static final long HDD_LATENCY_THRESHOLD_MICROS = 3000;
+    // 探测文件最小大小，太小的文件容易整体命中缓存
+    private static final long MIN_PROBE_FILE_SIZE = 8L * 1024 * 1024;
+    private static final int PROBE_READS = 12;
+    private static final int PROBE_BLOCK_SIZE = 4096;
+    // 寻找探测文件时最多查看的条目数
+    private static final int PROBE_SCAN_LIMIT = 2000;
+
+    private final Map<String, String> deviceIdByRoot = new ConcurrentHashMap<>();
+    private final Map<String, ProbeResult> probeResults = new ConcurrentHashMap<>();
+    private final Map<String, StorageDeviceType> overrides = new ConcurrentHashMap<>();
+    // 自动调优得到的最佳执行线程数（按设备）
+    private final Map<String, Integer> learnedThreads = new ConcurrentHashMap<>();
+
+    /**
+     * 获取根路径所在设备的标识，同一 FileStore 上的根路径返回相同标识
+     */
+    public String getDeviceId(String rootPath) {
+        return deviceIdByRoot.computeIfAbsent(rootPath, k -> {
+            Path path = Paths.get(k);
+            try {
+                return Files.getFileStore(path).toString();
+            } catch (IOException e) {
+                Path root = path.toAbsolutePath().getRoot();
+                return root != null ? root.toString() : k;
+            }
+        });
+    }
+
+    /**
+     * 获取设备类型：用户指定优先，否则使用探测结果
+     */
+    public StorageDeviceType getDeviceType(String rootPath) {
+        StorageDeviceType override = getOverride(rootPath);
+        if (override != StorageDeviceType.AUTO) {
+            return override;
+        }
+        return getProbeResult(rootPath).type;
+    }
+
+    /**
+     * 获取探测结果，同一设备只探测一次
+     */
+    public ProbeResult getProbeResult(String rootPath) {
+        return probeResults.computeIfAbsent(getDeviceId(rootPath), k -> probe(Paths.get(rootPath)));
+    }
+
+    public StorageDeviceType getOverride(String rootPath) {
+        return overrides.getOrDefault(getDeviceId(rootPath), StorageDeviceType.AUTO);
+    }
+
+    /**
+     * 用户手动指定设备类型，作用于根路径所在的整个设备
+     */
+    public void setOverride(String rootPath, StorageDeviceType type) {
+        if (type == null || type == StorageDeviceType.AUTO) {
+            overrides.remove(getDeviceId(rootPath));
+        } else {
+            overrides.put(getDeviceId(rootPath), type);
+        }
+    }
+
+    /**
+     * 获取设备上次自动调优得到的线程数
+     * @param deviceId 设备标识
+     * @return 线程数，没有记录时返回 0
+     */
+    public int getLearnedThreads(String deviceId) {
+        return learnedThreads.getOrDefault(deviceId, 0);
+    }
+
+    public void setLearnedThreads(String deviceId, int threads) {
+        learnedThreads.put(deviceId, threads);
+    }
+
+    public Map<String, Integer> getAllLearnedThreads() {
+        return learnedThreads;
+    }
+
+    /**
+     * 随机读探测：在根路径下找一个较大的文件，随机偏移读取小块数据，取中位延迟
+     */
+    static ProbeResult probe(Path root) {
+        Path sample = findProbeFile(root);
+        if (sample == null) {
+            return new ProbeResult(StorageDeviceType.UNKNOWN, -1, "未找到足够大的探测文件");
+        }
+        try (FileChannel channel = FileChannel.open(sample, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(PROBE_BLOCK_SIZE);
+            Random random = new Random(size);
+            long[] samples = new long[PROBE_READS];
+            for (int i = 0; i < PROBE_READS; i++) {
+                long position = (long) (random.nextDouble() * (size - PROBE_BLOCK_SIZE));
+                // 按块对齐，避免跨块读
+                position -= position % PROBE_BLOCK_SIZE;
+                buffer.clear();
+                long start = System.nanoTime();
+                channel.read(buffer, position);
+                samples[i] = (System.nanoTime() - start) / 1000;
+            }
+            Arrays.sort(samples);
+            long median = samples[PROBE_READS / 2];
+            StorageDeviceType type = median > HDD_LATENCY_THRESHOLD_MICROS ? StorageDeviceType.HDD : StorageDeviceType.SSD;
+            return new ProbeResult(type, median, "随机读中位延迟 " + median + "μs，探测文件：" + sample.getFileName());
+        } catch (IOException e) {
+            return new ProbeResult(StorageDeviceType.UNKNOWN, -1, "探测失败：" + e.getMessage());
+        }
+    }
+
+    private static Path findProbeFile(Path root) {
+        Deque<Path> dirs = new ArrayDeque<>();
+        dirs.add(root);
+        Path best = null;
+        long bestSize = 0;
+        int visited = 0;
+        while (!dirs.isEmpty() && visited < PROBE_SCAN_LIMIT) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dirs.poll())) {
+                for (Path entry : stream) {
+                    if (++visited >= PROBE_SCAN_LIMIT) {
+                        break;
+                    }
+                    BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+                    if (attrs.isDirectory()) {
+                        dirs.add(entry);
+                    } else if (attrs.isRegularFile() && attrs.size() > bestSize) {
+                        best = entry;
+                        bestSize = attrs.size();
+                    }
+                }
+            } catch (IOException | SecurityException ignored) {
+                // 无权限的目录直接跳过
+            }
+            if (bestSize >= MIN_PROBE_FILE_SIZE * 8) {
+                break;
+            }
+        }
+        return bestSize >= MIN_PROBE_FILE_SIZE ? best : null;
+    }
+
+    /**
+     * 设备探测结果
+     */
+    public static class ProbeResult {
+        private final StorageDeviceType type;
+        // 中位延迟（微秒），-1 表示未探测成功
+        private final long medianLatencyMicros;
+        private final String detail;
+
+        ProbeResult(StorageDeviceType type, long medianLatencyMicros, String detail) {
+            this.type = type;
+            this.medianLatencyMicros = medianLatencyMicros;
+            this.detail = detail;
+        }
+
+        public StorageDeviceType getType() {
+            return type;
+        }
+
+        public long getMedianLatencyMicros() {
+            return medianLatencyMicros;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.tool;
+
+import com.filemanager.model.ChangeRecord;
+import com.filemanager.type.OperationType;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 任务耗时估算：固定开销 + 每 MB 耗时 × 数据量 × 编解码系数
+ * <p>
+ * 每种操作有一组经验初值，执行成功后用实际耗时做指数滑动平均修正，修正结果可保存到配置供下次使用。
+ */
+public class TaskCostModel {
+
+    // 滑动平均权重
+    private static final double ALPHA = 0.2;
+    // 小于该数据量（MB）的样本只用于修正固定开销
+    private static final double MIN_RATE_SAMPLE_MB = 1.0;
+    // 无损音频每秒约 0.1 MB，用于按时长估算 CUE 切分的数据量
+    private static final double LOSSLESS_MB_PER_SECOND = 0.1;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final Map<OperationType, Stats> stats = new EnumMap<>(OperationType.class);
+
+    public TaskCostModel() {
+        for (OperationType op : OperationType.values()) {
+            stats.put(op, defaultStats(op));
+        }
+    }
+
+    private static Stats defaultStats(OperationType op) {
+        switch (op) {
+            case CONVERT:
+                return new Stats(300, 400);
+            case SPLIT:
+                return new Stats(300, 300);
+            case UNZIP:
+                return new Stats(50, 20);
+            case MOVE:
+                // 跨设备移动需要复制数据
+                return new Stats(5, 10);
+            case SCRAPER:
+                // 以网络请求为主
+                return new Stats(1500, 0);
+            default:
+                return new Stats(5, 0);
+        }
+    }
+
+    /**
+     * 估算任务耗时
+     *
+     * @param rec   任务
+     * @param bytes 源文件大小
+     * @return 估算耗时（毫秒）
+     */
+    public synchronized double estimateMillis(ChangeRecord rec, long bytes) {
+        Stats s = stats.get(rec.getOpType());
+        return s.overheadMs + s.msPerMb * effectiveMb(rec, bytes) * codecFactor(rec);
+    }
+
+    /**
+     * 记录一次成功执行的实际耗时
+     *
+     * @param rec       任务
+     * @param bytes     执行前的源文件大小
+     * @param elapsedMs 实际耗时（毫秒）
+     */
+    public synchronized void record(ChangeRecord rec, long bytes, long elapsedMs) {
+        Stats s = stats.get(rec.getOpType());
+        double mb = effectiveMb(rec, bytes);
+        if (mb < MIN_RATE_SAMPLE_MB) {
+            s.overheadMs += ALPHA * (elapsedMs - s.overheadMs);
+        } else {
+            double rate = Math.max(0, elapsedMs - s.overheadMs) / (mb * codecFactor(rec));
+            s.msPerMb += ALPHA * (rate - s.msPerMb);
+        }
+        s.samples++;
+    }
+
+    /**
+     * 参与计算的数据量：CUE 切分只处理整轨中的一段，按分轨时长折算
+     */
+    private static double effectiveMb(ChangeRecord rec, long bytes) {
+        Map<String, String> params = rec.getExtraParams();
+        if (rec.getOpType() == OperationType.SPLIT && params != null && params.get("duration") != null) {
+            try {
+                return Long.parseLong(params.get("duration")) / 1000.0 * LOSSLESS_MB_PER_SECOND;
+            } catch (NumberFormatException ignored) {
+                // 按整轨大小估算
+            }
+        }
+        return bytes / BYTES_PER_MB;
+    }
+
+    /**
+     * 编解码系数：源格式解码和目标格式编码的相对开销
+     */
+    private static double codecFactor(ChangeRecord rec) {
+        if (rec.getOpType() != OperationType.CONVERT && rec.getOpType() != OperationType.SPLIT) {
+            return 1.0;
+        }
+        double factor = 1.0;
+        String name = rec.getFileHandle().getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ape")) {
+            factor *= 2.0;
+        } else if (name.endsWith(".dsf") || name.endsWith(".dff")) {
+            factor *= 0.8;
+        } else if (name.endsWith(".wav") || name.endsWith(".aiff") || name.endsWith(".aif")) {
+            factor *= 0.5;
+        }
+        String codec = rec.getExtraParams() != null ? rec.getExtraParams().get("codec") : null;
+        if (codec != null) {
+            if (codec.startsWith("pcm_")) {
+                factor *= 0.3;
+            } else if ("flac".equals(codec)) {
+                factor *= 0.6;
+            } else if ("aac".equals(codec)) {
+                factor *= 1.2;
+            }
+        }
+        return factor;
+    }
+
+    /**
+     * 导出修正后的参数，格式：固定开销,每MB耗时,样本数
+     */
+    public synchronized Map<OperationType, String> export() {
+        Map<OperationType, String> result = new EnumMap<>(OperationType.class);
+        for (Map.Entry<OperationType, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            if (s.samples > 0) {
+                result.put(entry.getKey(), String.format(Locale.US, "%.1f,%.1f,%d", s.overheadMs, s.msPerMb, s.samples));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 导入保存的参数，格式错误时保留初值
+     */
+    public synchronized void load(OperationType op, String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 3) {
+            return;
+        }
+        try {
+            Stats s = new Stats(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]));
+            s.samples = Long.parseLong(parts[2]);
+            stats.put(op, s);
+        } catch (NumberFormatException ignored) {
+            // 保留初值
+        }
+    }
+
+    private static class Stats {
+        private double overheadMs;
+        private double msPerMb;
+        private long samples;
+
+        private Stats(double overheadMs, double msPerMb) {
+            this.overheadMs = overheadMs;
+            this.msPerMb = msPerMb;
+        }
+    }
+}
@@ -9,9 +9,15 @@
  */
 package com.filemanager.tool;
 
+import com.filemanager.type.StorageDeviceType;
+import lombok.Getter;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 线程池管理器，负责创建和管理线程池
@@ -22,6 +28,8 @@ public class ThreadPoolManager {
     public static final String MODE_GLOBAL = "全局统一配置";
     // 根路径独立线程池模式
     public static final String MODE_ROOT_PATH = "根路径独立配置";
+    // 存储设备独立线程池模式：同一设备上的根路径共用一个线程池
+    public static final String MODE_DEVICE = "存储设备独立配置";
     
     // 当前线程池模式
     private String currentMode;
@@ -31,6 +39,9 @@ public class ThreadPoolManager {
     
     // 根路径线程池映射
     private Map<String, RetryableThreadPool> rootPathExecutors;
+
+    // 预览分析使用的工作窃取线程池，按线程池模式划分
+    private final Map<String, ForkJoinPool> analysisPools = new ConcurrentHashMap<>();
     
     // 全局线程数配置
     private int globalPreviewThreads;
@@ -39,6 +50,20 @@ public class ThreadPoolManager {
     // 根路径线程数配置
     private Map<String, Integer> rootPathPreviewThreads;
     private Map<String, Integer> rootPathExecutionThreads;
+
+    // 存储设备识别
+    @Getter
+    private final StorageDeviceRegistry deviceRegistry = new StorageDeviceRegistry();
+
+    // 任务耗时估算，供调度策略排序
+    @Getter
+    private final TaskCostModel costModel = new TaskCostModel();
+
+    // 虚拟线程下每个设备的并发许可数相对平台线程数的倍数
+    private static final int VIRTUAL_CONCURRENCY_FACTOR = 4;
+    // I/O 密集型任务是否使用虚拟线程执行
+    @Getter
+    private volatile boolean virtualThreadsEnabled = false;
     
     /**
      * 构造函数
@@ -63,6 +88,9 @@ public class ThreadPoolManager {
                 globalExecutor = new RetryableThreadPool(1, globalPreviewThreads, 10, TimeUnit.SECONDS);
             }
             return globalExecutor;
+        } else if (MODE_DEVICE.equals(currentMode)) {
+            return rootPathExecutors.computeIfAbsent(deviceRegistry.getDeviceId(rootPath) + "_preview",
+                    k -> new RetryableThreadPool(1, getDeviceThreads(rootPath, globalPreviewThreads), 10, TimeUnit.SECONDS));
         } else {
             return rootPathExecutors.computeIfAbsent(rootPath + "_preview", k -> {
                 int threads = rootPathPreviewThreads.getOrDefault(rootPath, globalPreviewThreads);
@@ -71,6 +99,44 @@ public class ThreadPoolManager {
         }
     }
     
+    /**
+     * 获取或创建预览分析线程池（ForkJoinPool），大小取预览线程数配置，
+     * 在该线程池内执行的并行流不会占用公共线程池
+     * @param rootPath 根路径
+     * @return 分析线程池
+     */
+    public ForkJoinPool getAnalysisPool(String rootPath) {
+        if (MODE_GLOBAL.equals(currentMode)) {
+            return analysisPools.computeIfAbsent(MODE_GLOBAL, k -> newAnalysisPool(k, globalPreviewThreads));
+        } else if (MODE_DEVICE.equals(currentMode)) {
+            return analysisPools.computeIfAbsent(deviceRegistry.getDeviceId(rootPath) + "_analysis",
+                    k -> newAnalysisPool(k, getDeviceThreads(rootPath, globalPreviewThreads)));
+        } else {
+            return analysisPools.computeIfAbsent(rootPath + "_analysis",
+                    k -> newAnalysisPool(k, rootPathPreviewThreads.getOrDefault(rootPath, globalPreviewThreads)));
+        }
+    }
+
+    private static ForkJoinPool newAnalysisPool(String name, int parallelism) {
+        AtomicInteger count = new AtomicInteger(1);
+        return new ForkJoinPool(Math.max(1, parallelism), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Analysis-" + name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * 关闭所有分析线程池，下次分析按最新的预览线程数重新创建
+     */
+    public void shutdownAnalysisPools() {
+        for (ForkJoinPool pool : analysisPools.values()) {
+            pool.shutdown();
+        }
+        analysisPools.clear();
+    }
+
     /**
      * 获取或创建执行线程池
      * @param rootPath 根路径
@@ -82,6 +148,9 @@ public class ThreadPoolManager {
                 globalExecutor = new RetryableThreadPool(1, globalExecutionThreads, 10, TimeUnit.SECONDS);
             }
             return globalExecutor;
+        } else if (MODE_DEVICE.equals(currentMode)) {
+            return rootPathExecutors.computeIfAbsent(getExecutionLaneKey(rootPath),
+                    k -> new RetryableThreadPool(1, getDeviceThreads(rootPath, globalExecutionThreads), 10, TimeUnit.SECONDS));
         } else {
             return rootPathExecutors.computeIfAbsent(rootPath + "_execution", k -> {
                 int threads = rootPathExecutionThreads.getOrDefault(rootPath, globalExecutionThreads);
@@ -90,6 +159,89 @@ public class ThreadPoolManager {
         }
     }
     
+    /**
+     * 获取执行线程池对应的调度通道标识，同一个线程池的任务共用一个通道
+     * @param rootPath 根路径
+     * @return 通道标识
+     */
+    public String getExecutionLaneKey(String rootPath) {
+        if (MODE_GLOBAL.equals(currentMode)) {
+            return MODE_GLOBAL;
+        }
+        if (MODE_DEVICE.equals(currentMode)) {
+            return deviceRegistry.getDeviceId(rootPath) + "_execution";
+        }
+        return rootPath + "_execution";
+    }
+
+    /**
+     * 设置 I/O 密集型任务是否使用虚拟线程执行
+     * @param enabled 是否启用
+     */
+    public void setVirtualThreadsEnabled(boolean enabled) {
+        this.virtualThreadsEnabled = enabled;
+    }
+
+    /**
+     * 是否实际使用虚拟线程：需要开启且运行时支持，否则回退到平台线程池
+     * @return 是否使用虚拟线程
+     */
+    public boolean useVirtualThreads() {
+        return virtualThreadsEnabled && VirtualThreadSupport.isSupported();
+    }
+
+    /**
+     * 获取虚拟线程通道标识，按存储设备划分，与线程池模式无关
+     * @param rootPath 根路径
+     * @return 通道标识
+     */
+    public String getVirtualLaneKey(String rootPath) {
+        return deviceRegistry.getDeviceId(rootPath) + "_virtual";
+    }
+
+    /**
+     * 获取或创建根路径所在设备的虚拟线程池，并发由设备信号量限制
+     * @param rootPath 根路径
+     * @return 虚拟线程池
+     */
+    public RetryableThreadPool getVirtualExecutionPool(String rootPath) {
+        return rootPathExecutors.computeIfAbsent(getVirtualLaneKey(rootPath),
+                k -> RetryableThreadPool.ofVirtualThreads(getVirtualConcurrency(rootPath)));
+    }
+
+    /**
+     * 虚拟线程并发数：机械硬盘仍按设备默认值限制，避免随机寻道，其他设备放大若干倍
+     * @param rootPath 根路径
+     * @return 并发许可数
+     */
+    public int getVirtualConcurrency(String rootPath) {
+        StorageDeviceType type = deviceRegistry.getDeviceType(rootPath);
+        if (type.isSequential()) {
+            return type.getDefaultThreads();
+        }
+        return getDeviceThreads(rootPath, globalExecutionThreads) * VIRTUAL_CONCURRENCY_FACTOR;
+    }
+
+    /**
+     * 该通道是否需要按路径顺序执行（机械硬盘顺序读写，减少磁头来回寻道）
+     * @param rootPath 根路径
+     * @return 是否顺序执行
+     */
+    public boolean isSequentialLane(String rootPath) {
+        return MODE_DEVICE.equals(currentMode) && deviceRegistry.getDeviceType(rootPath).isSequential();
+    }
+
+    /**
+     * 按设备类型计算线程数：机械硬盘低并发，固态硬盘高并发，未知设备沿用全局配置
+     * @param rootPath 根路径
+     * @param fallback 未知设备使用的线程数
+     * @return 线程数
+     */
+    public int getDeviceThreads(String rootPath, int fallback) {
+        StorageDeviceType type = deviceRegistry.getDeviceType(rootPath);
+        return type.getDefaultThreads() > 0 ? type.getDefaultThreads() : fallback;
+    }
+
     /**
      * 设置全局预览线程数
      * @param threads 线程数
@@ -176,6 +328,7 @@ public class ThreadPoolManager {
             executor.shutdown();
         }
         rootPathExecutors.clear();
+        shutdownAnalysisPools();
     }
     
     /**
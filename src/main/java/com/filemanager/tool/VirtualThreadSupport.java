@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.tool;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程支持：通过反射调用 JDK 21+ 的 Executors.newVirtualThreadPerTaskExecutor，
+ * 在 JDK 8 等旧运行时上编译和运行都不受影响，只是不可用
+ */
+public final class VirtualThreadSupport {
+
+    private static final Method NEW_EXECUTOR = lookup();
+
+    private VirtualThreadSupport() {
+    }
+
+    private static Method lookup() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            // 预览版 JDK 上未开启预览特性时调用会抛异常，这里先试一次
+            ((ExecutorService) method.invoke(null)).shutdown();
+            return method;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     *
+     * @throws UnsupportedOperationException 运行时不支持虚拟线程
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (NEW_EXECUTOR == null) {
+            throw new UnsupportedOperationException("当前 Java 运行时不支持虚拟线程: " + System.getProperty("java.version"));
+        }
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("创建虚拟线程执行器失败", e);
+        }
+    }
+}
@@ -10,6 +10,7 @@
 package com.filemanager.tool.file;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import com.filemanager.util.BlockingUtils;
 import org.apache.tika.Tika;
 import java.io.File;
 import java.io.IOException;
@@ -84,7 +85,7 @@ public class AudioTypeInspector {
 
         try {
             // 1. [...](asc_slot://start-slot-13)基于文件内容检测真实的 MIME 类型
-            String detectedMimeType = tika.detect(file);
+            String detectedMimeType = BlockingUtils.call(() -> tika.detect(file));
 
             // 2. 获取当前文件的扩展名
             String currentName = file.getName();
@@ -131,7 +132,7 @@ public class AudioTypeInspector {
         try (InputStream stream = new java.io.BufferedInputStream(new java.io.FileInputStream(file))) {
 
             // 1. 核心修改：只传入流，不传入文件名。Tika 此时完全“盲测”，必须依赖文件头魔数。
-            String detectedMimeType = tika.detect(stream);
+            String detectedMimeType = BlockingUtils.call(() -> tika.detect(stream));
 
             // 2. 获取当前文件的扩展名
             String currentName = file.getName();
@@ -2,6 +2,7 @@ package com.filemanager.tool.file;
 
 import com.filemanager.model.ChangeRecord;
 import com.filemanager.model.CleanupParams;
+import com.filemanager.model.ScannedEntry;
 import com.filemanager.strategy.FileCleanupStrategy;
 import com.filemanager.type.ExecStatus;
 import com.filemanager.type.OperationType;
@@ -17,7 +18,6 @@ import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -35,50 +35,60 @@ public class DuplicateAnalyzer {
         this.params = params;
     }
 
-    public List<ChangeRecord> analyze(File file) {
+    /**
+     * 分析记录：记录本身和目录下条目的类型、大小、修改时间都使用扫描或列目录时读取的属性，不重复访问文件系统
+     */
+    public List<ChangeRecord> analyze(ChangeRecord rec) {
+        File file = rec.getFileHandle();
         if (params.getMode() == FileCleanupStrategy.CleanupMode.REMOVE_EMPTY_DIRS) {
             if (isDirectoryEmpty(file)) {
                 return Collections.singletonList(createDeleteRecord(file, "空文件夹 (无子文件)"));
             }
             return Collections.emptyList();
         } else if (params.getMode() == FileCleanupStrategy.CleanupMode.DEDUP_FOLDERS) {
-            File[] files = file.listFiles();
-            if (file.isFile() || files == null || files.length < 2) {
+            if (rec.isFile()) {
+                return Collections.emptyList();
+            }
+            List<ScannedEntry> files = ScannedEntry.list(file);
+            if (files == null || files.size() < 2) {
                 return Collections.emptyList();
             }
-            return analyzeDuplicateFolders(Arrays.asList(files));
+            return analyzeDuplicateFolders(files);
         } else if (params.getMode() == FileCleanupStrategy.CleanupMode.DIRECT_CLEANUP) {
             // 直接清理模式：直接删除文件（应用大小范围过滤）
-            if (file.isDirectory()) {
-                File[] files = file.listFiles();
+            if (rec.isDirectory()) {
+                List<ScannedEntry> files = ScannedEntry.list(file);
                 if (files == null) {
                     return Collections.emptyList();
                 }
                 List<ChangeRecord> results = new ArrayList<>();
-                for (File subFile : files) {
+                for (ScannedEntry subFile : files) {
                     if (subFile.isFile() && params.getSizeRange().isInRange(subFile.length())) {
-                        results.add(createDeleteRecord(subFile, "直接清理文件"));
+                        results.add(createDeleteRecord(subFile.getFile(), "直接清理文件"));
                     }
                 }
                 return results;
             } else {
                 // 如果是单个文件，直接检查是否符合大小范围并删除
-                if (params.getSizeRange().isInRange(file.length())) {
+                if (params.getSizeRange().isInRange(rec.length())) {
                     return Collections.singletonList(createDeleteRecord(file, "直接清理文件"));
                 }
                 return Collections.emptyList();
             }
         } else if (params.getMode() == FileCleanupStrategy.CleanupMode.MERGE_SAME_NAME_PARENT_CHILD) {
             // 同名父子文件夹合并模式
-            return analyzeMergeSameNameFolders(file);
+            return rec.isDirectory() ? analyzeMergeSameNameFolders(file) : Collections.emptyList();
         } else {
             // 默认是文件去重模式
-            File[] files = file.listFiles();
-            if (file.isFile() || files == null || files.length < 2) {
+            if (rec.isFile()) {
+                return Collections.emptyList();
+            }
+            List<ScannedEntry> files = ScannedEntry.list(file);
+            if (files == null || files.size() < 2) {
                 return Collections.emptyList();
             }
             // 应用文件大小范围过滤
-            List<File> filteredFiles = Arrays.stream(files)
+            List<ScannedEntry> filteredFiles = files.stream()
                     .filter(subFile -> subFile.isFile() && params.getSizeRange().isInRange(subFile.length()))
                     .collect(Collectors.toList());
             if (filteredFiles.size() < 2) {
@@ -91,17 +101,17 @@ public class DuplicateAnalyzer {
     /**
      * 智能文件去重
      */
-    private List<ChangeRecord> analyzeDuplicateFiles(List<File> files) {
+    private List<ChangeRecord> analyzeDuplicateFiles(List<ScannedEntry> files) {
         List<ChangeRecord> result = new ArrayList<>();
-        Map<File, List<File>> dirMap = files.stream().filter(File::isFile).collect(Collectors.groupingBy(File::getParentFile));
+        Map<File, List<ScannedEntry>> dirMap = files.stream().filter(ScannedEntry::isFile).collect(Collectors.groupingBy(e -> e.getFile().getParentFile()));
 
         // 正则：提取文件名核心 (忽略 (1), - Copy 等)
         Pattern normPattern = Pattern.compile("^(.+?)(\\s*[\\(\\[（].*?[\\)\\]）])?(\\s*-\\s*(副本|Copy))?(\\s*\\(\\d+\\))?(\\.[^.]+)?$");
 
-        for (Map.Entry<File, List<File>> entry : dirMap.entrySet()) {
-            // 二级分组：CoreName -> List<File>
-            Map<String, List<File>> nameGroup = entry.getValue().stream().collect(Collectors.groupingBy(f -> {
-                String name = f.getName();
+        for (Map.Entry<File, List<ScannedEntry>> entry : dirMap.entrySet()) {
+            // 二级分组：CoreName -> List<ScannedEntry>
+            Map<String, List<ScannedEntry>> nameGroup = entry.getValue().stream().collect(Collectors.groupingBy(f -> {
+                String name = f.getFile().getName();
                 Matcher m = normPattern.matcher(name);
                 String core = m.find() ? m.group(1).trim() : name;
                 // 应用文件名预处理
@@ -111,21 +121,22 @@ public class DuplicateAnalyzer {
                 return core + "::" + typeTag; // Key: "song::AUDIO"
             }));
 
-            for (List<File> group : nameGroup.values()) {
+            for (List<ScannedEntry> group : nameGroup.values()) {
                 if (group.size() < 2) continue; // 无重复
 
                 // 检查是否是音频文件组
-                String ext = getExt(group.get(0).getName());
+                String ext = getExt(group.get(0).getFile().getName());
                 boolean isAudioGroup = EXT_AUDIO.contains(ext);
-                
-                List<File> filesToProcess = new ArrayList<>(group);
-                
+
                 if (isAudioGroup && params.isAudioSpecial()) {
                     // 音频文件特殊处理：按持续时间二次分组，仅对时间一致的文件去重
-                    Map<Long, List<File>> durationGroups = new HashMap<>();
-                    
-                    for (File f : group) {
-                        Map<String, Long> metadata = getAudioMetadata(f);
+                    // 每个文件只读取一次元数据，分组和比较码率共用
+                    Map<ScannedEntry, Map<String, Long>> metadataCache = new IdentityHashMap<>();
+                    Map<Long, List<ScannedEntry>> durationGroups = new HashMap<>();
+
+                    for (ScannedEntry f : group) {
+                        Map<String, Long> metadata = getAudioMetadata(f.getFile());
+                        metadataCache.put(f, metadata);
                         if (metadata != null) {
                             long duration = metadata.get("duration");
                             // 精确匹配持续时间（毫秒级）
@@ -135,26 +146,23 @@ public class DuplicateAnalyzer {
                             durationGroups.computeIfAbsent(-1L, k -> new ArrayList<>()).add(f);
                         }
                     }
-                    
+
                     // 对每个持续时间组进行处理
-                    for (List<File> durationGroup : durationGroups.values()) {
+                    for (List<ScannedEntry> durationGroup : durationGroups.values()) {
                         if (durationGroup.size() < 2) continue;
-                        
+
                         // 音频文件特殊选择逻辑：优先保留高质量文件
-                        File keeper = Collections.max(durationGroup, (f1, f2) -> {
+                        ScannedEntry keeper = Collections.max(durationGroup, (f1, f2) -> {
                             // 1. 优先后缀匹配
-                            if (params.getKeepExt() != null && !params.getKeepExt().isEmpty()) {
-                                boolean k1 = f1.getName().toLowerCase().endsWith("." + params.getKeepExt().toLowerCase());
-                                boolean k2 = f2.getName().toLowerCase().endsWith("." + params.getKeepExt().toLowerCase());
-                                if (k1 != k2) {
-                                    return k1 ? 1 : -1;
-                                }
+                            int extCmp = compareKeepExt(f1, f2);
+                            if (extCmp != 0) {
+                                return extCmp;
                             }
-                            
+
                             // 2. 优先比较码率（音频质量）
-                            Map<String, Long> meta1 = getAudioMetadata(f1);
-                            Map<String, Long> meta2 = getAudioMetadata(f2);
-                            
+                            Map<String, Long> meta1 = metadataCache.get(f1);
+                            Map<String, Long> meta2 = metadataCache.get(f2);
+
                             if (meta1 != null && meta2 != null) {
                                 long bitrate1 = meta1.getOrDefault("bitrate", 0L);
                                 long bitrate2 = meta2.getOrDefault("bitrate", 0L);
@@ -162,109 +170,35 @@ public class DuplicateAnalyzer {
                                     return Long.compare(bitrate1, bitrate2);
                                 }
                             }
-                            
-                            // 3. 体积优先
-                            if (params.isKeepLargest()) {
-                                int sizeCmp = Long.compare(f1.length(), f2.length());
-                                if (sizeCmp != 0) {
-                                    return sizeCmp;
-                                }
-                            }
-                            
-                            // 4. 变更时间优先
-                            if (params.isKeepEarliest()) {
-                                int timeCmp = Long.compare(f2.lastModified(), f1.lastModified());
-                                if (timeCmp != 0) {
-                                    return timeCmp;
-                                }
-                                
-                                try {
-                                    java.nio.file.attribute.BasicFileAttributes attributes = Files.readAttributes(Paths.get(f1.getPath()), java.nio.file.attribute.BasicFileAttributes.class);
-                                    java.nio.file.attribute.BasicFileAttributes attributes2 = Files.readAttributes(Paths.get(f2.getPath()), java.nio.file.attribute.BasicFileAttributes.class);
-                                    if (attributes2.lastModifiedTime().compareTo(attributes.lastModifiedTime()) != 0) {
-                                        return attributes2.lastModifiedTime().compareTo(attributes.lastModifiedTime());
-                                    }
-                                    if (attributes2.creationTime().compareTo(attributes.creationTime()) != 0) {
-                                        return attributes2.creationTime().compareTo(attributes.creationTime());
-                                    }
-                                } catch (IOException e) {
-                                    throw new RuntimeException(e);
-                                }
-                            }
-                            
-                            // 5. 默认：名字短的优先 (通常不带 (1) 的是原件)
-                            int lenCmp = Integer.compare(f2.getName().length(), f1.getName().length());
-                            if (lenCmp != 0) {
-                                return lenCmp;
-                            }
-                            
-                            // 6. 默认：名字排序靠前的优先 (通常是大写)
-                            return StringUtils.compare(f2.getName(), f1.getName(), true);
+
+                            // 3~6. 体积、变更时间、名字
+                            return compareByAttributesAndName(f1, f2);
                         });
-                        
+
                         // 标记要删除的文件
-                        for (File f : durationGroup) {
+                        for (ScannedEntry f : durationGroup) {
                             if (f == keeper) continue;
-                            result.add(createDeleteRecord(f, "重复副本 (与 " + keeper.getName() + " 内容重复)"));
+                            result.add(createDeleteRecord(f.getFile(), "重复副本 (与 " + keeper.getFile().getName() + " 内容重复)"));
                         }
                     }
                 } else {
                     // 非音频文件或未启用音频特殊处理：使用原有逻辑
-                    File keeper = Collections.max(group, (f1, f2) -> {
+                    ScannedEntry keeper = Collections.max(group, (f1, f2) -> {
                         // 1. 优先后缀匹配
-                        if (params.getKeepExt() != null && !params.getKeepExt().isEmpty()) {
-                            boolean k1 = f1.getName().toLowerCase().endsWith("." + params.getKeepExt().toLowerCase());
-                            boolean k2 = f2.getName().toLowerCase().endsWith("." + params.getKeepExt().toLowerCase());
-                            if (k1 != k2) {
-                                return k1 ? 1 : -1;
-                            }
-                        }
-
-                        // 2. 体积优先
-                        if (params.isKeepLargest()) {
-                            int sizeCmp = Long.compare(f1.length(), f2.length());
-                            if (sizeCmp != 0) {
-                                return sizeCmp;
-                            }
+                        int extCmp = compareKeepExt(f1, f2);
+                        if (extCmp != 0) {
+                            return extCmp;
                         }
-
-                        // 3. 变更时间优先
-                        if (params.isKeepEarliest()) {
-                            int sizeCmp = Long.compare(f2.lastModified(), f1.lastModified());
-                            if (sizeCmp != 0) {
-                                return sizeCmp;
-                            }
-
-                            try {
-                                java.nio.file.attribute.BasicFileAttributes attributes = Files.readAttributes(Paths.get(f1.getPath()), java.nio.file.attribute.BasicFileAttributes.class);
-                                java.nio.file.attribute.BasicFileAttributes attributes2 = Files.readAttributes(Paths.get(f2.getPath()), java.nio.file.attribute.BasicFileAttributes.class);
-                                if (attributes2.lastModifiedTime().compareTo(attributes.lastModifiedTime()) != 0) {
-                                    return attributes2.lastModifiedTime().compareTo(attributes.lastModifiedTime());
-                                }
-                                if (attributes2.creationTime().compareTo(attributes.creationTime()) != 0) {
-                                    return attributes2.creationTime().compareTo(attributes.creationTime());
-                                }
-                            } catch (IOException e) {
-                                throw new RuntimeException(e);
-                            }
-                        }
-
-                        // 4. 默认：名字短的优先 (通常不带 (1) 的是原件)
-                        int compLen = Integer.compare(f2.getName().length(), f1.getName().length());
-                        if (compLen != 0) {
-                            return compLen;
-                        }
-
-                        // 5. 默认：名字排序靠前的优先 (通常是大写)
-                        return StringUtils.compare(f2.getName(), f1.getName(), true);
+                        // 2~5. 体积、变更时间、名字
+                        return compareByAttributesAndName(f1, f2);
                     });
 
                     // 严格检查：必须确保 keeper 存在于 group 中，且不被删除
-                    for (File f : group) {
+                    for (ScannedEntry f : group) {
                         if (f == keeper) {
                             continue; // 保留
                         }
-                        result.add(createDeleteRecord(f, "重复副本 (与 " + keeper.getName() + " 内容重复)"));
+                        result.add(createDeleteRecord(f.getFile(), "重复副本 (与 " + keeper.getFile().getName() + " 内容重复)"));
                     }
                 }
             }
@@ -272,17 +206,63 @@ public class DuplicateAnalyzer {
         return result;
     }
 
+    /**
+     * 保留后缀匹配的优先
+     */
+    private int compareKeepExt(ScannedEntry f1, ScannedEntry f2) {
+        if (params.getKeepExt() != null && !params.getKeepExt().isEmpty()) {
+            boolean k1 = f1.getFile().getName().toLowerCase().endsWith("." + params.getKeepExt().toLowerCase());
+            boolean k2 = f2.getFile().getName().toLowerCase().endsWith("." + params.getKeepExt().toLowerCase());
+            if (k1 != k2) {
+                return k1 ? 1 : -1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 体积、变更时间、名字依次比较，值大的保留
+     */
+    private int compareByAttributesAndName(ScannedEntry f1, ScannedEntry f2) {
+        // 体积优先
+        if (params.isKeepLargest()) {
+            int sizeCmp = Long.compare(f1.length(), f2.length());
+            if (sizeCmp != 0) {
+                return sizeCmp;
+            }
+        }
+
+        // 变更时间优先，相同时比较创建时间
+        if (params.isKeepEarliest()) {
+            int timeCmp = Long.compare(f2.lastModified(), f1.lastModified());
+            if (timeCmp != 0) {
+                return timeCmp;
+            }
+            int createCmp = Long.compare(f2.creationTime(), f1.creationTime());
+            if (createCmp != 0) {
+                return createCmp;
+            }
+        }
+
+        // 默认：名字短的优先 (通常不带 (1) 的是原件)
+        String name1 = f1.getFile().getName();
+        String name2 = f2.getFile().getName();
+        int lenCmp = Integer.compare(name2.length(), name1.length());
+        if (lenCmp != 0) {
+            return lenCmp;
+        }
+
+        // 默认：名字排序靠前的优先 (通常是大写)
+        return StringUtils.compare(name2, name1, true);
+    }
+
     /**
      * 同名父子文件夹合并
      */
     private List<ChangeRecord> analyzeMergeSameNameFolders(File file) {
         List<ChangeRecord> result = new ArrayList<>();
         
-        // 确保当前文件是目录
-        if (!file.isDirectory()) {
-            return result;
-        }
-        
+        // 调用方已确认当前文件是目录（使用扫描时的属性）
         // 获取当前目录的名称
         String currentDirName = file.getName();
         
@@ -353,9 +333,9 @@ public class DuplicateAnalyzer {
     /**
      * 文件夹去重 (内容一致性检查)
      */
-    private List<ChangeRecord> analyzeDuplicateFolders(List<File> files) {
+    private List<ChangeRecord> analyzeDuplicateFolders(List<ScannedEntry> files) {
         List<ChangeRecord> result = new ArrayList<>();
-        List<File> dirs = files.stream().filter(File::isDirectory).collect(Collectors.toList());
+        List<File> dirs = files.stream().filter(ScannedEntry::isDirectory).map(ScannedEntry::getFile).collect(Collectors.toList());
         Map<File, List<File>> parentMap = dirs.stream().filter(f -> f.getParentFile() != null).collect(Collectors.groupingBy(File::getParentFile));
         for (List<File> siblings : parentMap.values()) {
             // 计算指纹（包含递归内容）
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.tool.log;
+
+import com.filemanager.type.ExecLogLevel;
+import com.filemanager.type.OperationType;
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 执行日志配置：默认级别、各操作类型单独的级别和抽样参数，执行开始时从界面取一份，执行期间不变
+ */
+@Getter
+public class ExecutionLogPolicy {
+    private final ExecLogLevel defaultLevel;
+    private final Map<OperationType, ExecLogLevel> levels;
+    // 抽样时每种操作前多少条成功记录全部输出
+    private final int sampleFirst;
+    // 之后每隔多少条成功记录输出一条，0 表示不再输出
+    private final int sampleEvery;
+
+    public ExecutionLogPolicy(ExecLogLevel defaultLevel, Map<OperationType, ExecLogLevel> levels, int sampleFirst, int sampleEvery) {
+        this.defaultLevel = defaultLevel == null || defaultLevel == ExecLogLevel.DEFAULT ? ExecLogLevel.SAMPLED : defaultLevel;
+        this.levels = levels.isEmpty() ? new EnumMap<>(OperationType.class) : new EnumMap<>(levels);
+        this.sampleFirst = Math.max(0, sampleFirst);
+        this.sampleEvery = Math.max(0, sampleEvery);
+    }
+
+    /**
+     * 操作类型实际使用的级别，未单独设置时使用默认级别
+     */
+    public ExecLogLevel levelOf(OperationType opType) {
+        ExecLogLevel level = levels.get(opType);
+        return level == null || level == ExecLogLevel.DEFAULT ? defaultLevel : level;
+    }
+
+    /**
+     * 第 seq 条（从 1 开始）成功记录按抽样规则是否输出
+     */
+    public boolean sampled(long seq) {
+        return seq <= sampleFirst || (sampleEvery > 0 && (seq - sampleFirst) % sampleEvery == 0);
+    }
+}
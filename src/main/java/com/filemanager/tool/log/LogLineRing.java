@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.tool.log;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 固定容量的日志行环形缓冲，作为日志列表（ListView）的数据源
+ * <p>
+ * 追加时超出容量的最早几行被覆盖，不移动其他行；一批追加只通知一次列表变化，
+ * ListView 只绘制可见的行，日志再多界面开销也不变。只在 FX 线程中使用。
+ */
+public class LogLineRing extends ObservableListBase<String> {
+
+    private final String[] lines;
+    // 最早一行所在的位置
+    private int head = 0;
+    private int size = 0;
+
+    public LogLineRing(int capacity) {
+        this.lines = new String[capacity];
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return lines[(head + index) % lines.length];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 追加一批日志行，超出容量时丢弃最早的行
+     */
+    public void addLines(List<String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int capacity = lines.length;
+        List<String> added = batch.size() > capacity ? batch.subList(batch.size() - capacity, batch.size()) : batch;
+        int overflow = Math.max(0, size + added.size() - capacity);
+        beginChange();
+        try {
+            if (overflow > 0) {
+                List<String> removed = new ArrayList<>(overflow);
+                for (int i = 0; i < overflow; i++) {
+                    removed.add(get(i));
+                }
+                head = (head + overflow) % capacity;
+                size -= overflow;
+                nextRemove(0, removed);
+            }
+            int from = size;
+            for (String line : added) {
+                lines[(head + size) % capacity] = line;
+                size++;
+            }
+            nextAdd(from, size);
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        List<String> removed = new ArrayList<>(this);
+        beginChange();
+        try {
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] = null;
+            }
+            head = 0;
+            size = 0;
+            nextRemove(0, removed);
+        } finally {
+            endChange();
+        }
+    }
+}
@@ -1,49 +1,67 @@
-/* 
- * Copyright (c) 2026 hrcao (chrse1997@163.com) 
- * Licensed under GPLv3 + Non-Commercial Clause. 
- * You may not use this file except in compliance with the License. 
- * See the LICENSE file in the project root for more information. 
- * Author: hrcao 
- * Mail: chrse1997@163.com 
- * Date: 2026-01-12 
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
  */
 package com.filemanager.tool.log;
 
-import javafx.application.Platform;
-import javafx.scene.control.TextArea;
-
-import java.io.*;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * 智能日志管理类
- * 1. 自动限制 TextArea 显示行数
- * 2. 自动按时间创建日志文件到 logs/ 目录
- * 3. 线程安全地处理文件写入与 UI 更新
+ * 智能日志管理类（异步写入）
+ * 1. 自动按时间创建日志文件到 logs/ 目录
+ * 2. 调用线程只把日志放入无锁队列，不加锁、不做 IO，由单独的写入线程成批写入大缓冲区
+ * 3. 缓冲区按固定间隔刷新到磁盘，不再每行一次系统调用；程序退出时写完队列中剩余的日志
  */
 public class SmartLogAppender {
 
-    private final TextArea textArea;
-    private final int maxLines;
-    private PrintWriter fileWriter;
-    
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final long FLUSH_INTERVAL_MILLIS = 500;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
     // 格式化：文件名使用连字符，避免 Windows 不支持冒号的问题
-    private final DateTimeFormatter fileFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
-    private final DateTimeFormatter logFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss ");
-    
-    // 用于确保文件写入线程安全的锁对象
-    private final Object lock = new Object();
+    private static final DateTimeFormatter FILE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+    private static final DateTimeFormatter LOG_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss ");
+    // 同一秒内的日志共用格式化好的时间戳
+    private static volatile Timestamp lastTimestamp = new Timestamp(-1, "");
+
+    // 多个线程写入、写入线程读取的无锁队列
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    private final Thread writerThread;
+    private volatile boolean closed = false;
+    private volatile boolean flushRequested = false;
+    // 只在写入线程中使用
+    private Writer fileWriter;
+    private File logFile;
+    private String initMessage;
 
     /**
-     * @param textArea 要绑定的 JavaFX TextArea
-     * @param maxLines UI 界面最多显示的行数
+     * @param suffix 日志文件名后缀
      */
-    public SmartLogAppender(TextArea textArea, int maxLines, String suffix) {
-        this.textArea = textArea;
-        this.maxLines = maxLines;
+    public SmartLogAppender(String suffix) {
         initFileWriter(suffix);
+        this.writerThread = new Thread(this::runWriter, "log-writer" + suffix);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        // 退出时写完剩余日志
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
     }
 
     /**
@@ -58,84 +76,147 @@ public class SmartLogAppender {
             }
 
             // 2. 生成基于当前时间的文件名
-            String fileName = LocalDateTime.now().format(fileFormatter) + suffix;
-            File logFile = new File(logDir, fileName);
+            File file = new File(logDir, LocalDateTime.now().format(FILE_FORMATTER) + suffix);
 
-            // 3. 初始化流（使用 UTF-8，追加模式，自动刷新）
-            this.fileWriter = new PrintWriter(new BufferedWriter(
-                    new OutputStreamWriter(new FileOutputStream(logFile, true), StandardCharsets.UTF_8)), true);
-            appendLog("▶ ▶ ▶ 日志文件已创建: " + logFile.getAbsolutePath());
+            // 3. 初始化流（使用 UTF-8，追加模式，大缓冲区，由写入线程定期刷新）
+            FileChannel channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            this.fileWriter = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1), BUFFER_SIZE);
+            this.logFile = file;
+            this.initMessage = "▶ ▶ ▶ 日志文件已创建: " + file.getAbsolutePath();
         } catch (IOException e) {
-            appendLog("▶ ▶ ▶ 初始化日志文件失败: " + e.getMessage());
+            this.initMessage = "▶ ▶ ▶ 初始化日志文件失败: " + e.getMessage();
         }
+        appendLog(initMessage);
     }
 
     /**
-     * 追加日志（线程安全）
+     * 生成带时间戳的日志行
      * @param message 日志内容
      */
-    public void appendLog(String message) {
-        String timestamp = LocalDateTime.now().format(logFormatter);
-        String msg = "[" + timestamp + "] ➡➡➡ " + message + "\n";
-        // --- 1. 线程安全的文件写入 ---
-        synchronized (lock) {
-            if (fileWriter != null) {
-                fileWriter.print(msg);
-                // PrintWriter 构造时开启了 autoFlush，所以这里可以不手动 flush，
-                // 但为了极致安全，重要日志可以保留 flush()
-            }
+    public static String formatLine(String message) {
+        long second = System.currentTimeMillis() / 1000;
+        Timestamp ts = lastTimestamp;
+        if (ts.second != second) {
+            ts = new Timestamp(second, LocalDateTime.now().format(LOG_FORMATTER));
+            lastTimestamp = ts;
         }
-        // --- 2. JavaFX UI 更新 ---
-        // Platform.runLater 内部是线程安全的队列，无需加锁
-        Platform.runLater(() -> {
-            textArea.appendText(msg);
-            trimTextArea();
-        });
+        return "[" + ts.text + "] ➡➡➡ " + message;
     }
 
-
     /**
-     * 限制 TextArea 行数
+     * 追加日志（线程安全，不阻塞）
+     * @param message 日志内容
      */
-    private void trimTextArea() {
-        String content = textArea.getText();
-        // 快速统计换行符数量
-        int currentLines = content.length() - content.replace("\n", "").length();
-
-        if (currentLines > maxLines) {
-            int linesToRemove = currentLines - maxLines;
-            int endPosition = 0;
-            
-            // 找到需要删除的边界位置
-            for (int i = 0; i < linesToRemove; i++) {
-                int nextIndex = content.indexOf("\n", endPosition);
-                if (nextIndex != -1) {
-                    endPosition = nextIndex + 1;
-                } else {
-                    break;
-                }
-            }
+    public void appendLog(String message) {
+        appendLine(formatLine(message));
+    }
 
-            if (endPosition > 0) {
-                textArea.deleteText(0, endPosition);
-            }
-        }
+    /**
+     * 追加已用 formatLine 格式化的日志行（线程安全，不阻塞）
+     */
+    public void appendLine(String line) {
+        queue.add(line);
     }
 
+    /**
+     * 尽快把已提交的日志写入磁盘
+     */
     public void forceFlush() {
-        if (this.fileWriter != null) {
-            this.fileWriter.flush();
-        }
+        flushRequested = true;
+        LockSupport.unpark(writerThread);
     }
 
     /**
-     * 程序关闭时调用，释放资源
+     * 程序关闭时调用，写完剩余日志并释放资源
      */
     public void close() {
-        synchronized (lock) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public File getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * 日志文件创建结果，用于显示在日志界面
+     */
+    public String getInitMessage() {
+        return initMessage;
+    }
+
+    private void runWriter() {
+        long lastFlush = System.currentTimeMillis();
+        boolean dirty = false;
+        while (true) {
+            boolean stopping = closed;
+            dirty |= drain();
+            long now = System.currentTimeMillis();
+            if (dirty && (stopping || flushRequested || now - lastFlush >= FLUSH_INTERVAL_MILLIS)) {
+                flush();
+                dirty = false;
+                lastFlush = now;
+            }
+            flushRequested = false;
+            if (stopping) {
+                break;
+            }
+            if (queue.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        try {
             if (fileWriter != null) {
                 fileWriter.close();
             }
+        } catch (IOException e) {
+            // 忽略关闭异常
+        }
+    }
+
+    // 取出队列中的全部日志写入缓冲区，返回是否写入了内容
+    private boolean drain() {
+        boolean wrote = false;
+        String line;
+        while ((line = queue.poll()) != null) {
+            if (fileWriter == null) {
+                continue;
+            }
+            try {
+                fileWriter.write(line);
+                fileWriter.write('\n');
+                wrote = true;
+            } catch (IOException e) {
+                System.err.println("写入日志文件失败: " + e.getMessage());
+            }
+        }
+        return wrote;
+    }
+
+    private void flush() {
+        try {
+            fileWriter.flush();
+        } catch (IOException e) {
+            System.err.println("刷新日志文件失败: " + e.getMessage());
+        }
+    }
+
+    private static class Timestamp {
+        private final long second;
+        private final String text;
+
+        private Timestamp(long second, String text) {
+            this.second = second;
+            this.text = text;
         }
     }
-}
\ No newline at end of file
+}
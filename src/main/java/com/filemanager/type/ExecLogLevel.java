@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.type;
+
+/**
+ * 执行日志的详细程度，决定每个任务的开始、成功日志是否输出；失败和停止的日志总是输出
+ */
+public enum ExecLogLevel {
+    // 只用于单个操作类型，表示使用默认级别
+    DEFAULT("跟随默认"),
+    // 开始和结果都记录
+    FULL("全部"),
+    // 只记录结果
+    RESULT("只记结果"),
+    // 成功的结果只记录前若干条，之后每隔若干条记录一条
+    SAMPLED("抽样"),
+    // 只记录失败和停止
+    FAILURE("只记失败");
+
+    private final String description;
+
+    ExecLogLevel(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    public static ExecLogLevel fromString(String text) {
+        for (ExecLogLevel level : values()) {
+            if (level.name().equalsIgnoreCase(text) || level.description.equals(text)) {
+                return level;
+            }
+        }
+        return DEFAULT;
+    }
+}
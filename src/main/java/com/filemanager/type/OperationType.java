@@ -41,6 +41,24 @@ public enum OperationType {
         return desc;
     }
 
+    /**
+     * 是否为 I/O 密集型操作：主要时间阻塞在文件系统或网络上，几乎不占用 CPU
+     */
+    public boolean isIoBound() {
+        switch (this) {
+            case RENAME:
+            case ALBUM_RENAME:
+            case CUE_RENAME:
+            case MOVE:
+            case SCRAPER:
+            case DELETE:
+            case FIX_TYPE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * 可选：根据枚举名称查找（防止异常，提供默认值）
      */
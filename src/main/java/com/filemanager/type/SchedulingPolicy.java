@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.type;
+
+/**
+ * 执行调度策略，决定同一线程池内就绪任务的出队顺序
+ */
+public enum SchedulingPolicy {
+    // 机械硬盘按目录顺序，虚拟线程通道（元数据类操作）快速优先，其余耗时长的优先
+    AUTO("自动", true),
+    FIFO("列表顺序", false),
+    // 最长处理时间优先（LPT），大文件转换先开始，尾部由快速任务填满，缩短总耗时
+    LONGEST_FIRST("耗时长的优先", true),
+    // 快速操作优先，重命名、移动等不被转换任务阻塞
+    QUICK_FIRST("快速操作优先", true),
+    // 按源文件路径排序，同一目录的文件连续处理
+    LOCALITY("按目录顺序", false);
+
+    private final String description;
+    // 是否需要估算任务耗时
+    private final boolean costBased;
+
+    SchedulingPolicy(String description, boolean costBased) {
+        this.description = description;
+        this.costBased = costBased;
+    }
+
+    public boolean isCostBased() {
+        return costBased;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    public static SchedulingPolicy fromString(String text) {
+        for (SchedulingPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(text) || policy.description.equals(text)) {
+                return policy;
+            }
+        }
+        return AUTO;
+    }
+}
@@ -0,0 +1,54 @@
+/* 
+ * Copyright (c) 2026 hrcao (chrse1997@163.com) 
+ * Licensed under GPLv3 + Non-Commercial Clause. 
+ * You may not use this file except in compliance with the License. 
+ * See the LICENSE file in the project root for more information. 
+ * Author: hrcao 
+ * Mail: chrse1997@163.com 
+ * Date: 2026-01-12 
+ */
+package com.filemanager.type;
+
+/**
+ * 存储设备类型，决定设备线程池的并发度与任务顺序
+ */
+public enum StorageDeviceType {
+    AUTO("自动检测", 0, false),
+    HDD("机械硬盘", 2, true),
+    SSD("固态硬盘", 16, false),
+    UNKNOWN("未知设备", 0, false);
+
+    private final String description;
+    // 推荐并发数，0 表示沿用全局执行线程数
+    private final int defaultThreads;
+    // 是否按路径顺序执行，减少磁头寻道
+    private final boolean sequential;
+
+    StorageDeviceType(String description, int defaultThreads, boolean sequential) {
+        this.description = description;
+        this.defaultThreads = defaultThreads;
+        this.sequential = sequential;
+    }
+
+    public int getDefaultThreads() {
+        return defaultThreads;
+    }
+
+    public boolean isSequential() {
+        return sequential;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    public static StorageDeviceType fromString(String text) {
+        for (StorageDeviceType type : values()) {
+            if (type.name().equalsIgnoreCase(text) || type.description.equals(text)) {
+                return type;
+            }
+        }
+        return AUTO;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * 阻塞调用（磁盘、网络）包装：在 ForkJoinPool 工作线程上执行时通过 ManagedBlocker 通知线程池，
+ * 线程池可临时补充线程，避免分析时所有工作线程都卡在 I/O 上；其他线程上直接调用
+ */
+public class BlockingUtils {
+
+    /**
+     * 执行阻塞调用
+     *
+     * @param action 阻塞操作，原样抛出其声明的异常
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, E extends Exception> T call(BlockingCall<T, E> action) throws E {
+        if (!(Thread.currentThread() instanceof ForkJoinWorkerThread)) {
+            return action.call();
+        }
+        CallBlocker<T, E> blocker = new CallBlocker<>(action);
+        try {
+            ForkJoinPool.managedBlock(blocker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (blocker.error != null) {
+            throw (E) blocker.error;
+        }
+        return blocker.result;
+    }
+
+    /**
+     * 可抛出指定异常的阻塞操作
+     */
+    public interface BlockingCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    private static class CallBlocker<T, E extends Exception> implements ForkJoinPool.ManagedBlocker {
+        private final BlockingCall<T, E> action;
+        private T result;
+        private Exception error;
+        private boolean done;
+
+        private CallBlocker(BlockingCall<T, E> action) {
+            this.action = action;
+        }
+
+        @Override
+        public boolean block() {
+            try {
+                result = action.call();
+            } catch (Exception e) {
+                error = e;
+            }
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+}
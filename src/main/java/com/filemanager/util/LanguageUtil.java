@@ -12,6 +12,7 @@ package com.filemanager.util;
 import com.github.houbb.opencc4j.util.ZhConverterUtil;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -34,6 +35,8 @@ public class LanguageUtil {
         add(Character.UnicodeBlock.KATAKANA);
         add(Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS);
     }};
+    // 繁体字转简体的逐字缓存，0 表示尚未转换
+    private static final char[] SIMPLE_CHAR_CACHE = new char[Character.MAX_VALUE + 1];
 
 
     /**
@@ -200,6 +203,40 @@ public class LanguageUtil {
         return toClassicName(name);
     }
 
+    /**
+     * 搜索用的名称标准化，规则与 toClassicName 相同：去空格、转半角、转简体、转大写
+     * <p>
+     * 繁简按单字转换并缓存结果，不做词组转换，对大量名称建立索引时比 toClassicName 快得多。
+     **/
+    public static String toSearchKey(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '　') {
+                c = ' ';
+            } else if (c >= 65281 && c <= 65374) {
+                c = (char) (c - 65248);
+            }
+            if (c != ' ') {
+                sb.append(Character.toUpperCase(toSimpleChar(c)));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static char toSimpleChar(char c) {
+        // CJK 部首之前没有繁体字
+        if (c < 0x2E80) {
+            return c;
+        }
+        char simple = SIMPLE_CHAR_CACHE[c];
+        if (simple == 0) {
+            List<String> candidates = ZhConverterUtil.toSimple(c);
+            simple = candidates != null && !candidates.isEmpty() && candidates.get(0).length() == 1 ? candidates.get(0).charAt(0) : c;
+            SIMPLE_CHAR_CACHE[c] = simple;
+        }
+        return simple;
+    }
 
     public static void main(String[] args) {
         System.out.println(toFullWidth(PPP));
@@ -31,7 +31,7 @@ public class MetadataHelper {
 
         if (!forceFile) {
             try {
-                AudioFile f = AudioFileIO.read(file);
+                AudioFile f = BlockingUtils.call(() -> AudioFileIO.read(file));
                 Tag tag = f.getTag();
                 if (tag != null) {
                     meta.title = tag.getFirst(FieldKey.TITLE);
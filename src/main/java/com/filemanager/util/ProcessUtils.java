@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.util;
+
+import com.filemanager.tool.CancellationToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * 外部进程执行：合并标准输出和错误输出并保留末尾一段用于报错，
+ * 令牌取消时强制结束进程，调用线程立即返回
+ */
+public class ProcessUtils {
+
+    // 保留的输出末尾长度（字节）
+    private static final int OUTPUT_TAIL_BYTES = 4096;
+    // 进程结束后等待输出读完的最长时间（毫秒）
+    private static final long OUTPUT_DRAIN_MILLIS = 1000;
+
+    /**
+     * 执行命令并等待结束
+     *
+     * @param cmd   命令及参数
+     * @param token 取消令牌
+     * @return 进程退出码及输出末尾
+     * @throws java.util.concurrent.CancellationException 执行期间被取消
+     */
+    public static Result run(List<String> cmd, CancellationToken token) throws IOException, InterruptedException {
+        token.throwIfCancelled();
+        Process process = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        // 必须持续消耗输出，否则缓冲区写满后进程会阻塞；
+        // 在独立线程中读取，进程派生的子进程仍持有输出管道时也不影响等待进程结束
+        OutputTail tail = new OutputTail();
+        Thread pump = new Thread(() -> tail.pump(process.getInputStream()), "process-output");
+        pump.setDaemon(true);
+        pump.start();
+        CancellationToken.Registration registration = token.onCancel(process::destroyForcibly);
+        try {
+            int exitCode = process.waitFor();
+            token.throwIfCancelled();
+            pump.join(OUTPUT_DRAIN_MILLIS);
+            return new Result(exitCode, tail.toString());
+        } finally {
+            registration.close();
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * 读取进程输出，只保留末尾一段
+     */
+    private static class OutputTail {
+        private final byte[] tail = new byte[OUTPUT_TAIL_BYTES];
+        private int length = 0;
+
+        private void pump(InputStream in) {
+            byte[] buffer = new byte[8192];
+            try (InputStream input = in) {
+                int n;
+                while ((n = input.read(buffer)) > 0) {
+                    append(buffer, n);
+                }
+            } catch (IOException ignored) {
+                // 进程被强制结束时读取可能失败，视为输出结束
+            }
+        }
+
+        private synchronized void append(byte[] buffer, int n) {
+            if (n >= tail.length) {
+                System.arraycopy(buffer, n - tail.length, tail, 0, tail.length);
+                length = tail.length;
+            } else {
+                int keep = Math.min(length, tail.length - n);
+                System.arraycopy(tail, length - keep, tail, 0, keep);
+                System.arraycopy(buffer, 0, tail, keep, n);
+                length = keep + n;
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return new String(tail, 0, length, Charset.defaultCharset()).trim();
+        }
+    }
+
+    /**
+     * 进程执行结果
+     */
+    public static class Result {
+        private final int exitCode;
+        private final String output;
+
+        private Result(int exitCode, String output) {
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+    }
+}
@@ -10,16 +10,21 @@
 package com.filemanager.util.file;
 
 import java.io.File;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collections;
 
 /**
- * 模拟文件锁管理类 (基于内存)
+ * 文件锁管理类 (基于内存)，由 PathLockManager 实现，目录上的锁与其子孙路径上的锁互相冲突
  */
 public class FileLockManagerUtil {
 
-    // 使用线程安全的 Set 来存储已加锁的文件路径
-    private static final Set<String> lockedFiles = ConcurrentHashMap.newKeySet();
+    private static final PathLockManager MANAGER = new PathLockManager();
+
+    /**
+     * 获取底层的层级路径锁管理器，需要共享锁或一次锁多个路径时直接使用
+     */
+    public static PathLockManager getPathLockManager() {
+        return MANAGER;
+    }
 
     /**
      * 尝试对文件加锁
@@ -27,8 +32,7 @@ public class FileLockManagerUtil {
      * @return 如果加锁成功返回 true；如果文件已被锁，返回 false
      */
     public static boolean lock(File file) {
-        // add 方法如果元素已存在会返回 false，不存在则添加并返回 true
-        return lockedFiles.add(file.getAbsolutePath());
+        return MANAGER.tryAcquire(ownerOf(file), Collections.singletonList(PathLockManager.LockRequest.exclusive(file)));
     }
 
     /**
@@ -37,22 +41,36 @@ public class FileLockManagerUtil {
      * @return 如果解锁成功返回 true；如果文件本来就没有锁，返回 false
      */
     public static boolean unlock(File file) {
-        return lockedFiles.remove(file.getAbsolutePath());
+        return MANAGER.release(ownerOf(file));
     }
 
     /**
-     * 检查文件是否已被锁
+     * 尝试加锁，失败时登记回调，等冲突的锁释放后把锁移交给回调方
+     * @param file 文件
+     * @param onAcquired 锁移交后执行的回调（此时已持有锁）
+     * @return 如果立即加锁成功返回 true；否则返回 false 并在之后回调
+     */
+    public static boolean lockOrWait(File file, Runnable onAcquired) {
+        return MANAGER.acquireOrWait(ownerOf(file), Collections.singletonList(PathLockManager.LockRequest.exclusive(file)), onAcquired);
+    }
+
+    /**
+     * 检查文件（或其所在目录）是否已被锁
      * @param file 文件路径
      * @return 是否已被锁
      */
-    public static synchronized boolean isLocked(File file) {
-        return lockedFiles.contains(file.getAbsolutePath());
+    public static boolean isLocked(File file) {
+        return MANAGER.isLocked(file.getAbsolutePath());
     }
 
     /**
      * 清除所有锁
      */
     public static void clearAllLocks() {
-        lockedFiles.clear();
+        MANAGER.clear();
+    }
+
+    private static String ownerOf(File file) {
+        return "文件锁 " + file.getAbsolutePath();
     }
-}
\ No newline at end of file
+}
@@ -21,7 +21,10 @@ public class FileSizeFormatUtil {
         if (file == null) {
             return "NaN";
         }
-        long s = file.length();
+        return formatFileSize(file.length());
+    }
+
+    public static String formatFileSize(long s) {
         if (s <= 0) return "0";
         final String[] u = {"B", "KB", "MB", "GB"};
         int d = (int) (Math.log10(s) / Math.log10(1024));
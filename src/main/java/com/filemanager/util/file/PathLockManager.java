@@ -0,0 +1,512 @@
+/*
+ * Copyright (c) 2026 hrcao (chrse1997@163.com)
+ * Licensed under GPLv3 + Non-Commercial Clause.
+ * You may not use this file except in compliance with the License.
+ * See the LICENSE file in the project root for more information.
+ * Author: hrcao
+ * Mail: chrse1997@163.com
+ * Date: 2026-01-12
+ */
+package com.filemanager.util.file;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 层级路径锁管理（多粒度锁）
+ * <p>
+ * 对路径加共享锁（S）或排他锁（X）时，会在它的每一级父目录上加意向锁（IS / IX），
+ * 因此目录上的锁与其子孙路径上的锁在同一个节点上就能判断冲突：
+ * 目录排他锁与子孙路径上的任何锁冲突，目录共享锁与子孙路径上的排他锁冲突。
+ * <p>
+ * 节点按路径分段到若干把 ReentrantLock 上，加锁时按分段序号依次锁住涉及的分段，避免死锁；
+ * 拿不到锁时在冲突节点上登记异步回调，释放时按登记顺序重试，不再轮询；
+ * 登记时可指定最长等待时间，超时的等待者由后台线程移出队列并回调，持有者卡住时等待者不会永远挂起。
+ * 一次加锁的多个路径要么全部成功，要么全部不加。同一持有者不可重入。
+ * <p>
+ * 节点上有排队的等待者时，与其冲突的新请求即使与当前持有者兼容也排到它后面，
+ * 源源不断的共享锁和意向锁请求不会让目录排他锁一直等下去。
+ */
+public class PathLockManager {
+
+    /**
+     * 锁模式
+     */
+    public enum Mode {
+        // 意向共享：子孙路径上有共享锁
+        IS,
+        // 意向排他：子孙路径上有排他锁
+        IX,
+        // 共享
+        S,
+        // 排他
+        X
+    }
+
+    // 兼容矩阵，COMPATIBLE[请求][已持有]
+    private static final boolean[][] COMPATIBLE = {
+            // IS     IX     S      X
+            {true, true, true, false},   // IS
+            {true, true, false, false},  // IX
+            {true, false, true, false},  // S
+            {false, false, false, false} // X
+    };
+    private static final int STRIPES = 64;
+    // 检查等待超时的间隔
+    private static final long EXPIRE_CHECK_MILLIS = 1000;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+    // 持有者 -> 已加锁的节点和模式，释放时按此回收
+    private final Map<Object, Map<String, EnumSet<Mode>>> held = new ConcurrentHashMap<>();
+    // 正在等待的持有者，用于诊断和超时检查
+    private final Map<Object, AsyncWaiter> waiting = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService expireTimer;
+
+    public PathLockManager() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        expireTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "path-lock-expire");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expireTimer.scheduleWithFixedDelay(this::expireWaiters, EXPIRE_CHECK_MILLIS, EXPIRE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 尝试加锁，不等待
+     *
+     * @param owner    持有者，按 equals 区分
+     * @param requests 需要加锁的路径
+     * @return 全部加锁成功返回 true
+     */
+    public boolean tryAcquire(Object owner, List<LockRequest> requests) {
+        Map<String, EnumSet<Mode>> needed = expand(requests);
+        List<Stripe> locked = lockStripes(needed.keySet());
+        try {
+            return grantIfCompatible(owner, needed) == null;
+        } finally {
+            unlockAll(locked);
+        }
+    }
+
+    /**
+     * 尝试加锁，冲突时登记回调，等冲突的锁释放后自动重试，成功后在释放锁的线程上执行回调；不限等待时间
+     *
+     * @param onAcquired 异步加锁成功后的回调（此时已持有锁）
+     * @return 立即加锁成功返回 true（不会执行回调）；否则返回 false
+     */
+    public boolean acquireOrWait(Object owner, List<LockRequest> requests, Runnable onAcquired) {
+        return tryGrantOrEnqueue(new AsyncWaiter(owner, requests, expand(requests), 0, onAcquired, null));
+    }
+
+    /**
+     * 尝试加锁，冲突时登记回调，最长等待 timeout；超时后等待者移出队列，不再加锁
+     *
+     * @param onAcquired 异步加锁成功后的回调（此时已持有锁）
+     * @param onTimeout  等待超时的回调，参数为超时时的诊断信息（dump），在超时检查线程上执行
+     * @return 立即加锁成功返回 true（不会执行回调）；否则返回 false
+     */
+    public boolean acquireOrWait(Object owner, List<LockRequest> requests, long timeout, TimeUnit unit,
+                                 Runnable onAcquired, Consumer<String> onTimeout) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return tryGrantOrEnqueue(new AsyncWaiter(owner, requests, expand(requests), deadline, onAcquired, onTimeout));
+    }
+
+    /**
+     * 释放持有者的所有锁，并唤醒等待这些节点的等待者
+     *
+     * @return 持有者原本没有锁时返回 false
+     */
+    public boolean release(Object owner) {
+        Map<String, EnumSet<Mode>> grants = held.remove(owner);
+        if (grants == null) {
+            return false;
+        }
+        List<AsyncWaiter> retry = new ArrayList<>();
+        List<Stripe> locked = lockStripes(grants.keySet());
+        try {
+            for (Map.Entry<String, EnumSet<Mode>> e : grants.entrySet()) {
+                Node node = nodes.get(e.getKey());
+                if (node == null) {
+                    continue;
+                }
+                for (Mode mode : e.getValue()) {
+                    node.counts[mode.ordinal()]--;
+                }
+                node.holders.remove(owner);
+                retry.addAll(node.waiters);
+                node.waiters.clear();
+                if (node.isIdle()) {
+                    nodes.remove(e.getKey());
+                }
+            }
+        } finally {
+            unlockAll(locked);
+        }
+        retryWaiters(retry);
+        return true;
+    }
+
+    /**
+     * 在锁外按登记顺序重试异步等待者，仍有冲突的会重新登记到新的冲突节点上
+     */
+    private void retryWaiters(List<AsyncWaiter> retry) {
+        for (AsyncWaiter waiter : retry) {
+            if (tryGrantOrEnqueue(waiter)) {
+                waiter.onAcquired.run();
+            }
+        }
+    }
+
+    /**
+     * 移出等待超时的等待者并回调；同一节点上排在它后面的等待者不再被它挡住，立即重试
+     */
+    private void expireWaiters() {
+        long now = System.nanoTime();
+        for (AsyncWaiter waiter : waiting.values()) {
+            if (waiter.onTimeout == null || now - waiter.deadline < 0) {
+                continue;
+            }
+            String path = waiter.conflictPath;
+            List<AsyncWaiter> retry = new ArrayList<>();
+            boolean removed = false;
+            Stripe stripe = stripeOf(path);
+            stripe.lock.lock();
+            try {
+                Node node = nodes.get(path);
+                // 不在该节点上说明正在被重试，下次检查时再处理
+                if (node != null && node.waiters.remove(waiter)) {
+                    removed = true;
+                    waiting.remove(waiter.owner, waiter);
+                    retry.addAll(node.waiters);
+                    node.waiters.clear();
+                    if (node.isIdle()) {
+                        nodes.remove(path);
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+            if (!removed) {
+                continue;
+            }
+            try {
+                waiter.onTimeout.accept(dump());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            retryWaiters(retry);
+        }
+    }
+
+    /**
+     * 路径本身或其任一父目录上是否有共享/排他锁
+     */
+    public boolean isLocked(String path) {
+        for (String key = path; key != null; key = new File(key).getParent()) {
+            Stripe stripe = stripeOf(key);
+            stripe.lock.lock();
+            try {
+                Node node = nodes.get(key);
+                if (node != null && (node.count(Mode.S) > 0 || node.count(Mode.X) > 0)) {
+                    return true;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 诊断信息：列出每个路径上的持有者和所有等待者，用于排查执行卡住的原因
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        long now = System.currentTimeMillis();
+        Map<String, Node> sorted = new TreeMap<>(nodes);
+        sb.append("加锁节点数: ").append(sorted.size()).append('\n');
+        for (Map.Entry<String, Node> e : sorted.entrySet()) {
+            Stripe stripe = stripeOf(e.getKey());
+            stripe.lock.lock();
+            try {
+                for (Map.Entry<Object, Holder> h : e.getValue().holders.entrySet()) {
+                    EnumSet<Mode> modes = h.getValue().modes;
+                    if (modes.contains(Mode.S) || modes.contains(Mode.X)) {
+                        sb.append("  ").append(e.getKey()).append(' ').append(modes)
+                                .append(" <- ").append(h.getKey())
+                                .append("，已持有 ").append(now - h.getValue().since).append("ms\n");
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        sb.append("等待中: ").append(waiting.size()).append('\n');
+        for (Map.Entry<Object, AsyncWaiter> e : waiting.entrySet()) {
+            AsyncWaiter info = e.getValue();
+            sb.append("  ").append(e.getKey()).append(" 请求 ").append(info.requests)
+                    .append("，冲突路径 ").append(info.conflictPath)
+                    .append("，已等待 ").append(now - info.since).append("ms\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 清除所有锁和等待者（等待中的回调不再执行）
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+        try {
+            nodes.clear();
+            held.clear();
+            waiting.clear();
+        } finally {
+            for (Stripe stripe : stripes) {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private boolean tryGrantOrEnqueue(AsyncWaiter waiter) {
+        List<Stripe> locked = lockStripes(waiter.needed.keySet());
+        try {
+            String conflict = grantIfCompatible(waiter.owner, waiter.needed);
+            if (conflict == null) {
+                waiting.remove(waiter.owner);
+                return true;
+            }
+            // 持有冲突节点的分段锁时登记，释放方一定能看到这个等待者
+            nodes.computeIfAbsent(conflict, k -> new Node()).waiters.addLast(waiter);
+            waiter.conflictPath = conflict;
+            waiting.put(waiter.owner, waiter);
+            return false;
+        } finally {
+            unlockAll(locked);
+        }
+    }
+
+    /**
+     * 检查所有节点的兼容性（包括节点上排队的等待者），全部兼容时一次性加锁
+     * 调用方需持有所有涉及节点的分段锁
+     *
+     * @return 冲突节点路径，全部加锁成功返回 null
+     */
+    private String grantIfCompatible(Object owner, Map<String, EnumSet<Mode>> needed) {
+        for (Map.Entry<String, EnumSet<Mode>> e : needed.entrySet()) {
+            Node node = nodes.get(e.getKey());
+            if (node != null && (!node.isCompatible(e.getValue()) || node.isQueuedBehind(owner, e.getKey(), e.getValue()))) {
+                return e.getKey();
+            }
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, EnumSet<Mode>> e : needed.entrySet()) {
+            Node node = nodes.computeIfAbsent(e.getKey(), k -> new Node());
+            for (Mode mode : e.getValue()) {
+                node.counts[mode.ordinal()]++;
+            }
+            node.holders.computeIfAbsent(owner, k -> new Holder(now)).modes.addAll(e.getValue());
+        }
+        held.put(owner, needed);
+        return null;
+    }
+
+    /**
+     * 展开加锁请求：去掉被父目录覆盖的请求，并在每一级父目录上加意向锁
+     */
+    private static Map<String, EnumSet<Mode>> expand(List<LockRequest> requests) {
+        // 同一路径取较强的模式
+        TreeMap<String, Mode> explicit = new TreeMap<>();
+        for (LockRequest request : requests) {
+            explicit.merge(request.path, request.mode, (a, b) -> a == Mode.X || b == Mode.X ? Mode.X : Mode.S);
+        }
+        Map<String, EnumSet<Mode>> needed = new LinkedHashMap<>();
+        for (Map.Entry<String, Mode> e : explicit.entrySet()) {
+            if (isCovered(e.getKey(), e.getValue(), explicit)) {
+                continue;
+            }
+            needed.computeIfAbsent(e.getKey(), k -> EnumSet.noneOf(Mode.class)).add(e.getValue());
+            Mode intention = e.getValue() == Mode.X ? Mode.IX : Mode.IS;
+            for (String parent = new File(e.getKey()).getParent(); parent != null; parent = new File(parent).getParent()) {
+                needed.computeIfAbsent(parent, k -> EnumSet.noneOf(Mode.class)).add(intention);
+            }
+        }
+        return needed;
+    }
+
+    private static boolean isCovered(String path, Mode mode, Map<String, Mode> explicit) {
+        for (String parent = new File(path).getParent(); parent != null; parent = new File(parent).getParent()) {
+            Mode parentMode = explicit.get(parent);
+            if (parentMode == Mode.X || (parentMode == Mode.S && mode == Mode.S)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int stripeIndex(String path) {
+        int h = path.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private Stripe stripeOf(String path) {
+        return stripes[stripeIndex(path)];
+    }
+
+    /**
+     * 按分段序号顺序加锁，保证多个线程之间不会死锁
+     */
+    private List<Stripe> lockStripes(Iterable<String> paths) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (String path : paths) {
+            indexes.add(stripeIndex(path));
+        }
+        List<Stripe> locked = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            stripes[index].lock.lock();
+            locked.add(stripes[index]);
+        }
+        return locked;
+    }
+
+    private static void unlockAll(List<Stripe> locked) {
+        for (Stripe stripe : locked) {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 加锁请求
+     */
+    public static class LockRequest {
+        private final String path;
+        private final Mode mode;
+
+        private LockRequest(String path, Mode mode) {
+            this.path = path;
+            this.mode = mode;
+        }
+
+        public static LockRequest shared(File file) {
+            return new LockRequest(file.getAbsolutePath(), Mode.S);
+        }
+
+        public static LockRequest exclusive(File file) {
+            return new LockRequest(file.getAbsolutePath(), Mode.X);
+        }
+
+        @Override
+        public String toString() {
+            return mode + " " + path;
+        }
+    }
+
+    private static class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+    }
+
+    private static class Node {
+        private final int[] counts = new int[Mode.values().length];
+        private final Map<Object, Holder> holders = new LinkedHashMap<>();
+        private final Deque<AsyncWaiter> waiters = new ArrayDeque<>();
+
+        private int count(Mode mode) {
+            return counts[mode.ordinal()];
+        }
+
+        private boolean isCompatible(EnumSet<Mode> requested) {
+            for (Mode mode : requested) {
+                for (Mode holding : Mode.values()) {
+                    if (counts[holding.ordinal()] > 0 && !COMPATIBLE[mode.ordinal()][holding.ordinal()]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 节点上是否有与请求冲突的排队等待者，有则请求需排在其后
+         * 释放时等待者先从队列取出再按顺序重试，重试中的等待者不会被自己或排在后面的等待者挡住
+         */
+        private boolean isQueuedBehind(Object owner, String path, EnumSet<Mode> requested) {
+            for (AsyncWaiter waiter : waiters) {
+                if (waiter.owner.equals(owner)) {
+                    continue;
+                }
+                EnumSet<Mode> queued = waiter.needed.get(path);
+                for (Mode mode : requested) {
+                    for (Mode other : queued) {
+                        if (!COMPATIBLE[mode.ordinal()][other.ordinal()]) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean isIdle() {
+            if (!waiters.isEmpty()) {
+                return false;
+            }
+            for (int count : counts) {
+                if (count > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Holder {
+        private final EnumSet<Mode> modes = EnumSet.noneOf(Mode.class);
+        private final long since;
+
+        private Holder(long since) {
+            this.since = since;
+        }
+    }
+
+    private static class AsyncWaiter {
+        private final Object owner;
+        private final List<LockRequest> requests;
+        private final Map<String, EnumSet<Mode>> needed;
+        // 等待截止时间（System.nanoTime），没有超时回调时不限
+        private final long deadline;
+        private final Runnable onAcquired;
+        private final Consumer<String> onTimeout;
+        private final long since = System.currentTimeMillis();
+        // 当前登记所在的冲突节点
+        private volatile String conflictPath;
+
+        private AsyncWaiter(Object owner, List<LockRequest> requests, Map<String, EnumSet<Mode>> needed,
+                            long deadline, Runnable onAcquired, Consumer<String> onTimeout) {
+            this.owner = owner;
+            this.requests = requests;
+            this.needed = needed;
+            this.deadline = deadline;
+            this.onAcquired = onAcquired;
+            this.onTimeout = onTimeout;
+        }
+    }
+}